@@ -5,7 +5,11 @@ import application.framework.Session;
 import database.connection.DatabaseConnection;
 import database.migration.SchemaManager;
 import database.repository.repos.*;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -23,6 +27,9 @@ import java.sql.SQLException;
  * @see Session
  */
 public class AppContext {
+    private static final Duration SWEEP_INTERVAL = Duration.hours(1);
+    // Messages only become archivable after months, so a daily pass over the table is plenty
+    private static final Duration ARCHIVE_INTERVAL = Duration.hours(24);
     private static AppContext INSTANCE;
 
     private final Connection connection;
@@ -79,8 +86,28 @@ public class AppContext {
         this.announcementsRepository = new Announcements(connection);
         this.adminRequestsRepository = new AdminRequests(connection);
 
+        inviteRepository.sweepExpired();
+        otpRepository.deleteUsedAndExpired();
+
         // Create the PageRouter ONCE, passing the main stage
         this.router = (primaryStage != null) ? new PageRouter(primaryStage) : null;
+        if (primaryStage != null) {
+            // Runs on the FX thread, like every other use of the shared connection
+            Timeline sweeper = new Timeline(new KeyFrame(SWEEP_INTERVAL, e -> {
+                inviteRepository.sweepExpired();
+                otpRepository.deleteUsedAndExpired();
+                // Brings stored message bodies in line with the compression setting; only messages past the
+                // saved checkpoint are looked at, so a run with nothing new is a single indexed read
+                messageRepository.recompress();
+            }));
+            sweeper.setCycleCount(Animation.INDEFINITE);
+            sweeper.play();
+
+            // Moves old messages from closed questions and quiet chats out of the hot table, off the startup path
+            Timeline archiver = new Timeline(new KeyFrame(ARCHIVE_INTERVAL, e -> messageRepository.archive()));
+            archiver.setCycleCount(Animation.INDEFINITE);
+            archiver.play();
+        }
 
         // Create the session
         this.session = new Session();
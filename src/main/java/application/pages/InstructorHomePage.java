@@ -3,6 +3,7 @@ package application.pages;
 import application.framework.*;
 import database.model.entities.ReviewerRequest;
 import database.model.entities.User;
+import database.repository.Page;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -14,8 +15,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import utils.Helpers;
-import utils.permissions.Roles;
-import utils.permissions.RolesUtil;
 
 import java.util.List;
 
@@ -30,8 +29,12 @@ import java.util.List;
 @Route(MyPages.INSTRUCTOR_HOME)
 @View(title = "Instructor Page")
 public class InstructorHomePage extends BasePage {
+    private static final int PAGE_SIZE = 100;
+
     private TableView<ReviewerRequest> requestTable;
     private ObservableList<ReviewerRequest> requestsData;
+    private Page nextPage = Page.first(PAGE_SIZE);
+    private Button loadMoreButton;
 
     /**
      * Creates and returns the main UI layout for the instructor's home page.
@@ -105,15 +108,14 @@ public class InstructorHomePage extends BasePage {
 
         requestTable.getColumns().addAll(requesterCol, dateCol, actionsCol);
 
-        // Get pending reviewer requests for this instructor
-        User instructor = context.getSession().getActiveUser();
-        List<ReviewerRequest> pendingRequests = context.reviewerRequests().getRequestsByInstructor(instructor.getId());
-
-        // Filter to only show pending requests (where status is null)
-        pendingRequests.removeIf(request -> request.getStatus() != null);
+        // Several requests can be selected and handled at once
+        requestTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
-        requestsData = FXCollections.observableArrayList(pendingRequests);
+        // Get the first page of pending reviewer requests for this instructor
+        requestsData = FXCollections.observableArrayList();
         requestTable.setItems(requestsData);
+        loadMoreButton = UIFactory.createButton("Load More", e -> e.onAction(a -> loadPendingRequests()));
+        loadPendingRequests();
 
         // Add placeholder text when there are no requests
         requestTable.setPlaceholder(new Label("No pending reviewer requests"));
@@ -122,9 +124,13 @@ public class InstructorHomePage extends BasePage {
         Button questionDisplayButton = UIFactory.createHomepageButton(context);
 
         // Add a refresh button
-        Button refreshButton = UIFactory.createButton("Refresh Requests", e -> {
-            refreshRequestsTable();
-        });
+        Button refreshButton = UIFactory.createButton("Refresh Requests", e -> e.onAction(a -> refreshRequestsTable()));
+
+        // Bulk actions on the selected requests
+        Button approveSelectedButton = UIFactory.createButton("Approve Selected", e -> e.onAction(a -> handleSelectedRequests(true)));
+        Button rejectSelectedButton = UIFactory.createButton("Reject Selected", e -> e.onAction(a -> handleSelectedRequests(false)));
+        HBox bulkActions = new HBox(10, approveSelectedButton, rejectSelectedButton, loadMoreButton, refreshButton);
+        bulkActions.setAlignment(Pos.CENTER);
 
         //Button to navigate to remove reviewers role
         Button manageReviewerButton = UIFactory.createButton("Manage Reviewer Roles", b ->
@@ -172,7 +178,7 @@ public class InstructorHomePage extends BasePage {
                 buttonContainerAbove,
                 requestsLabel,
                 requestTable,
-                refreshButton,
+                bulkActions,
                 buttonContainerBelow);
 
         return layout;
@@ -180,7 +186,7 @@ public class InstructorHomePage extends BasePage {
 
     /**
      * Handles the approval or rejection of a reviewer request.
-     * If approved, the user is assigned the REVIEWER role.
+     * If approved, the user is assigned the REVIEWER role as part of the same transaction.
      *
      * @param request  The reviewer request to process.
      * @param approved True if the request is approved, false if rejected.
@@ -188,21 +194,11 @@ public class InstructorHomePage extends BasePage {
     private void handleRequestAction(ReviewerRequest request, boolean approved) {
         try {
             if (approved) {
-                // Accept the request
+                // Accept the request; the requester is granted the REVIEWER role with it
                 ReviewerRequest updatedRequest = context.reviewerRequests().acceptRequest(request.getId());
 
                 if (updatedRequest != null) {
-                    // Update the user's role
-                    User requester = request.getRequester();
-
-                    // Add the REVIEWER role to the user
-                    Roles[] all_roles = RolesUtil.intToRoles(requester.getRoles());
-
-                    if (!RolesUtil.hasRole(all_roles, Roles.REVIEWER)) {
-                        requester.setRoles(RolesUtil.addRole(requester.getRoles(), Roles.REVIEWER));
-                        context.users().update(requester);
-                    }
-
+                    User requester = updatedRequest.getRequester();
                     UIFactory.showAlert(Alert.AlertType.INFORMATION, "Request Approved",
                             "You have approved " + requester.getUserName() + " as a reviewer.");
                 }
@@ -228,16 +224,53 @@ public class InstructorHomePage extends BasePage {
     }
 
     /**
-     * Refreshes the reviewer requests table with the latest data.
+     * Approves or rejects every selected reviewer request in one transaction.
+     * Approved requesters are granted the REVIEWER role as part of the same transaction.
+     *
+     * @param approved True to approve the selected requests, false to reject them.
      */
-    private void refreshRequestsTable() {
+    private void handleSelectedRequests(boolean approved) {
+        List<Integer> ids = requestTable.getSelectionModel().getSelectedItems().stream()
+                .map(ReviewerRequest::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            UIFactory.showAlert(Alert.AlertType.WARNING, "No Selection", "Select one or more requests first.");
+            return;
+        }
+
+        try {
+            List<ReviewerRequest> handled = approved
+                    ? context.reviewerRequests().acceptRequests(ids)
+                    : context.reviewerRequests().rejectRequests(ids);
+            UIFactory.showAlert(Alert.AlertType.INFORMATION, approved ? "Requests Approved" : "Requests Rejected",
+                    "You have " + (approved ? "approved " : "rejected ") + handled.size() + " reviewer request(s).");
+            refreshRequestsTable();
+        } catch (Exception e) {
+            e.printStackTrace();
+            UIFactory.showAlert(Alert.AlertType.ERROR, "Error",
+                    "An error occurred while processing the requests: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the next page of this instructor's pending reviewer requests, oldest first.
+     */
+    private void loadPendingRequests() {
         User instructor = context.getSession().getActiveUser();
-        List<ReviewerRequest> pendingRequests = context.reviewerRequests().getRequestsByInstructor(instructor.getId());
+        List<ReviewerRequest> pendingRequests =
+                context.reviewerRequests().getPendingForInstructor(instructor.getId(), nextPage);
 
-        // Filter to only show pending requests (where status is null)
-        pendingRequests.removeIf(request -> request.getStatus() != null);
+        requestsData.addAll(pendingRequests);
+        nextPage = nextPage.next();
+        loadMoreButton.setDisable(pendingRequests.size() < PAGE_SIZE);
+    }
 
+    /**
+     * Refreshes the reviewer requests table with the latest data.
+     */
+    private void refreshRequestsTable() {
         requestsData.clear();
-        requestsData.addAll(pendingRequests);
+        nextPage = Page.first(PAGE_SIZE);
+        loadPendingRequests();
     }
-}
\ No newline at end of file
+}
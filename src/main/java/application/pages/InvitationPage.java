@@ -3,9 +3,13 @@ package application.pages;
 import application.framework.*;
 import application.framework.builders.CopyButtonBuilder;
 import database.model.entities.Invite;
+import database.repository.repos.Invites;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
@@ -24,6 +28,11 @@ import java.util.List;
 @Route(MyPages.INVITATION)
 @View(title = "Invite Page")
 public class InvitationPage extends BasePage {
+    // Most invites issued by one bulk request
+    private static final int MAX_BULK_INVITES = 500;
+
+    // Shows how many invites are live and how many have expired but not been swept yet
+    private final Label statsLabel = UIFactory.createLabel("");
 
     public InvitationPage() {
         super();
@@ -70,14 +79,67 @@ public class InvitationPage extends BasePage {
                 )
         );
 
+        // Bulk generation: the number of codes to issue with the selected roles
+        TextField bulkCountInput = UIFactory.createTextField("Number of codes", f ->
+                f.minWidth(120).maxWidth(120).maxChars(3));
+        TextArea bulkCodesArea = new TextArea();
+        bulkCodesArea.setEditable(false);
+        bulkCodesArea.setPrefRowCount(6);
+        bulkCodesArea.setVisible(false);
+        bulkCodesArea.setManaged(false);
+        Button copyAllButton = UIFactory.createCopyButton("Copy Codes To Clipboard", bulkCodesArea::getText, CopyButtonBuilder::onCopy);
+        copyAllButton.setVisible(false);
+        copyAllButton.setManaged(false);
+        Button bulkBtn = UIFactory.createButton("Generate Codes In Bulk",
+                e -> e.onAction(
+                        a -> handleGenerateBulk(
+                                adminCb, studentCb, reviewerCb, instructorCb, staffCb, bulkCountInput, bulkCodesArea, copyAllButton
+                        )
+                )
+        );
+        HBox bulkBox = new HBox(10, bulkCountInput, bulkBtn);
+        bulkBox.setStyle(DesignGuide.CENTER_ALIGN);
+
         // Back button navigates to Admin Home
         Button backButton = UIFactory.createBackButton(context);
 
+        refreshStats();
+
         // Assemble layout
-        layout.getChildren().addAll(titleLabel, instructions, roleBox, generateBtn, inviteCodeLabel, backButton);
+        layout.getChildren().addAll(titleLabel, statsLabel, instructions, roleBox, generateBtn, inviteCodeLabel,
+                bulkBox, bulkCodesArea, copyAllButton, backButton);
         return layout;
     }
 
+    /**
+     * Shows the current number of live and expired invites.
+     */
+    private void refreshStats() {
+        Invites.InviteStats stats = context.invites().getStats();
+        statsLabel.setText("Live invites: " + stats.getLive() + " | Expired, awaiting sweep: " + stats.getExpired());
+    }
+
+    /**
+     * Reads the role checkboxes into a roles bit field.
+     *
+     * @param adminCb      Checkbox for the admin role
+     * @param studentCb    Checkbox for the student role
+     * @param reviewerCb   Checkbox for the Reviewer role
+     * @param instructorCb Checkbox for the Instructor role
+     * @param staffCb      Checkbox for the Staff role
+     * @return The selected roles, or {@code 0} if none are selected.
+     */
+    private static int selectedRoles(CheckBox adminCb, CheckBox studentCb, CheckBox reviewerCb,
+                                     CheckBox instructorCb, CheckBox staffCb) {
+        List<Roles> roleList = new ArrayList<>();
+        if (adminCb.isSelected()) roleList.add(Roles.ADMIN);
+        if (studentCb.isSelected()) roleList.add(Roles.STUDENT);
+        if (reviewerCb.isSelected()) roleList.add(Roles.REVIEWER);
+        if (instructorCb.isSelected()) roleList.add(Roles.INSTRUCTOR);
+        if (staffCb.isSelected()) roleList.add(Roles.STAFF);
+        return roleList.isEmpty() ? 0 : RolesUtil.rolesToInt(roleList.toArray(new Roles[0]));
+    }
+
     /**
      * Generates the invitation using each of the role checkboxes and sets up the
      * copy code button
@@ -94,20 +156,14 @@ public class InvitationPage extends BasePage {
     private void handleGenerateInvitation(CheckBox adminCb, CheckBox studentCb, CheckBox reviewerCb,
                                           CheckBox instructorCb, CheckBox staffCb,
                                           Label inviteCodeLabel, Button copyButton, VBox layout) {
-        List<Roles> roleList = new ArrayList<>();
-        if (adminCb.isSelected()) roleList.add(Roles.ADMIN);
-        if (studentCb.isSelected()) roleList.add(Roles.STUDENT);
-        if (reviewerCb.isSelected()) roleList.add(Roles.REVIEWER);
-        if (instructorCb.isSelected()) roleList.add(Roles.INSTRUCTOR);
-        if (staffCb.isSelected()) roleList.add(Roles.STAFF);
-
-        if (!roleList.isEmpty()) {
+        int roleInt = selectedRoles(adminCb, studentCb, reviewerCb, instructorCb, staffCb);
+        if (roleInt != 0) {
             // Use the active user from session as the issuer
             Invite invite = new Invite(context.getSession().getActiveUser().getId());
-            int roleInt = RolesUtil.rolesToInt(roleList.toArray(new Roles[0]));
             invite.setRoles(roleInt);
             context.invites().create(invite);
             inviteCodeLabel.setText(invite.getCode());
+            refreshStats();
 
             // If copy button not yet in layout, add it; else reset its text.
             if (copyButton.getParent() == null) {
@@ -120,4 +176,47 @@ public class InvitationPage extends BasePage {
             inviteCodeLabel.setText("Select at least one role!");
         }
     }
+
+    /**
+     * Generates a batch of invitation codes with the selected roles and lists them for copying.
+     *
+     * @param adminCb       Checkbox for the admin role
+     * @param studentCb     Checkbox for the student role
+     * @param reviewerCb    Checkbox for the Reviewer role
+     * @param instructorCb  Checkbox for the Instructor role
+     * @param staffCb       Checkbox for the Staff role
+     * @param countInput    Field holding the number of codes to generate
+     * @param codesArea     Text area the generated codes are listed in, one per line
+     * @param copyAllButton Button to copy every generated code to the user's clipboard
+     */
+    private void handleGenerateBulk(CheckBox adminCb, CheckBox studentCb, CheckBox reviewerCb,
+                                    CheckBox instructorCb, CheckBox staffCb,
+                                    TextField countInput, TextArea codesArea, Button copyAllButton) {
+        int roleInt = selectedRoles(adminCb, studentCb, reviewerCb, instructorCb, staffCb);
+        if (roleInt == 0) {
+            UIFactory.showAlert(Alert.AlertType.WARNING, "No Roles", "Select at least one role!");
+            return;
+        }
+        int count;
+        try {
+            count = Integer.parseInt(countInput.getText().trim());
+        } catch (NumberFormatException e) {
+            count = 0;
+        }
+        if (count < 1 || count > MAX_BULK_INVITES) {
+            UIFactory.showAlert(Alert.AlertType.WARNING, "Invalid Count",
+                    "Enter a number of codes between 1 and " + MAX_BULK_INVITES + ".");
+            return;
+        }
+
+        List<Invite> invites = context.invites().createBulk(count, context.getSession().getActiveUser().getId(), roleInt);
+        codesArea.setText(String.join("\n", invites.stream().map(Invite::getCode).toList()));
+        codesArea.setVisible(true);
+        codesArea.setManaged(true);
+        copyAllButton.setText("Copy Codes To Clipboard");
+        copyAllButton.setDisable(false);
+        copyAllButton.setVisible(true);
+        copyAllButton.setManaged(true);
+        refreshStats();
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import application.framework.*;
 import database.model.entities.Message;
 import database.model.entities.PrivateMessage;
 import database.model.entities.User;
+import database.repository.repos.PrivateMessages;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
@@ -12,6 +13,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents the private message conversation page.
  * This page allows users to view and reply to private messages.
@@ -88,25 +92,24 @@ public class PrivateMessageConvoPage extends BasePage {
     }
 
     /**
-     * Retrieves the entire conversation thread of a private message.
+     * Retrieves the entire conversation thread of a private message and marks it as read by the active user,
+     * since every message returned is about to be displayed.
      *
      * @param pm The starting private message of the conversation.
      * @return The formatted conversation as a string.
      */
     private String getConversation(PrivateMessage pm) {
         StringBuilder conversation = new StringBuilder();
-        User pmSender;
-        while (pm != null) {
-            int pmSenderID = pm.getMessage().getUserId();
-            pmSender = context.users().getById(pmSenderID);
-            conversation.append("(").append(pmSender.getUserName()).append("): ").append(pm.getMessage().getContent());
+        List<Integer> messageIds = new ArrayList<>();
+        List<PrivateMessages.ConversationEntry> entries = context.privateMessages().getConversation(pm.getId());
+        context.messages().loadArchived(entries.stream().map(e -> e.getPrivateMessage().getMessage()).toList());
+        for (PrivateMessages.ConversationEntry entry : entries) {
+            conversation.append("(").append(entry.getSenderUserName()).append("): ")
+                    .append(entry.getPrivateMessage().getMessage().getContent());
             conversation.append("\n");
-            if (!context.privateMessages().getRepliesToPrivateMessage(pm.getId()).isEmpty()) {
-                pm = context.privateMessages().getRepliesToPrivateMessage(pm.getId()).getFirst();
-            } else {
-                break;
-            }
+            messageIds.add(entry.getPrivateMessage().getMessage().getId());
         }
+        context.readMessages().markAsRead(user.getId(), messageIds);
         return conversation.toString();
     }
 
@@ -128,14 +131,7 @@ public class PrivateMessageConvoPage extends BasePage {
      * @return The latest private message reply in the thread.
      */
     private PrivateMessage getMostRecentReply() {
-        PrivateMessage pm = privateMessage;
-        while (pm != null) {
-            if (!context.privateMessages().getRepliesToPrivateMessage(pm.getId()).isEmpty()) {
-                pm = context.privateMessages().getRepliesToPrivateMessage(pm.getId()).getFirst();
-            } else {
-                break;
-            }
-        }
-        return pm;
+        List<PrivateMessages.ConversationEntry> chain = context.privateMessages().getConversation(privateMessage.getId());
+        return chain.isEmpty() ? privateMessage : chain.getLast().getPrivateMessage();
     }
 }
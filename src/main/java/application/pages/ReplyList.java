@@ -6,6 +6,7 @@ import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Review;
 import database.model.entities.User;
+import database.repository.repos.Answers;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Button;
@@ -18,8 +19,11 @@ import javafx.scene.layout.Pane;
 import utils.permissions.Roles;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Displays page with all replies of an answer. Supports nested replies and multiple users.
@@ -34,6 +38,9 @@ public class ReplyList extends BasePage {
 
     // Keeps track of whether only trusted reviews are being shown rather than all reviews
     private boolean trustedReviewsOnly = false;
+    private Set<Integer> untrustedReviewerIds = Set.of();
+    // Depth of each displayed answer below the root, from the thread query
+    private Map<Integer, Integer> depthById = Map.of();
 
     /**
      * @param p Sets the root answer to passed parameter
@@ -236,41 +243,51 @@ public class ReplyList extends BasePage {
      * Internal method for updating the replies ObservableList
      */
     private void updateList() {
-        ObservableList<Answer> tempReplyList = FXCollections.observableArrayList();
-        replies = findAnswers(root, tempReplyList);
+        untrustedReviewerIds = trustedReviewsOnly ? loadUntrustedReviewerIds() : Set.of();
+        replies = loadThread();
         replies = sendTrustedReviewsToTop(replies);
         rearrangeAnswers(replies);
     }
 
     /**
-     * @param answer      root answer to search from
-     * @param tempReplies the list that is overwritten and replaced with the result
-     * @return A copy of the ObservableList filled, unsorted, with all answers descended from the root.
-     * Recursively traverses the list, finding all replies to a root answer. It will replace the passed ObservableList
-     * as well as return a copy for code formatting.
+     * @return The IDs of reviewers the active user has not rated, looked up once per refresh
      */
-    private ObservableList<Answer> findAnswers(Answer answer, ObservableList<Answer> tempReplies) {
-        List<Answer> localReplies = context.answers().getRepliesToAnswer(answer.getId());
-        tempReplies.add(answer);
-        if (localReplies == null) {
-            return tempReplies;
-        }
-        if (trustedReviewsOnly) {
-            try {
-                List<User> untrustedReviewers = context.users().getReviewersNotRatedByUser(context.getSession().getActiveUser().getId());
-                List<Integer> untrustedReviewerIds = new ArrayList<>();
-                for (User untrustedReviewer : untrustedReviewers) {
-                    untrustedReviewerIds.add(untrustedReviewer.getId());
-                }
-                localReplies.removeIf(a -> untrustedReviewerIds.contains(a.getMessage().getUserId()));
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+    private Set<Integer> loadUntrustedReviewerIds() {
+        try {
+            Set<Integer> ids = new HashSet<>();
+            for (User untrustedReviewer : context.users().getReviewersNotRatedByUser(context.getSession().getActiveUser().getId())) {
+                ids.add(untrustedReviewer.getId());
             }
+            return ids;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
         }
-        for (Answer reply : localReplies) {
-            findAnswers(reply, tempReplies);
+    }
+
+    /**
+     * @return An ObservableList filled, in depth-first order, with the root and all answers descended from it.
+     * Loads the whole thread with a single query. When only trusted reviews are shown, replies by untrusted
+     * reviewers are left out together with everything below them.
+     */
+    private ObservableList<Answer> loadThread() {
+        ObservableList<Answer> thread = FXCollections.observableArrayList();
+        Map<Integer, Integer> depths = new HashMap<>();
+        Set<Integer> hiddenIds = new HashSet<>();
+        for (Answers.ThreadEntry entry : context.answers().getThread(root.getId())) {
+            // Keep the root instance itself; the rest of the page compares against it
+            Answer answer = entry.getDepth() == 0 ? root : entry.getAnswer();
+            if (entry.getDepth() > 0 && (hiddenIds.contains(answer.getParentAnswerId())
+                    || trustedReviewsOnly && untrustedReviewerIds.contains(answer.getMessage().getUserId()))) {
+                hiddenIds.add(answer.getId());
+                continue;
+            }
+            depths.put(answer.getId(), entry.getDepth());
+            thread.add(answer);
         }
-        return tempReplies;
+        depthById = depths;
+        // Old threads may be archived; their bodies are fetched together rather than one by one
+        context.messages().loadArchived(thread.stream().map(Answer::getMessage).toList());
+        return thread;
     }
 
     /**
@@ -293,12 +310,7 @@ public class ReplyList extends BasePage {
             }
         }
         for (Answer reply : replies) {
-            int depth = 0;
-            Answer tempAnswer = reply;
-            while (tempAnswer != root && tempAnswer.getParentAnswerId() != null) {
-                depth++;
-                tempAnswer = context.answers().getById(tempAnswer.getParentAnswerId());
-            }
+            int depth = depthById.getOrDefault(reply.getId(), 0);
             StringBuilder reformat = new StringBuilder(reply.getMessage().getContent());
             for (int i = 0; i < depth; i++) {
                 reformat.insert(0, "    ");
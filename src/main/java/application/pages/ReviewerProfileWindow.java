@@ -50,7 +50,9 @@ public class ReviewerProfileWindow {
         //Fields to allow users to see reviewers reviews
         ListView<String> reviewTable = new ListView<>();
         ObservableList<String> reviews = FXCollections.observableArrayList();
-        for (Answer a : context.answers().getAnswersByUser(reviewerId)) {
+        List<Answer> answers = context.answers().getAnswersByUser(reviewerId);
+        context.messages().loadArchived(answers.stream().map(Answer::getMessage).toList());
+        for (Answer a : answers) {
             if (a.getMessage().getContent().contains("φ"))
                 reviews.add(a.getMessage().getContent());
         }
@@ -1,6 +1,7 @@
 package application.pages.admin;
 
 import application.framework.*;
+import utils.requests.RequestState;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.Pane;
@@ -39,8 +40,12 @@ public class AdminHomePage extends BasePage {
         Button userButton = UIFactory.createButton("Show Users", e -> e.routeToPage(MyPages.ADMIN_USER, context));
         Button inviteButton = UIFactory.createButton("Invite", e -> e.routeToPage(MyPages.INVITATION, context));
         Button otpButton = UIFactory.createButton("Set user OTP", e -> e.routeToPage(MyPages.SET_PASS, context));
-        Button pendingReuestButton = UIFactory.createButton("Pending Requests", e -> e.routeToPage(MyPages.ADMIN_PENDING, context));
-        Button solvedReuestButton = UIFactory.createButton("Solved Requests", e -> e.routeToPage(MyPages.ADMIN_SOLVED, context));
+        // Badge counts come from the repository's in-memory counters, not a query per render
+        int pendingCount = context.adminRequests().count(RequestState.Pending);
+        int solvedCount = context.adminRequests().count(RequestState.Accepted)
+                + context.adminRequests().count(RequestState.Denied);
+        Button pendingReuestButton = UIFactory.createButton("Pending Requests (" + pendingCount + ")", e -> e.routeToPage(MyPages.ADMIN_PENDING, context));
+        Button solvedReuestButton = UIFactory.createButton("Solved Requests (" + solvedCount + ")", e -> e.routeToPage(MyPages.ADMIN_SOLVED, context));
         Button logoutButton = UIFactory.createLogoutButton(context);
 
         layout.getChildren().addAll(adminLabel, userButton, inviteButton, otpButton, pendingReuestButton, solvedReuestButton, logoutButton);
@@ -85,8 +85,7 @@ public class PendingAdminRequests extends BasePage {
     private Button setupRejectButton(AdminRequest m, ListView<HBox> listView) {
         Button rejectButton = new Button("Reject");
         rejectButton.setOnAction(event -> {
-            m.setState(RequestState.Denied);
-            context.adminRequests().update(m);
+            context.adminRequests().setState(m.getId(), RequestState.Denied);
             updateListView(listView);
         });
         return rejectButton;
@@ -5,6 +5,7 @@ import application.framework.builders.ButtonBuilder;
 import application.framework.builders.CopyButtonBuilder;
 import database.model.entities.AdminRequest;
 import database.model.entities.OneTimePassword;
+import database.repository.Page;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
@@ -15,6 +16,7 @@ import utils.requests.AdminActions;
 import utils.requests.RequestState;
 
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -26,8 +28,13 @@ import java.util.List;
 @Route(MyPages.ADMIN_SOLVED)
 @View(title = "Solved Admin Requests")
 public class SolvedAdminRequests extends BasePage {
+    private static final int PAGE_SIZE = 100;
+
     // ListView containing all solved admin requests
     private final ListView<Pair<Integer, VBox>> requestView = new ListView<>();
+    // Next page of solved requests to fetch when "Load More" is pressed
+    private Page nextPage = Page.first(PAGE_SIZE);
+    private Button loadMoreButton;
 
     /**
      * Creates the layout for the SolvedAdminRequests Page.
@@ -55,6 +62,7 @@ public class SolvedAdminRequests extends BasePage {
             }
         });
 
+        loadMoreButton = UIFactory.createButton("Load More", e -> e.onAction(a -> loadSolvedRequests()));
         loadSolvedRequests();
 
         // Button to reopen the selected admin request
@@ -80,25 +88,25 @@ public class SolvedAdminRequests extends BasePage {
         // Button to navigate to the previous page
         Button backButton = UIFactory.createBackButton(context);
 
-        layout.getChildren().addAll(titleLabel, requestView);
+        layout.getChildren().addAll(titleLabel, requestView, loadMoreButton);
         if (context.getSession().getCurrentRole() == Roles.INSTRUCTOR) layout.getChildren().add(reopenRequestButton);
         layout.getChildren().add(backButton);
         return layout;
     }
 
     /**
-     * Loads all solved requests from the database into the requestView
+     * Appends the next page of solved (accepted or denied) requests to the requestView,
      * sorted by newest to oldest.
      */
     private void loadSolvedRequests() {
-        requestView.getItems().clear();
-        List<AdminRequest> solvedRequests = context.adminRequests().filterFetch(RequestState.Accepted);
-        List<AdminRequest> others = context.adminRequests().filterFetch(RequestState.Denied);
-        solvedRequests.addAll(others);
+        List<AdminRequest> solvedRequests = context.adminRequests().filterFetch(
+                EnumSet.of(RequestState.Accepted, RequestState.Denied), null, nextPage);
 
         for (AdminRequest request : solvedRequests) {
-            requestView.getItems().addFirst(new Pair<>(request.getId(), createRequestVBox(request)));
+            requestView.getItems().add(new Pair<>(request.getId(), createRequestVBox(request)));
         }
+        nextPage = nextPage.next();
+        loadMoreButton.setDisable(solvedRequests.size() < PAGE_SIZE);
     }
 
     /**
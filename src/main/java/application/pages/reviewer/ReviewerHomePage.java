@@ -7,6 +7,7 @@ import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Question;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.Answers;
 import database.repository.repos.Questions;
 import javafx.scene.Scene;
@@ -35,6 +36,7 @@ import java.util.List;
 public class ReviewerHomePage extends BasePage {
     //max length for number of characters in the text field
     private static final int MAX_LENGTH = 300;
+    private static final int QUESTION_PAGE_SIZE = 50;
     //Creates list view to display search results
     private static final ListView<String> resultView = new ListView<>();
     //Question and Question title TextFields
@@ -49,6 +51,8 @@ public class ReviewerHomePage extends BasePage {
     //interact with each element in the list -- questions and answers
     private final ListView<Pair<Integer, String>> questionListView = new ListView<>();
     private final ListView<Pair<Integer, String>> answerListView = new ListView<>();
+    //Fetches the next page of questions into questionListView
+    private final Button loadMoreQuestionsButton = UIFactory.createButton("Load More", e -> e.onAction(a -> loadMoreQuestions()));
 
     private final Questions questionsRepo;
     private final Answers answersRepo;
@@ -64,6 +68,10 @@ public class ReviewerHomePage extends BasePage {
     private Stage questionStage;
     private Stage answerStage;
 
+    //Filters and next page of the question list currently shown
+    private Questions.QuestionQuery questionQuery = Questions.QuestionQuery.all();
+    private Page nextQuestionPage = Page.first(QUESTION_PAGE_SIZE);
+
     public ReviewerHomePage() {
         super();
         this.questionsRepo = context.questions();
@@ -182,7 +190,7 @@ public class ReviewerHomePage extends BasePage {
         });
 
 
-        layout.getChildren().addAll(userLabel, buttonBar, questionListView);
+        layout.getChildren().addAll(userLabel, buttonBar, questionListView, loadMoreQuestionsButton);
 
         // If more than one role, add a role selection dropdown and a Go button.
         if (allRoles.length > 1) {
@@ -195,36 +203,42 @@ public class ReviewerHomePage extends BasePage {
         return layout;
     }
 
-    //Method to load all the questions from the database
-    // And adding it to the question list view
+    //Method to reset the question list view to the first page of questions
+    // Further pages are fetched on demand by the Load More button
     private void loadQuestions() {
         questionListView.getItems().clear();
-        List<Question> questionList;
-        // Use Questions class
-        if (showingResolvedQuestions) {
-            questionList = context.questions().getAll();
-        } else {
-            questionList = context.questions().getQuestionsWithoutPinnedAnswer();
+        // Counts and pin status come with each page, so there are no per-question lookups
+        Questions.QuestionQuery query = Questions.QuestionQuery.all();
+        if (!showingResolvedQuestions) {
+            query = query.pinned(false);
         }
-
         if (showingUserQuestionsOnly) {
-            // remove questions not belonging to the user
-            questionList.removeIf(q -> context.getSession().getActiveUser().getId() != q.getMessage().getUserId());
+            query = query.byAuthor(context.getSession().getActiveUser().getId());
         }
+        questionQuery = query;
+        nextQuestionPage = Page.first(QUESTION_PAGE_SIZE);
+        loadMoreQuestions();
+    }
 
-        for (Question q : questionList) {
-            int numAnswers = answersRepo.getRepliesToQuestion(q.getId()).size();
+    //Appending the next page of questions to the question list view
+    private void loadMoreQuestions() {
+        List<Questions.QuestionSummary> batch = context.questions().listWithStats(questionQuery, nextQuestionPage);
+        for (Questions.QuestionSummary summary : batch) {
+            Question q = summary.getQuestion();
+            int numAnswers = summary.getAnswerCount();
             String title = q.getTitle();
             String r = "Reply";
             if (numAnswers != 1) {
                 r = "Replies";
             }
             title += " [" + numAnswers + "] " + r;
-            if (context.questions().hasPinnedAnswer(q.getId())) {
+            if (summary.isPinned()) {
                 title += " ✔";
             }
             questionListView.getItems().add(new Pair<>(q.getId(), title));
         }
+        nextQuestionPage = nextQuestionPage.next();
+        loadMoreQuestionsButton.setDisable(batch.size() < QUESTION_PAGE_SIZE);
     }
 
 //------------------------------------------------------------------------------------------------------------------------//
@@ -245,7 +259,7 @@ public class ReviewerHomePage extends BasePage {
 
         //Question for the answers/ Labels
         assert queContent != null;
-        Label questionContent = UIFactory.createLabel("Question: " + queContent.getMessage().getContent(),
+        Label questionContent = UIFactory.createLabel("Question: " + context.messages().loadArchived(queContent.getMessage()).getContent(),
                 f -> f.style("-fx-font-weight: bold; -fx-font-size: 13pt;"));
         Label answerLabelList = UIFactory.createLabel("Answers:", f -> f.style("-fx-font-weight: bold;"));
 
@@ -303,6 +317,7 @@ public class ReviewerHomePage extends BasePage {
     private void loadAnswers(int questionID) {
         answerListView.getItems().clear();
         List<Answer> answerList = context.answers().getRepliesToQuestion(questionID);
+        context.messages().loadArchived(answerList.stream().map(Answer::getMessage).toList());
         currentlySelectedQuestionResolved = false;
         for (Answer a : answerList) {
             if (a.getIsPinned()) {
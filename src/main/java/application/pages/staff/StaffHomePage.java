@@ -54,7 +54,10 @@ public class StaffHomePage extends BasePage {
         greeting.getStyleClass().add("heading");
 
         // Button to navigate to the staff private chats page
-        Button privateChatsButton = UIFactory.createButton("Open Private Chats",
+        int unread = context.readMessages().unreadCount(staffUser.getId());
+        Button privateChatsButton = UIFactory.createButton(unread > 0
+                        ? "Open Private Chats (" + unread + " unread)"
+                        : "Open Private Chats",
                 b -> b.routeToPage(MyPages.STAFF_PRIVATE_CHATS, context));
 
         // Button to manage reviewer roles
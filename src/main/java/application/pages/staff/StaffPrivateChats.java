@@ -4,7 +4,9 @@ import application.framework.*;
 import database.model.entities.Message;
 import database.model.entities.StaffMessage;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.StaffMessages;
+import database.repository.repos.StaffMessages.InboxEntry;
 import database.repository.repos.Users;
 import javafx.beans.value.ChangeListener;
 import javafx.geometry.Pos;
@@ -16,7 +18,11 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The StaffPrivateChats page provides a split interface for staff members to manage
@@ -42,6 +48,10 @@ import java.util.List;
 @View(title = "Staff Private Chats")
 public class StaffPrivateChats extends BasePage {
 
+    private static final int INBOX_PAGE_SIZE = 50;
+    private static final int CHAT_PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 50;
+
     private ListView<User> userListView;
     private TextField searchField;
     private TextArea messageInputArea;
@@ -53,6 +63,11 @@ public class StaffPrivateChats extends BasePage {
 
     private int staffId;         // The logged-in staff's userId
     private User selectedUser;   // The user currently selected in the chat list
+    private int oldestMessageId; // Oldest message shown, cursor for scrollback
+    private int newestMessageId; // Newest message shown, cursor for incremental refresh
+
+    // Inbox summaries (preview + unread count) keyed by partner userId
+    private final Map<Integer, InboxEntry> inboxEntries = new HashMap<>();
 
     /**
      * Constructs the StaffPrivateChats page and initializes the repositories.
@@ -150,8 +165,15 @@ public class StaffPrivateChats extends BasePage {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
-                } else {
+                    return;
+                }
+                InboxEntry entry = inboxEntries.get(item.getId());
+                if (entry == null) {
                     setText(item.getUserName());
+                } else if (entry.getUnreadCount() > 0) {
+                    setText(item.getUserName() + " (" + entry.getUnreadCount() + ")\n" + entry.getLastMessagePreview());
+                } else {
+                    setText(item.getUserName() + "\n" + entry.getLastMessagePreview());
                 }
             }
         });
@@ -168,12 +190,15 @@ public class StaffPrivateChats extends BasePage {
     }
 
     /**
-     * Loads the unique users that the staff member has chatted with and displays them in the user list.
+     * Loads the staff member's inbox (most recent conversations first) and displays the partners in the user list.
      */
     private void loadUniqueChats() {
         userListView.getItems().clear();
-        List<User> chatPartners = staffMessagesRepo.getUniqueChats(staffId);
-        userListView.getItems().addAll(chatPartners);
+        inboxEntries.clear();
+        for (InboxEntry entry : staffMessagesRepo.getInbox(staffId, Page.first(INBOX_PAGE_SIZE))) {
+            inboxEntries.put(entry.getPartner().getId(), entry);
+            userListView.getItems().add(entry.getPartner());
+        }
     }
 
     /**
@@ -188,33 +213,112 @@ public class StaffPrivateChats extends BasePage {
             loadUniqueChats();
             return;
         }
-        // Get all users, filter by partial match in username
-        List<User> allUsers = usersRepo.getAll();
-        for (User u : allUsers) {
-            if (u.getUserName().toLowerCase().contains(query) && u.getId() != staffId) {
+        // Users whose name starts with the query, through the username index
+        for (User u : usersRepo.searchByUsernamePrefix(query, SEARCH_LIMIT)) {
+            if (u.getId() != staffId) {
                 userListView.getItems().add(u);
             }
         }
     }
 
     /**
-     * Loads the chat history with the specified user, displaying messages in chronological order.
+     * Loads the most recent page of the chat with the specified user, displaying messages in chronological order.
      *
      * @param userId The ID of the user to load the chat with.
      */
     private void loadChat(int userId) {
         chatDisplayBox.getChildren().clear();
-        List<StaffMessage> chatMessages = staffMessagesRepo.loadChat(userId, staffId);
+        oldestMessageId = Integer.MAX_VALUE;
+        newestMessageId = 0;
+        List<StaffMessage> chatMessages = staffMessagesRepo.loadChatBefore(userId, staffId, Integer.MAX_VALUE, CHAT_PAGE_SIZE);
+        context.messages().loadArchived(chatMessages.stream().map(StaffMessage::getMessage).toList());
 
+        List<Integer> messageIds = new ArrayList<>();
+        List<Integer> partnerMessageIds = new ArrayList<>();
         for (StaffMessage sm : chatMessages) {
-            addMessageToChat(sm);
+            messageIds.add(sm.getMessage().getId());
+            if (sm.getMessage().getUserId() != staffId) {
+                partnerMessageIds.add(sm.getMessage().getId());
+            }
+        }
+        // One lookup for the whole page; bit i tells whether chatMessages.get(i) was already read
+        BitSet read = context.readMessages().readMask(staffId, messageIds);
+        for (int i = 0; i < chatMessages.size(); i++) {
+            StaffMessage sm = chatMessages.get(i);
+            boolean unread = sm.getMessage().getUserId() != staffId && !read.get(i);
+            chatDisplayBox.getChildren().add(createMessageRow(sm, unread));
+        }
+        if (!chatMessages.isEmpty()) {
+            oldestMessageId = chatMessages.getFirst().getMessage().getId();
+            newestMessageId = chatMessages.getLast().getMessage().getId();
         }
+        if (chatMessages.size() == CHAT_PAGE_SIZE) {
+            chatDisplayBox.getChildren().addFirst(createLoadEarlierButton(userId));
+        }
+        markChatAsRead(userId, partnerMessageIds);
 
         // Auto-scroll to the bottom of the chat
         chatDisplayBox.layout();
         chatDisplayScrollPane.setVvalue(1.0);
     }
 
+    /**
+     * Appends only the messages that arrived after the newest one currently displayed.
+     *
+     * @param userId The ID of the user the chat is open with.
+     */
+    private void appendNewMessages(int userId) {
+        List<StaffMessage> newMessages = staffMessagesRepo.loadChatSince(userId, staffId, newestMessageId, CHAT_PAGE_SIZE);
+        for (StaffMessage sm : newMessages) {
+            addMessageToChat(sm);
+            newestMessageId = sm.getMessage().getId();
+        }
+        chatDisplayBox.layout();
+        chatDisplayScrollPane.setVvalue(1.0);
+    }
+
+    /**
+     * Creates the button shown above the oldest displayed message that loads the previous page of the chat.
+     *
+     * @param userId The ID of the user the chat is open with.
+     * @return The "load earlier" button.
+     */
+    private Button createLoadEarlierButton(int userId) {
+        return UIFactory.createButton("Load earlier messages", b -> b.onAction(e -> {
+            chatDisplayBox.getChildren().removeFirst();
+            List<StaffMessage> earlier = staffMessagesRepo.loadChatBefore(userId, staffId, oldestMessageId, CHAT_PAGE_SIZE);
+            context.messages().loadArchived(earlier.stream().map(StaffMessage::getMessage).toList());
+            for (int i = earlier.size() - 1; i >= 0; i--) {
+                chatDisplayBox.getChildren().addFirst(createMessageRow(earlier.get(i)));
+            }
+            if (!earlier.isEmpty()) {
+                oldestMessageId = earlier.getFirst().getMessage().getId();
+            }
+            if (earlier.size() == CHAT_PAGE_SIZE) {
+                chatDisplayBox.getChildren().addFirst(createLoadEarlierButton(userId));
+            }
+        }));
+    }
+
+    /**
+     * Marks the partner's messages in the open chat as read and clears the unread badge in the inbox.
+     *
+     * @param userId     The ID of the chat partner.
+     * @param messageIds The IDs of the messages sent by the partner.
+     */
+    private void markChatAsRead(int userId, List<Integer> messageIds) {
+        InboxEntry entry = inboxEntries.get(userId);
+        if (entry == null || entry.getUnreadCount() == 0) {
+            return;
+        }
+        // Marking is idempotent, so already-read messages need no filtering first
+        context.readMessages().markAsRead(staffId, messageIds);
+
+        inboxEntries.put(userId, new InboxEntry(entry.getPartner(), entry.getLastMessagePreview(),
+                entry.getLastMessageAt(), 0));
+        userListView.refresh();
+    }
+
     /**
      * Sends a new message (typed in the messageInputArea) to the currently selected user.
      */
@@ -231,21 +335,41 @@ public class StaffPrivateChats extends BasePage {
         Message msg = new Message(staffId, content);
 
         // Actually send it
-        StaffMessage sm = staffMessagesRepo.sendMessage(msg, selectedUser.getId(), staffId);
+        staffMessagesRepo.sendMessage(msg, selectedUser.getId(), staffId);
 
-        // Clear input, display the new message, and scroll down
+        // Clear input and append the new message (plus anything the user sent meanwhile)
         messageInputArea.clear();
-        addMessageToChat(sm);
-        chatDisplayBox.layout();
-        chatDisplayScrollPane.setVvalue(1.0);
+        appendNewMessages(selectedUser.getId());
     }
 
     /**
-     * Adds a single message to the chat display, aligning staff vs user messages differently.
+     * Adds a single message to the bottom of the chat display.
      *
      * @param sm The StaffMessage to display.
      */
     private void addMessageToChat(StaffMessage sm) {
+        chatDisplayBox.getChildren().add(createMessageRow(sm));
+    }
+
+    /**
+     * Builds the row for a single message, aligning staff vs user messages differently.
+     *
+     * @param sm The StaffMessage to display.
+     * @return The message row.
+     */
+    private HBox createMessageRow(StaffMessage sm) {
+        return createMessageRow(sm, false);
+    }
+
+    /**
+     * Builds the row for a single message, aligning staff vs user messages differently
+     * and flagging messages the staff member had not read before opening the chat.
+     *
+     * @param sm     The StaffMessage to display.
+     * @param unread Whether to show the unread marker.
+     * @return The message row.
+     */
+    private HBox createMessageRow(StaffMessage sm, boolean unread) {
         HBox messageContainer = new HBox(5);
 
         // If the staff is the sender, align right. Otherwise, align left.
@@ -253,7 +377,7 @@ public class StaffPrivateChats extends BasePage {
 
         Label nameLabel = new Label(staffIsSender
                 ? " : Me"
-                : sm.getUser().getUserName() + ": ");
+                : (unread ? "\u2022 " : "") + sm.getUser().getUserName() + ": ");
 
         TextFlow textFlow = new TextFlow(new Text(sm.getMessage().getContent()));
 
@@ -265,6 +389,6 @@ public class StaffPrivateChats extends BasePage {
             messageContainer.getChildren().addAll(nameLabel, textFlow);
         }
 
-        chatDisplayBox.getChildren().add(messageContainer);
+        return messageContainer;
     }
 }
\ No newline at end of file
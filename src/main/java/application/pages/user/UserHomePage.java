@@ -7,8 +7,10 @@ import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Question;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.Answers;
 import database.repository.repos.Questions;
+import database.repository.repos.ReadMessages;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
@@ -23,6 +25,7 @@ import validators.PasswordValidator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -37,6 +40,7 @@ import java.util.Optional;
 public class UserHomePage extends BasePage {
     //max length for number of characters in the text field
     private static final int MAX_LENGTH = 300;
+    private static final int QUESTION_PAGE_SIZE = 50;
     //Creates list view to display search results
     private static final ListView<String> resultView = new ListView<>();
     //Question and Question title TextFields
@@ -53,6 +57,8 @@ public class UserHomePage extends BasePage {
     //interact with each element in the list -- questions and answers
     private final ListView<Pair<Integer, String>> questionListView = new ListView<>();
     private final ListView<Pair<Integer, String>> answerListView = new ListView<>();
+    //Fetches the next page of questions into questionListView
+    private final Button loadMoreQuestionsButton = UIFactory.createButton("Load More", e -> e.onAction(a -> loadMoreQuestions()));
     private final ListView<Pair<Integer, String>> searchListView = new ListView<>();
 
     private final Questions questionsRepo;
@@ -74,6 +80,10 @@ public class UserHomePage extends BasePage {
     private Stage questionStage;
     private Stage answerStage;
 
+    //Filters and next page of the question list currently shown
+    private Questions.QuestionQuery questionQuery = Questions.QuestionQuery.all();
+    private Page nextQuestionPage = Page.first(QUESTION_PAGE_SIZE);
+
     /**
      * Constructs the UserHomePage and loads the list of questions from the database.
      */
@@ -321,7 +331,14 @@ public class UserHomePage extends BasePage {
         MenuItem announcementsItem = new MenuItem("Announcements");
         announcementsItem.setOnAction(e -> context.router().navigate(MyPages.ANNOUNCEMENTS));
 
-        MenuItem staffChatItem = new MenuItem("Chat With Staff");
+        // Unread staff replies, served from the in-memory unread counters
+        int staffUnread = context.readMessages().unreadByConversation(user.getId()).entrySet().stream()
+                .filter(entry -> entry.getKey().getKind() == ReadMessages.Conversation.Kind.STAFF_CHAT)
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+        MenuItem staffChatItem = new MenuItem(staffUnread > 0
+                ? "Chat With Staff (" + staffUnread + " unread)"
+                : "Chat With Staff");
         staffChatItem.setOnAction(e -> {
             UserStaffChatWindow chatWindow = new UserStaffChatWindow();
             chatWindow.createStaffChatStage(context);
@@ -387,7 +404,7 @@ public class UserHomePage extends BasePage {
         }
 
 
-        layout.getChildren().addAll(userLabel, questionListBar, searchListView, questionListView, optionBar);
+        layout.getChildren().addAll(userLabel, questionListBar, searchListView, questionListView, loadMoreQuestionsButton, optionBar);
 
         // If more than one role, add a role selection dropdown and a Go button.
         if (allRoles.length > 1) {
@@ -428,36 +445,44 @@ public class UserHomePage extends BasePage {
     }
 
     /**
-     * Loads and displays questions in the ListView based on current filters.
+     * Resets the ListView to the first page of questions matching the current filters.
      */
     private void loadQuestions() {
         questionListView.getItems().clear();
-        List<Question> questionList;
-        // Use Questions class
-        if (showingResolvedQuestions) {
-            questionList = context.questions().getAll();
-        } else {
-            questionList = context.questions().getQuestionsWithoutPinnedAnswer();
+        // Counts and pin status come with each page, so there are no per-question lookups
+        Questions.QuestionQuery query = Questions.QuestionQuery.all();
+        if (!showingResolvedQuestions) {
+            query = query.pinned(false);
         }
-
         if (showingUserQuestionsOnly) {
-            // remove questions not belonging to the user
-            questionList.removeIf(q -> context.getSession().getActiveUser().getId() != q.getMessage().getUserId());
+            query = query.byAuthor(context.getSession().getActiveUser().getId());
         }
+        questionQuery = query;
+        nextQuestionPage = Page.first(QUESTION_PAGE_SIZE);
+        loadMoreQuestions();
+    }
 
-        for (Question q : questionList) {
-            int numAnswers = answersRepo.getRepliesToQuestion(q.getId()).size();
+    /**
+     * Appends the next page of questions matching the current filters to the question list.
+     */
+    private void loadMoreQuestions() {
+        List<Questions.QuestionSummary> batch = context.questions().listWithStats(questionQuery, nextQuestionPage);
+        for (Questions.QuestionSummary summary : batch) {
+            Question q = summary.getQuestion();
+            int numAnswers = summary.getAnswerCount();
             String title = q.getTitle();
             String r = "Reply";
             if (numAnswers != 1) {
                 r = "Replies";
             }
             title += " [" + numAnswers + "] " + r;
-            if (context.questions().hasPinnedAnswer(q.getId())) {
+            if (summary.isPinned()) {
                 title += " ✔";
             }
             questionListView.getItems().add(new Pair<>(q.getId(), title));
         }
+        nextQuestionPage = nextQuestionPage.next();
+        loadMoreQuestionsButton.setDisable(batch.size() < QUESTION_PAGE_SIZE);
     }
 
 
@@ -521,7 +546,8 @@ public class UserHomePage extends BasePage {
         Label editQuestionContent = UIFactory.createLabel("Edit Question Content");
 
         String currentTitle = context.questions().getById(questionId).getTitle().trim();
-        String currentContent = context.questions().getById(questionId).getMessage().getContent().trim();
+        String currentContent = context.messages().loadArchived(context.questions().getById(questionId).getMessage())
+                .getContent().trim();
 
         TextField editQuestionTitleField = UIFactory.createTextField("New title", f -> f.defaultText(currentTitle));
         TextField editQuestionField = UIFactory.createTextField("New content", f -> f.defaultText(currentContent));
@@ -581,7 +607,7 @@ public class UserHomePage extends BasePage {
 
         //Question for the answers/ Labels
         assert queContent != null;
-        Label questionContent = UIFactory.createLabel("Question: " + queContent.getMessage().getContent(),
+        Label questionContent = UIFactory.createLabel("Question: " + context.messages().loadArchived(queContent.getMessage()).getContent(),
                 f -> f.style("-fx-font-weight: bold; -fx-font-size: 13pt;"));
         Label answerLabelList = UIFactory.createLabel("Answers:", f -> f.style(DesignGuide.BOLD_TEXT));
 
@@ -617,18 +643,13 @@ public class UserHomePage extends BasePage {
             Pair<Integer, String> selectedAnswer = answerListView.getSelectionModel().getSelectedItem();
             if (currentlySelectedQuestionResolved) {
                 //unmark the solution
-                for (Pair<Integer, String> answer : answerListView.getItems()) {
-                    if (context.answers().getById(answer.getKey()).getIsPinned()) {
-                        context.answers().togglePin(answer.getKey());
-                        break;
-                    }
-                }
+                context.answers().unpin(questionId);
                 //update answerListView, questionListView, and button text
                 loadAnswers(questionId);
                 loadQuestions();
                 markAnswerButton.setText("Mark Answer As Solution");
             } else if (selectedAnswer != null) {
-                context.answers().togglePin(selectedAnswer.getKey());
+                context.answers().pinExclusive(questionId, selectedAnswer.getKey());
                 //update answerListView, questionListView, and button text
                 loadAnswers(questionId);
                 loadQuestions();
@@ -687,6 +708,7 @@ public class UserHomePage extends BasePage {
     private void loadAnswers(int questionID) {
         answerListView.getItems().clear();
         List<Answer> answerList = context.answers().getRepliesToQuestion(questionID);
+        context.messages().loadArchived(answerList.stream().map(Answer::getMessage).toList());
         currentlySelectedQuestionResolved = false;
         for (Answer a : answerList) {
             if (a.getIsPinned()) {
@@ -765,7 +787,8 @@ public class UserHomePage extends BasePage {
         answerEditStage.setTitle("Edit Answer");
 
         //getting current content
-        String currentContent = context.answers().getById(answerId).getMessage().getContent().trim();
+        String currentContent = context.messages().loadArchived(context.answers().getById(answerId).getMessage())
+                .getContent().trim();
 
         //UI for cancelling or saving a new answer
         Label label = UIFactory.createLabel("Edit Answer:");
@@ -68,7 +68,9 @@ public class UserProfileWindow {
         if (RolesUtil.hasRole(targetUser.getRoles(), Roles.REVIEWER)) {
             displayTable.getItems().clear();
             ObservableList<String> reviews = FXCollections.observableArrayList();
-            for (Answer a : context.answers().getAnswersByUser(targetId)) {
+            List<Answer> answers = context.answers().getAnswersByUser(targetId);
+            context.messages().loadArchived(answers.stream().map(Answer::getMessage).toList());
+            for (Answer a : answers) {
                 if (a.getMessage().getContent().contains("φ"))
                     reviews.add(a.getMessage().getContent());
             }
@@ -6,6 +6,8 @@ import database.model.entities.PrivateMessage;
 import database.model.entities.Question;
 import database.model.entities.ReviewerRequest;
 import database.model.entities.User;
+import database.repository.Page;
+import database.repository.repos.PrivateMessages;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -32,8 +34,12 @@ import java.util.List;
 @Route(MyPages.USER_QUESTION_DISPLAY)
 @View(title = "User Questions")
 public class UserQuestionDisplay extends BasePage {
+    private static final int INBOX_PAGE_SIZE = 50;
 
     private User user;
+    private ObservableList<PrivateMessages.InboxEntry> inboxEntries;
+    private Page nextInboxPage;
+    private Button loadMoreInboxButton;
 
     public UserQuestionDisplay() {
         super();
@@ -62,12 +68,12 @@ public class UserQuestionDisplay extends BasePage {
         questionTableVBox.getChildren().addAll(questionLabel, questionTable);
 
         //Private message table declaration
-        TableView<PrivateMessage> privateMessageTable = privateMessageTableSetup();
+        TableView<PrivateMessages.InboxEntry> privateMessageTable = privateMessageTableSetup();
         privateMessageTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         VBox privateMessageVBox = new VBox(10);
         Label privateMessageLabel = new Label("Received PrivateMessages");
         privateMessageLabel.setStyle("-fx-font-weight: bold;");
-        privateMessageVBox.getChildren().addAll(privateMessageLabel, privateMessageTable);
+        privateMessageVBox.getChildren().addAll(privateMessageLabel, privateMessageTable, loadMoreInboxButton);
 
         //Set up SentPMTable
         TableView<PrivateMessage> sentPrivateMessageTable = sentPrivateMessageTableSetup();
@@ -244,22 +250,20 @@ public class UserQuestionDisplay extends BasePage {
         return sentPrivateMessageTable;
     }
 
-    private TableView<PrivateMessage> privateMessageTableSetup() {
-        TableView<PrivateMessage> privateMessageTable = new TableView<>();
-        ArrayList<PrivateMessage> tempList;
-        ObservableList<PrivateMessage> obPMs = FXCollections.observableArrayList();
-        for (Question q : context.questions().getQuestionsByUser(context.getSession().getActiveUser().getId())) {
-            tempList = (ArrayList<PrivateMessage>) context.privateMessages().getRepliesToQuestion(q.getId());
-            obPMs.addAll(tempList);
-        }
-        privateMessageTable.setItems(obPMs);
+    private TableView<PrivateMessages.InboxEntry> privateMessageTableSetup() {
+        TableView<PrivateMessages.InboxEntry> privateMessageTable = new TableView<>();
+        inboxEntries = FXCollections.observableArrayList();
+        nextInboxPage = Page.first(INBOX_PAGE_SIZE);
+        loadMoreInboxButton = UIFactory.createButton("Load More", e -> e.onAction(a -> loadInboxPage()));
+        loadInboxPage();
+        privateMessageTable.setItems(inboxEntries);
 
         //Set up double click functionality for privateMessageTable
         privateMessageTable.setRowFactory(tv -> {
-            TableRow<PrivateMessage> row = new TableRow<>();
+            TableRow<PrivateMessages.InboxEntry> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && !row.isEmpty()) {
-                    PrivateMessage pm = row.getItem();
+                    PrivateMessage pm = row.getItem().getPrivateMessage();
                     PrivateMessageConvoPage.setTargetPM(pm);
                     context.router().navigate(MyPages.PRIVATE_CONVERSATION);
                 }
@@ -268,25 +272,36 @@ public class UserQuestionDisplay extends BasePage {
         });
 
         //Populate PM table w/ QuestionIds
-        TableColumn<PrivateMessage, String> pmCol = new TableColumn<>("QuestionID");
+        TableColumn<PrivateMessages.InboxEntry, String> pmCol = new TableColumn<>("QuestionID");
         pmCol.setCellValueFactory(param -> {
-            PrivateMessage pm = param.getValue();
-            int questionInt = pm.getQuestionId();
-            return new SimpleStringProperty(String.valueOf(questionInt).trim());
+            PrivateMessages.InboxEntry entry = param.getValue();
+            int questionInt = entry.getPrivateMessage().getQuestionId();
+            String unread = entry.isUnread() ? "• " : "";
+            return new SimpleStringProperty(unread + String.valueOf(questionInt).trim());
         });
         //Populate PM table w/ usernames
-        TableColumn<PrivateMessage, String> pmUserCol = new TableColumn<>("Username");
+        TableColumn<PrivateMessages.InboxEntry, String> pmUserCol = new TableColumn<>("Username");
         pmUserCol.setCellValueFactory(param -> {
-            PrivateMessage pm = param.getValue();
-            int userId = pm.getMessage().getUserId();
-            String userName = context.users().getById(userId).getUserName();
-            return new SimpleStringProperty(userName.trim());
+            String userName = param.getValue().getSenderUserName();
+            return new SimpleStringProperty(userName == null ? "" : userName.trim());
         });
         //Add PM columns
         privateMessageTable.getColumns().addAll(pmCol, pmUserCol);
         return privateMessageTable;
     }
 
+    /**
+     * Appends the next page of the inbox to the private message table.
+     * One query per page brings the conversations with their sender names and unread state.
+     */
+    private void loadInboxPage() {
+        List<PrivateMessages.InboxEntry> batch =
+                context.privateMessages().inboxForOwner(context.getSession().getActiveUser().getId(), nextInboxPage);
+        inboxEntries.addAll(batch);
+        nextInboxPage = nextInboxPage.next();
+        loadMoreInboxButton.setDisable(batch.size() < INBOX_PAGE_SIZE);
+    }
+
     private TableView<Question> questionTableSetup() {
         TableView<Question> questionTable = new TableView<>();
         ObservableList<Question> obQuestions = FXCollections.observableArrayList(
@@ -17,6 +17,7 @@ import javafx.stage.Stage;
 import utils.permissions.Roles;
 import utils.permissions.RolesUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -31,6 +32,9 @@ import java.util.List;
  */
 public class UserStaffChatWindow {
 
+    private static final int CHAT_PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 50;
+
     private ListView<User> staffListView;
     private TextField searchField;
     private VBox chatDisplayBox;
@@ -39,6 +43,8 @@ public class UserStaffChatWindow {
     private AppContext context;
     private int currentUserId;
     private User selectedStaff;
+    private int oldestMessageId;
+    private int newestMessageId;
 
     /**
      * Initializes and displays the chat window for normal users to communicate with staff.
@@ -124,12 +130,7 @@ public class UserStaffChatWindow {
             loadAllStaff();
             return;
         }
-        List<User> allUsers = context.users().getAll();
-        for (User u : allUsers) {
-            if (RolesUtil.hasRole(u.getRoles(), Roles.STAFF) && u.getUserName().toLowerCase().contains(query)) {
-                staffListView.getItems().add(u);
-            }
-        }
+        staffListView.getItems().addAll(context.users().searchByUsernamePrefix(query, Roles.STAFF, SEARCH_LIMIT));
     }
 
     /**
@@ -146,20 +147,76 @@ public class UserStaffChatWindow {
     }
 
     /**
-     * Loads the chat history with the specified staff member.
+     * Loads the most recent page of the chat with the specified staff member.
      *
      * @param staffId Identifier of the staff member.
      */
     private void loadChat(int staffId) {
         chatDisplayBox.getChildren().clear();
-        List<StaffMessage> chatMessages = context.staffMessages().loadChat(currentUserId, staffId);
+        oldestMessageId = Integer.MAX_VALUE;
+        newestMessageId = 0;
+        List<StaffMessage> chatMessages = context.staffMessages().loadChatBefore(currentUserId, staffId, Integer.MAX_VALUE, CHAT_PAGE_SIZE);
+        context.messages().loadArchived(chatMessages.stream().map(StaffMessage::getMessage).toList());
+        List<Integer> staffMessageIds = new ArrayList<>();
         for (StaffMessage sm : chatMessages) {
             addMessageToChat(sm);
+            if (sm.getMessage().getUserId() != currentUserId) {
+                staffMessageIds.add(sm.getMessage().getId());
+            }
+        }
+        // Opening the chat reads the staff replies shown
+        context.readMessages().markAsRead(currentUserId, staffMessageIds);
+        if (!chatMessages.isEmpty()) {
+            oldestMessageId = chatMessages.getFirst().getMessage().getId();
+            newestMessageId = chatMessages.getLast().getMessage().getId();
+        }
+        if (chatMessages.size() == CHAT_PAGE_SIZE) {
+            chatDisplayBox.getChildren().addFirst(createLoadEarlierButton(staffId));
+        }
+        chatDisplayBox.layout();
+        chatDisplayScrollPane.setVvalue(1.0);
+    }
+
+    /**
+     * Appends only the messages that arrived after the newest one currently displayed.
+     *
+     * @param staffId Identifier of the staff member.
+     */
+    private void appendNewMessages(int staffId) {
+        List<StaffMessage> newMessages = context.staffMessages().loadChatSince(currentUserId, staffId, newestMessageId, CHAT_PAGE_SIZE);
+        for (StaffMessage sm : newMessages) {
+            addMessageToChat(sm);
+            newestMessageId = sm.getMessage().getId();
         }
         chatDisplayBox.layout();
         chatDisplayScrollPane.setVvalue(1.0);
     }
 
+    /**
+     * Creates the button shown above the oldest displayed message that loads the previous page of the chat.
+     *
+     * @param staffId Identifier of the staff member.
+     * @return The "load earlier" button.
+     */
+    private Button createLoadEarlierButton(int staffId) {
+        Button loadEarlier = new Button("Load earlier messages");
+        loadEarlier.setOnAction(e -> {
+            chatDisplayBox.getChildren().removeFirst();
+            List<StaffMessage> earlier = context.staffMessages().loadChatBefore(currentUserId, staffId, oldestMessageId, CHAT_PAGE_SIZE);
+            context.messages().loadArchived(earlier.stream().map(StaffMessage::getMessage).toList());
+            for (int i = earlier.size() - 1; i >= 0; i--) {
+                chatDisplayBox.getChildren().addFirst(createMessageRow(earlier.get(i)));
+            }
+            if (!earlier.isEmpty()) {
+                oldestMessageId = earlier.getFirst().getMessage().getId();
+            }
+            if (earlier.size() == CHAT_PAGE_SIZE) {
+                chatDisplayBox.getChildren().addFirst(createLoadEarlierButton(staffId));
+            }
+        });
+        return loadEarlier;
+    }
+
     /**
      * Sends a new message from the current user to the selected staff member.
      */
@@ -174,15 +231,25 @@ public class UserStaffChatWindow {
         Message msg = new Message(currentUserId, content);
         context.staffMessages().sendMessage(msg, currentUserId, selectedStaff.getId());
         inputArea.clear();
-        loadChat(selectedStaff.getId());
+        appendNewMessages(selectedStaff.getId());
     }
 
     /**
-     * Adds a single message to the chat display.
+     * Adds a single message to the bottom of the chat display.
      *
      * @param sm StaffMessage object to add.
      */
     private void addMessageToChat(StaffMessage sm) {
+        chatDisplayBox.getChildren().add(createMessageRow(sm));
+    }
+
+    /**
+     * Builds the row for a single message.
+     *
+     * @param sm StaffMessage object to display.
+     * @return The message row.
+     */
+    private HBox createMessageRow(StaffMessage sm) {
         HBox messageContainer = new HBox(5);
         boolean userIsSender = (sm.getMessage().getUserId() == currentUserId);
         Label nameLabel = new Label(userIsSender ? " : Me " : sm.getStaff().getUserName() + ": ");
@@ -194,6 +261,6 @@ public class UserStaffChatWindow {
             messageContainer.setAlignment(Pos.CENTER_LEFT);
             messageContainer.getChildren().addAll(nameLabel, textFlow);
         }
-        chatDisplayBox.getChildren().add(messageContainer);
+        return messageContainer;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package database.connection;
 
+import database.repository.ConnectionCache;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -101,7 +102,8 @@ public class DatabaseConnection {
      * Deletes all data from the database.
      * <p>
      * This operation executes a {@code DROP ALL OBJECTS} statement, effectively removing all
-     * tables, indexes, views, and other objects from the database.
+     * tables, indexes, views, and other objects from the database. The repository caches kept for the connection
+     * are dropped with it.
      * </p>
      *
      * <strong>Warning:</strong> This operation is irreversible and will destroy all data in the database.
@@ -109,8 +111,10 @@ public class DatabaseConnection {
      * @throws SQLException if an error occurs during the deletion process.
      */
     public static void clearDatabase() throws SQLException {
-        try (var stmt = getConnection().createStatement()) {
+        Connection conn = getConnection();
+        try (var stmt = conn.createStatement()) {
             stmt.execute("DROP ALL OBJECTS");
+            ConnectionCache.clear(conn);
             System.out.println("Database cleared.");
         }
     }
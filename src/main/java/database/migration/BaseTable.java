@@ -65,11 +65,56 @@ public abstract class BaseTable {
         return new String[0];
     }
 
+    /**
+     * Returns the secondary indexes that should exist on the table.
+     * <p>
+     * Each entry is a complete, idempotent DDL statement, for example:
+     * <pre>
+     * "CREATE INDEX IF NOT EXISTS idx_messages_user ON Messages(userID, createdAt)"
+     * </pre>
+     * The statements run on every sync, after the table has been created or altered and its migrations have run, so
+     * they may reference columns that were just added. They must not change data; use {@link #getMigrations()} for
+     * that. Return an empty array if no indexes are required.
+     *
+     * @return An array of index statements as {@code String}s.
+     */
+    public String[] getIndexes() {
+        return new String[0];
+    }
+
+    /**
+     * Returns columns that older versions of the schema had and that should now be removed.
+     * <p>
+     * Columns listed here are dropped from existing databases if present, and the space their values took is
+     * logged. Return an empty array if there are none.
+     * </p>
+     *
+     * @return An array of obsolete column names.
+     */
+    public String[] getObsoleteColumns() {
+        return new String[0];
+    }
+
+    /**
+     * Returns one-off data migrations for the table, keyed by an ID that is unique across all tables.
+     * <p>
+     * Each migration runs once per database, in map order, after the columns have been synchronized and before
+     * the indexes are created. Applied IDs are recorded, so later syncs skip them; an ID must therefore never be
+     * reused for different work. Return an empty map if there are none.
+     * </p>
+     *
+     * @return The migrations, keyed by ID, in the order they should run.
+     */
+    public Map<String, Migration> getMigrations() {
+        return Map.of();
+    }
+
     /**
      * Synchronizes the table schema with the database.
      * <p>
      * Builds a {@code CREATE TABLE} statement from the defined columns and constraints if the table
      * does not exist, or alters the table to match the provided schema if it already exists.
+     * Pending migrations are then applied and declared indexes created if missing.
      * Delegates the actual synchronization logic to {@link TableSyncUtil#syncTableSchema}.
      * </p>
      *
@@ -79,6 +124,9 @@ public abstract class BaseTable {
     public void syncTable(Connection connection) throws SQLException {
         String createTableSql = buildCreateTableSQL();
         TableSyncUtil.syncTableSchema(connection, getTableName(), createTableSql, getExpectedColumns());
+        TableSyncUtil.dropObsoleteColumns(connection, getTableName(), getObsoleteColumns());
+        TableSyncUtil.runMigrations(connection, getTableName(), getMigrations());
+        TableSyncUtil.syncIndexes(connection, getTableName(), getIndexes());
     }
 
     /**
@@ -0,0 +1,44 @@
+package database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A one-off data migration declared by a table through {@link BaseTable#getMigrations()}.
+ * <p>
+ * Migrations fix up rows written by older versions of the schema, for example backfilling a new column or clearing
+ * data that a new unique index would reject. Each one runs at most once per database, inside a transaction, and is
+ * recorded as applied only if it completes; see {@link utils.TableSyncUtil#runMigrations}.
+ * </p>
+ *
+ * @author Dhruv
+ * @see BaseTable
+ */
+@FunctionalInterface
+public interface Migration {
+
+    /**
+     * Applies the migration.
+     *
+     * @param connection The database connection, with auto-commit off.
+     * @throws SQLException If a statement fails, or to abort the migration and the schema sync with it.
+     */
+    void apply(Connection connection) throws SQLException;
+
+    /**
+     * Creates a migration that executes the given statements in order.
+     *
+     * @param statements The SQL statements to execute.
+     * @return The migration.
+     */
+    static Migration of(String... statements) {
+        return connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        };
+    }
+}
@@ -36,6 +36,8 @@ public class SchemaManager {
         // Users always need to be created first because of FK constraints
         tables.add(new UsersTable());
         tables.add(new MessagesTable());
+        tables.add(new MessagesArchiveTable());
+        tables.add(new MessageCodecCheckpointTable());
 
         // Other tables
         tables.add(new InviteTable());
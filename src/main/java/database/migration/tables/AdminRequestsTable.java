@@ -53,4 +53,21 @@ public class AdminRequestsTable extends BaseTable {
                 "CONSTRAINT fk_adminreq_target FOREIGN KEY (targetID) REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code (state, type)} serves the admin queues and the per-state counters, and
+     * {@code (requesterID, state)} serves "my requests" lookups.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_adminreq_state_type ON AdminRequests(state, type)",
+                "CREATE INDEX IF NOT EXISTS idx_adminreq_requester_state ON AdminRequests(requesterID, state)"
+        };
+    }
+}
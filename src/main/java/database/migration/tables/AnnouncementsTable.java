@@ -1,6 +1,7 @@
 package database.migration.tables;
 
 import database.migration.BaseTable;
+import database.migration.Migration;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -10,6 +11,9 @@ import java.util.Map;
  * <p>
  * This table stores announcement entries that reference rows in the Messages table.
  * Each announcement has a title and a corresponding message record (which holds userId, content, etc.).
+ * Every change stamps the row with the next value of the {@code announcements_feed_version} sequence, and deletes
+ * leave a tombstone, so clients can ask for everything that changed since a version they hold. A tombstone outlives
+ * its message, so removing the author does not erase the delete from the feed.
  * </p>
  *
  * @author Dhruv
@@ -29,7 +33,8 @@ public class AnnouncementsTable extends BaseTable {
     /**
      * Returns a map of column definitions used to build the table schema.
      * <p>
-     * The columns include announcementID (PK), messageID (FK to Messages), and title.
+     * The columns include announcementID (PK), messageID (FK to Messages, {@code NULL} once a tombstone's message
+     * is gone), title, the feed version of the last change and a deleted flag for tombstones.
      * </p>
      *
      * @return A {@code Map} of column names and their definitions.
@@ -38,16 +43,19 @@ public class AnnouncementsTable extends BaseTable {
     public Map<String, String> getExpectedColumns() {
         Map<String, String> cols = new LinkedHashMap<>();
         cols.put("announcementID", "INT AUTO_INCREMENT PRIMARY KEY");
-        cols.put("messageID", "INT UNIQUE NOT NULL"); // references Messages table
+        cols.put("messageID", "INT NULL UNIQUE");     // references Messages table; NULL on tombstones whose message is gone
         cols.put("title", "VARCHAR(200) NOT NULL");
+        cols.put("version", "BIGINT NOT NULL DEFAULT 0");       // Feed version of the last create, update or delete
+        cols.put("deleted", "BOOLEAN NOT NULL DEFAULT FALSE");  // Tombstone, kept so feeds can report the delete
         return cols;
     }
 
     /**
      * Returns an array of inline constraints for the table.
      * <p>
-     * Defines the foreign key relationship to the Messages table. If a message is deleted,
-     * the corresponding announcement will also be deleted (ON DELETE CASCADE).
+     * Defines the foreign key relationship to the Messages table. If a message is deleted, the announcement row is
+     * kept and only loses its message (ON DELETE SET NULL); whoever deletes the message tombstones the announcement
+     * first, through {@code Announcements.TOMBSTONE}.
      * </p>
      *
      * @return An array containing the foreign key constraint as {@code String}.
@@ -55,7 +63,46 @@ public class AnnouncementsTable extends BaseTable {
     @Override
     public String[] getInlineConstraints() {
         return new String[]{
-                "CONSTRAINT fk_announcementMessage FOREIGN KEY (messageID) REFERENCES Messages(messageID) ON DELETE CASCADE"
+                "CONSTRAINT fk_announcementMessage FOREIGN KEY (messageID) REFERENCES Messages(messageID) ON DELETE SET NULL"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code version} is indexed for "changed since" reads. The feed version sequence is created by the
+     * migrations.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_announcements_version ON Announcements(version)"
+        };
+    }
+
+    /**
+     * Returns the one-off migrations for the table.
+     * <p>
+     * Rows written before the feed was versioned have version {@code 0}; they are stamped once from the feed
+     * sequence, which this migration creates. Older versions also deleted announcements outright along with their
+     * message; the foreign key is replaced once so they are kept as tombstones instead.
+     * </p>
+     *
+     * @return The migrations, keyed by ID.
+     */
+    @Override
+    public Map<String, Migration> getMigrations() {
+        Map<String, Migration> migrations = new LinkedHashMap<>();
+        migrations.put("announcements-feed-version", Migration.of(
+                "CREATE SEQUENCE IF NOT EXISTS announcements_feed_version",
+                "UPDATE Announcements SET version = NEXT VALUE FOR announcements_feed_version WHERE version = 0"));
+        migrations.put("announcements-keep-tombstones", Migration.of(
+                "ALTER TABLE Announcements DROP CONSTRAINT IF EXISTS fk_announcementMessage",
+                "ALTER TABLE Announcements ADD CONSTRAINT fk_announcementMessage " +
+                        "FOREIGN KEY (messageID) REFERENCES Messages(messageID) ON DELETE SET NULL"));
+        return migrations;
+    }
+}
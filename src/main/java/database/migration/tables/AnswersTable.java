@@ -1,6 +1,9 @@
 package database.migration.tables;
 
 import database.migration.BaseTable;
+import database.migration.Migration;
+import database.repository.repos.Answers;
+import database.repository.repos.Questions;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -32,7 +35,8 @@ public class AnswersTable extends BaseTable {
      * Returns a map of column definitions used to build the table schema.
      * <p>
      * This includes the column name as the key and its type/definition as the value.
-     * The columns include answer ID, message ID, question ID, parent answer ID, and a pinned status.
+     * The columns include answer ID, message ID, question ID, parent answer ID, a pinned status, the answer's
+     * materialized path and depth within its tree, and a generated column backing the one-pin-per-question index.
      * </p>
      *
      * @return A {@code Map} of column names and their definitions.
@@ -45,6 +49,10 @@ public class AnswersTable extends BaseTable {
         cols.put("questionID", "INT NULL");            // If top-level answer
         cols.put("parentAnswerID", "INT NULL");         // For threaded replies
         cols.put("isPinned", "BOOLEAN NOT NULL DEFAULT FALSE");
+        cols.put("path", "VARCHAR(4000) NULL");         // Zero-padded ids from the top-level answer down, '/'-terminated
+        cols.put("depth", "INT NULL");                  // 0 for a top-level answer
+        // questionID while pinned, else NULL; uniquely indexed so a question has at most one pinned answer
+        cols.put("pinnedQuestionID", "INT GENERATED ALWAYS AS (CASE WHEN isPinned THEN questionID END)");
         return cols;
     }
 
@@ -67,4 +75,48 @@ public class AnswersTable extends BaseTable {
                 "CONSTRAINT fk_parentAnswerID FOREIGN KEY (parentAnswerID) REFERENCES Answers(answerID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code parentAnswerID} serves reply lookups and each step of the recursive thread query, and {@code path}
+     * turns subtree queries into range scans. {@code (questionID, isPinned)} serves per-question answer counts and
+     * pinned checks. The unique index on {@code pinnedQuestionID} allows any number of
+     * unpinned answers (NULLs) but only one pinned answer per question.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_answers_parent ON Answers(parentAnswerID)",
+                "CREATE INDEX IF NOT EXISTS idx_answers_path ON Answers(path)",
+                "CREATE INDEX IF NOT EXISTS idx_answers_question_pinned ON Answers(questionID, isPinned)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_answers_one_pin ON Answers(pinnedQuestionID)"
+        };
+    }
+
+    /**
+     * Returns the one-off migrations for the table.
+     * <p>
+     * Answers written before threads had materialized paths get their {@code path} and {@code depth} filled in.
+     * Older versions could pin several answers to one question, which the one-pin index rejects; those extra pins
+     * are cleared, keeping the oldest pinned answer. Last, the denormalized question stats are rebuilt from the
+     * result. They belong to the Questions table, but are rebuilt here because they read answer paths, and the
+     * Questions table is synchronized before this one.
+     * </p>
+     *
+     * @return The migrations, keyed by ID.
+     */
+    @Override
+    public Map<String, Migration> getMigrations() {
+        Map<String, Migration> migrations = new LinkedHashMap<>();
+        migrations.put("answers-paths", connection -> new Answers(connection).backfillPaths());
+        migrations.put("answers-single-pin", Migration.of(
+                "UPDATE Answers a SET isPinned = FALSE WHERE a.isPinned AND EXISTS (" +
+                        "SELECT 1 FROM Answers b WHERE b.questionID = a.questionID AND b.isPinned AND b.answerID < a.answerID)"));
+        migrations.put("questions-stats", connection -> new Questions(connection).rebuildStats());
+        return migrations;
+    }
+}
@@ -1,6 +1,7 @@
 package database.migration.tables;
 
 import database.migration.BaseTable;
+import database.migration.Migration;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -63,4 +64,32 @@ public class InviteTable extends BaseTable {
                 "CONSTRAINT fk_userID FOREIGN KEY (userID) REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code createdAt} serves validity checks and the expiry sweep.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_invites_created ON Invites(createdAt)"
+        };
+    }
+
+    /**
+     * Returns the one-off migrations for the table.
+     * <p>
+     * Creates the {@code invite_code_seq} sequence, which hands out the unique part of bulk-generated codes.
+     * </p>
+     *
+     * @return The migrations, keyed by ID.
+     */
+    @Override
+    public Map<String, Migration> getMigrations() {
+        return Map.of("invites-code-sequence", Migration.of("CREATE SEQUENCE IF NOT EXISTS invite_code_seq"));
+    }
+}
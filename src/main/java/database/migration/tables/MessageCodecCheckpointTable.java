@@ -0,0 +1,48 @@
+package database.migration.tables;
+
+import database.migration.BaseTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Defines the schema for the "MessageCodecCheckpoint" table.
+ * <p>
+ * This table holds a single row recording how far the recompression job has brought stored message bodies in line
+ * with a codec setting. New and edited messages are always stored with the current setting, so only messages after
+ * the checkpoint need to be looked at again, until the setting changes.
+ * </p>
+ *
+ * @author Dhruv
+ * @see MessagesTable
+ */
+public class MessageCodecCheckpointTable extends BaseTable {
+
+    /**
+     * Returns the name of the table.
+     *
+     * @return The name of the table as a {@code String}.
+     */
+    @Override
+    public String getTableName() {
+        return "MessageCodecCheckpoint";
+    }
+
+    /**
+     * Returns a map of column definitions used to build the table schema.
+     * <p>
+     * The columns include a fixed key, the codec setting the checkpoint applies to and the highest message ID
+     * already brought in line with it.
+     * </p>
+     *
+     * @return A {@code Map} of column names and their definitions.
+     */
+    @Override
+    public Map<String, String> getExpectedColumns() {
+        Map<String, String> cols = new LinkedHashMap<>();
+        cols.put("checkpointID", "TINYINT PRIMARY KEY");   // Always 1; the table holds one row
+        cols.put("codec", "VARCHAR(32) NOT NULL");          // e.g. "deflate>=512" or "plain"
+        cols.put("lastMessageID", "INT NOT NULL");
+        return cols;
+    }
+}
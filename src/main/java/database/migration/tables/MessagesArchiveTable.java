@@ -0,0 +1,82 @@
+package database.migration.tables;
+
+import database.migration.BaseTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Defines the schema for the "MessagesArchive" table.
+ * <p>
+ * This table holds the bodies of old messages from closed questions and inactive chats. The message row itself
+ * stays in "Messages", since questions, answers and chats reference it, but its content is moved here and set to
+ * {@code NULL}, keeping the hot table small. Rows are keyed by the month the message was written in, so a range
+ * of months can be read or exported together.
+ * </p>
+ *
+ * @author Dhruv
+ * @see MessagesTable
+ */
+public class MessagesArchiveTable extends BaseTable {
+
+    /**
+     * Returns the name of the table.
+     *
+     * @return The name of the table as a {@code String}.
+     */
+    @Override
+    public String getTableName() {
+        return "MessagesArchive";
+    }
+
+    /**
+     * Returns a map of column definitions used to build the table schema.
+     * <p>
+     * This includes the column name as the key and its type/definition as the value.
+     * The columns include the message ID, the stored content, the month the message was written in
+     * ({@code yyyyMM}) and the time it was archived.
+     * </p>
+     *
+     * @return A {@code Map} of column names and their definitions.
+     */
+    @Override
+    public Map<String, String> getExpectedColumns() {
+        Map<String, String> cols = new LinkedHashMap<>();
+        cols.put("messageID", "INT PRIMARY KEY");
+        cols.put("content", "TEXT NOT NULL");
+        cols.put("archiveMonth", "INT NOT NULL");
+        cols.put("archivedAt", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
+        return cols;
+    }
+
+    /**
+     * Returns an array of inline constraints for the table.
+     * <p>
+     * A foreign key on {@code messageID} references the "Messages" table, so deleting a message also deletes
+     * its archived body.
+     * </p>
+     *
+     * @return An array containing the foreign key constraint as a {@code String}.
+     */
+    @Override
+    public String[] getInlineConstraints() {
+        return new String[]{
+                "CONSTRAINT fk_archivedMessage FOREIGN KEY (messageID) REFERENCES Messages(messageID) ON DELETE CASCADE"
+        };
+    }
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code (archiveMonth, messageID)} serves reads of one month or a range of months.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_messages_archive_month ON MessagesArchive(archiveMonth, messageID)"
+        };
+    }
+}
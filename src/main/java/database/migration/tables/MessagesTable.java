@@ -31,7 +31,9 @@ public class MessagesTable extends BaseTable {
      * Returns a map of column definitions used to build the table schema.
      * <p>
      * This includes the column name as the key and its type/definition as the value.
-     * The columns include message ID, user ID, message content, and the creation timestamp.
+     * The columns include message ID, user ID, message content, and the creation timestamp. The content is
+     * {@code NULL} once a message has been moved to {@link MessagesArchiveTable}; tables created before archiving
+     * existed declared it {@code NOT NULL}, which the schema sync relaxes because it is declared {@code NULL} here.
      * </p>
      *
      * @return A {@code Map} of column names and their definitions.
@@ -41,7 +43,7 @@ public class MessagesTable extends BaseTable {
         Map<String, String> cols = new LinkedHashMap<>();
         cols.put("messageID", "INT AUTO_INCREMENT PRIMARY KEY");
         cols.put("userID", "INT NOT NULL");
-        cols.put("content", "TEXT NOT NULL");
+        cols.put("content", "TEXT NULL");            // NULL once archived
         cols.put("createdAt", "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP");
         return cols;
     }
@@ -62,4 +64,19 @@ public class MessagesTable extends BaseTable {
                 "CONSTRAINT fk_messageUser FOREIGN KEY (userID) REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code (userID, createdAt)} serves per-author listings, optionally narrowed to a date range.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_messages_user_created ON Messages(userID, createdAt)"
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package database.migration.tables;
 
 import database.migration.BaseTable;
+import database.migration.Migration;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -8,8 +9,9 @@ import java.util.Map;
 /**
  * Defines the schema for the "OneTimePasswords" table.
  * <p>
- * This table stores one-time password (OTP) data, including the OTP value, creator ID, target ID,
- * and a flag indicating whether the OTP has been used. It also establishes foreign key relationships
+ * This table stores one-time password (OTP) data, including the hashed OTP secret, creator ID, target ID,
+ * a flag indicating whether the OTP has been used, a plain-text key ID identifying the row and an expiry time.
+ * It also establishes foreign key relationships
  * with the "Users" table for both the creator and target IDs.
  * </p>
  *
@@ -32,7 +34,8 @@ public class OneTimePasswordTable extends BaseTable {
      * Returns a map of column definitions used to build the table schema.
      * <p>
      * This includes the column name as the key and its type/definition as the value.
-     * The columns include OTP ID, OTP value, creator ID, target ID, and the "isUsed" flag.
+     * The columns include OTP ID, OTP value, creator ID, target ID, the "isUsed" flag, the key ID and the expiry
+     * time.
      * </p>
      *
      * @return A {@code Map} of column names and their definitions.
@@ -45,6 +48,8 @@ public class OneTimePasswordTable extends BaseTable {
         cols.put("creatorID", "INT NOT NULL");
         cols.put("targetID", "INT NOT NULL");
         cols.put("isUsed", "BOOLEAN DEFAULT FALSE");
+        cols.put("keyId", "VARCHAR(16) NULL");      // NULL for OTPs issued before key IDs
+        cols.put("expiresAt", "TIMESTAMP NULL");
         return cols;
     }
 
@@ -65,4 +70,36 @@ public class OneTimePasswordTable extends BaseTable {
                 "CONSTRAINT fk_targetID FOREIGN KEY (targetID)  REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * The unique index on {@code keyId} turns verification into a single-row lookup; OTPs issued before key IDs
+     * keep {@code NULL} there. {@code expiresAt} serves the cleanup.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_otp_key ON OneTimePasswords(keyId)",
+                "CREATE INDEX IF NOT EXISTS idx_otp_expires ON OneTimePasswords(expiresAt)"
+        };
+    }
+
+    /**
+     * Returns the one-off migrations for the table.
+     * <p>
+     * OTPs issued before expiry times existed are given the default lifetime from the time of the upgrade, so they
+     * are cleaned up like the rest.
+     * </p>
+     *
+     * @return The migrations, keyed by ID.
+     */
+    @Override
+    public Map<String, Migration> getMigrations() {
+        return Map.of("otp-expiry-backfill", Migration.of(
+                "UPDATE OneTimePasswords SET expiresAt = DATEADD('SECOND', 86400, CURRENT_TIMESTAMP) WHERE expiresAt IS NULL"));
+    }
+}
@@ -66,4 +66,35 @@ public class PrivateMessageTable extends BaseTable {
                 "CONSTRAINT fk_parentPrivateMessage FOREIGN KEY (parentPrivateMessageID) REFERENCES PrivateMessages(privateMessageID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns columns that older versions of the schema had and that should now be removed.
+     * <p>
+     * Earlier versions copied the sender, body and timestamp of each private message into this table. Reads
+     * only ever used the copy in "Messages", so the duplicates are dropped.
+     * </p>
+     *
+     * @return An array of obsolete column names.
+     */
+    @Override
+    public String[] getObsoleteColumns() {
+        return new String[]{"userID", "content", "createdAt"};
+    }
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code parentPrivateMessageID} serves reply lookups and each hop of the recursive conversation query, and
+     * {@code questionID} finds the conversations opened on a question.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_pm_parent ON PrivateMessages(parentPrivateMessageID)",
+                "CREATE INDEX IF NOT EXISTS idx_pm_question ON PrivateMessages(questionID)"
+        };
+    }
+}
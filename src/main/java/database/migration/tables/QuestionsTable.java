@@ -32,7 +32,8 @@ public class QuestionsTable extends BaseTable {
      * Returns a map of column definitions used to build the table schema.
      * <p>
      * This includes the column name as the key and its type/definition as the value.
-     * The columns include question ID, message ID, and the title.
+     * The columns include question ID, message ID, the title, and stats denormalized from the question's answers:
+     * the number of top-level answers, whether one is pinned, and the time of the latest post in the question.
      * </p>
      *
      * @return A {@code Map} of column names and their definitions.
@@ -43,6 +44,9 @@ public class QuestionsTable extends BaseTable {
         cols.put("questionID", "INT AUTO_INCREMENT PRIMARY KEY");
         cols.put("messageID", "INT UNIQUE NOT NULL");  // References Messages table
         cols.put("title", "VARCHAR(255) NOT NULL");
+        cols.put("answerCount", "INT NOT NULL DEFAULT 0");          // Top-level answers
+        cols.put("hasPinned", "BOOLEAN NOT NULL DEFAULT FALSE");
+        cols.put("lastActivityAt", "TIMESTAMP NULL");               // Newest of the question, its answers and replies
         return cols;
     }
 
@@ -61,4 +65,21 @@ public class QuestionsTable extends BaseTable {
                 "CONSTRAINT fk_questionMessage FOREIGN KEY (messageID) REFERENCES Messages(messageID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * The unresolved and unanswered views filter on the denormalized stats and list in ID order, so each is
+     * served by an index on the stat followed by {@code questionID}.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_questions_pinned ON Questions(hasPinned, questionID)",
+                "CREATE INDEX IF NOT EXISTS idx_questions_answer_count ON Questions(answerCount, questionID)"
+        };
+    }
+}
@@ -66,4 +66,21 @@ public class ReviewerRequestsTable extends BaseTable {
                 "CONSTRAINT fk_req_instructor FOREIGN KEY (instructorID) REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * {@code (instructorID, status, createdAt)} serves an instructor's pending queue in arrival order, and
+     * {@code userID} serves a user's own requests.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_req_instructor_status ON ReviewerRequests(instructorID, status, createdAt)",
+                "CREATE INDEX IF NOT EXISTS idx_req_user ON ReviewerRequests(userID)"
+        };
+    }
+}
@@ -62,4 +62,20 @@ public class StaffMessagesTable extends BaseTable {
                 "CONSTRAINT fk_staffMessageStaff FOREIGN KEY (staffID) REFERENCES Users(userID) ON DELETE CASCADE"
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * The composite index on {@code (userID, staffID, messageID)} serves conversation reads, which filter on the
+     * user/staff pair and page through the conversation by message ID.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE INDEX IF NOT EXISTS idx_staffMessages_chat ON StaffMessages(userID, staffID, messageID)"
+        };
+    }
+}
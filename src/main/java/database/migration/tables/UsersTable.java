@@ -1,8 +1,15 @@
 package database.migration.tables;
 
 import database.migration.BaseTable;
+import database.migration.Migration;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class UsersTable extends BaseTable {
@@ -22,6 +29,58 @@ public class UsersTable extends BaseTable {
         cols.put("password", "VARCHAR(255) NOT NULL");
         cols.put("email", "VARCHAR(255)");
         cols.put("roles", "INT NOT NULL DEFAULT 0");
+        // Case-folded userName; uniquely indexed for case-insensitive lookups and prefix search
+        cols.put("userNameLower", "VARCHAR(255) GENERATED ALWAYS AS (LOWER(userName))");
         return cols;
     }
+
+    /**
+     * Returns the secondary indexes for the table.
+     * <p>
+     * The unique index on {@code userNameLower} makes usernames case-insensitive and serves both exact lookups and
+     * prefix search.
+     * </p>
+     *
+     * @return An array containing the index statements as {@code String}s.
+     */
+    @Override
+    public String[] getIndexes() {
+        return new String[]{
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_users_name_lower ON Users(userNameLower)"
+        };
+    }
+
+    /**
+     * Returns the one-off migrations for the table.
+     * <p>
+     * Older versions allowed usernames that differ only in case, which the case-insensitive index rejects. Renaming
+     * an account would lock its owner out, so instead of rewriting any row the migration aborts the schema sync and
+     * names the clashing accounts, which an administrator has to rename or merge by hand.
+     * </p>
+     *
+     * @return The migrations, keyed by ID.
+     */
+    @Override
+    public Map<String, Migration> getMigrations() {
+        return Map.of("users-case-insensitive-names", UsersTable::checkCaseInsensitiveNames);
+    }
+
+    /**
+     * Fails if any usernames are equal ignoring case.
+     */
+    private static void checkCaseInsensitiveNames(Connection connection) throws SQLException {
+        String sql = "SELECT LISTAGG(userName || ' (' || userID || ')', ', ') WITHIN GROUP (ORDER BY userID) " +
+                "FROM Users GROUP BY LOWER(userName) HAVING COUNT(*) > 1";
+        List<String> clashes = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                clashes.add(rs.getString(1));
+            }
+        }
+        if (!clashes.isEmpty()) {
+            throw new SQLException("Usernames differ only in case; rename all but one of each group: "
+                    + String.join("; ", clashes));
+        }
+    }
 }
\ No newline at end of file
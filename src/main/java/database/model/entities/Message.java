@@ -1,6 +1,7 @@
 package database.model.entities;
 
 import database.model.BaseEntity;
+import utils.MessageCodec;
 
 import java.sql.Timestamp;
 
@@ -17,6 +18,10 @@ import java.sql.Timestamp;
 public class Message extends BaseEntity {
     private int userId;
     private String content;
+    // Body as loaded from the database; decoded into content on first access
+    private String storedContent;
+    // Set while the body sits in the archive and has not been loaded with the message
+    private boolean archived;
     private Timestamp createdAt;
 
     /**
@@ -59,10 +64,18 @@ public class Message extends BaseEntity {
 
     /**
      * Gets the content of the message.
+     * <p>
+     * A body loaded with {@link #setStoredContent(String)} is decoded here, on first access. An archived body is
+     * not fetched; see {@link #isArchived()}.
+     * </p>
      *
-     * @return The content of the message.
+     * @return The content of the message, or {@code null} if it is archived and has not been loaded.
      */
     public String getContent() {
+        if (storedContent != null) {
+            content = MessageCodec.decode(storedContent);
+            storedContent = null;
+        }
         return content;
     }
 
@@ -73,6 +86,50 @@ public class Message extends BaseEntity {
      */
     public Message setContent(String content) {
         this.content = content;
+        this.storedContent = null;
+        this.archived = false;
+        return this;
+    }
+
+    /**
+     * Sets the content of the message from its stored form, as written by {@link MessageCodec}.
+     * <p>
+     * Decoding is deferred until {@link #getContent()} is called, so messages that are listed but never read
+     * are not decompressed.
+     * </p>
+     *
+     * @param storedContent The stored form of the content.
+     */
+    public Message setStoredContent(String storedContent) {
+        this.content = null;
+        this.storedContent = storedContent;
+        this.archived = false;
+        return this;
+    }
+
+    /**
+     * Checks whether the body of this message is archived and was not loaded with it.
+     * <p>
+     * Reads return archived messages without their body, since fetching each one as it is accessed would cost a
+     * query per message. Callers that need the bodies load them in one batch with
+     * {@code Messages.loadArchived}.
+     * </p>
+     *
+     * @return {@code true} if the content has yet to be loaded from the archive.
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Marks the body of this message as archived and not loaded.
+     *
+     * @return This message.
+     */
+    public Message setArchived() {
+        this.content = null;
+        this.storedContent = null;
+        this.archived = true;
         return this;
     }
 
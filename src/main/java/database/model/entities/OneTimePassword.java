@@ -3,30 +3,39 @@ package database.model.entities;
 import database.model.BaseEntity;
 import utils.Helpers;
 
+import java.sql.Timestamp;
+
 /**
  * Represents a one-time password (OTP) used for authentication or validation.
  * <p>
  * This class generates a random OTP, stores the creator and target IDs, and provides methods to check if the OTP
  * has been used, as well as to retrieve the OTP value and its plain text form.
  * </p>
+ * <p>
+ * The plain OTP handed to the user has the form {@code keyId.secret}. The key ID is stored as is and identifies the
+ * row; only the secret is hashed.
+ * </p>
  *
  * @author Dhruv
  * @see Helpers
  */
 public class OneTimePassword extends BaseEntity {
-    private final transient String plainOtp = Helpers.generateRandomCode(10, true);
+    private final transient String plainSecret = Helpers.generateRandomCode(10, true);
+    private String keyId = Helpers.generateRandomCode(8, false);
     private int creatorId;
     private int targetId;
     private boolean isUsed;
     private String otpValue;
+    private Timestamp expiresAt;
 
     /**
      * Default constructor for {@code OneTimePassword}.
-     * Initializes a new OTP with the default values (not used) and a randomly generated OTP value.
+     * Initializes a new OTP with the default values (not used), a random key ID and a randomly generated secret
+     * as its OTP value.
      */
     public OneTimePassword() {
         this.isUsed = false;
-        this.otpValue = plainOtp;
+        this.otpValue = plainSecret;
     }
 
     /**
@@ -39,7 +48,45 @@ public class OneTimePassword extends BaseEntity {
         this.creatorId = creatorId;
         this.targetId = targetId;
         this.isUsed = false;
-        this.otpValue = plainOtp;
+        this.otpValue = plainSecret;
+    }
+
+    /**
+     * Gets the key ID identifying this OTP.
+     *
+     * @return The key ID, or {@code null} for OTPs issued before key IDs existed.
+     */
+    public String getKeyId() {
+        return keyId;
+    }
+
+    /**
+     * Sets the key ID identifying this OTP.
+     *
+     * @param keyId The new key ID.
+     */
+    public OneTimePassword setKeyId(String keyId) {
+        this.keyId = keyId;
+        return this;
+    }
+
+    /**
+     * Gets the time after which the OTP can no longer be used.
+     *
+     * @return The expiry time, or {@code null} if not set yet.
+     */
+    public Timestamp getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the time after which the OTP can no longer be used.
+     *
+     * @param expiresAt The new expiry time.
+     */
+    public OneTimePassword setExpiresAt(Timestamp expiresAt) {
+        this.expiresAt = expiresAt;
+        return this;
     }
 
     /**
@@ -119,15 +166,15 @@ public class OneTimePassword extends BaseEntity {
     }
 
     /**
-     * Returns the plain OTP value (before it is hashed).
+     * Returns the plain OTP value (before it is hashed), as handed to the user.
      * <p>
-     * This method is used to retrieve the OTP in its raw form before any hashing or encryption is applied.
+     * This method is used to retrieve the OTP in its raw form, {@code keyId.secret}, before any hashing or
+     * encryption is applied.
      * </p>
      *
      * @return The plaintext OTP value.
      */
     public String getPlainOtp() {
-        return plainOtp;
-
+        return keyId + "." + plainSecret;
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package database.repository;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the in-memory caches that repositories keep between calls, one set per database connection.
+ * <p>
+ * Repositories are cheap objects that other repositories create as they need them, so a cache kept in an instance
+ * field would rarely be hit, while one kept in a static field would outlive the database it describes. Caches stored
+ * here live exactly as long as the connection's data: they are dropped when the database is cleared
+ * ({@link #clear(Connection)}) and when a transaction rolls back (see {@link Repository#inTransaction}), so a
+ * cache can never report rows from another database or from writes that were undone.
+ * </p>
+ *
+ * @author Dhruv
+ */
+public final class ConnectionCache {
+    private static final Map<Connection, ConnectionCache> BY_CONNECTION =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Key<?>, Object> values = new ConcurrentHashMap<>();
+
+    private ConnectionCache() {
+    }
+
+    /**
+     * Returns the caches for a connection, creating an empty set on first use.
+     *
+     * @param connection The database connection.
+     * @return The caches belonging to that connection.
+     */
+    public static ConnectionCache of(Connection connection) {
+        synchronized (BY_CONNECTION) {
+            return BY_CONNECTION.computeIfAbsent(connection, c -> new ConnectionCache());
+        }
+    }
+
+    /**
+     * Drops every cache held for a connection.
+     * <p>
+     * Called whenever the data behind the connection is replaced wholesale, such as after {@code DROP ALL OBJECTS}.
+     * </p>
+     *
+     * @param connection The database connection.
+     */
+    public static void clear(Connection connection) {
+        of(connection).clear();
+    }
+
+    /**
+     * Returns a cached value, loading and storing it if absent.
+     * <p>
+     * The loader runs outside any lock, so it may use other caches; if two callers race, both load and the first
+     * stored value wins.
+     * </p>
+     *
+     * @param key    The cache key.
+     * @param loader Builds the value when it is not cached.
+     * @param <T>    The type of the cached value.
+     * @return The cached value.
+     */
+    public <T> T get(Key<T> key, Supplier<T> loader) {
+        T value = getIfPresent(key);
+        if (value == null) {
+            T loaded = loader.get();
+            @SuppressWarnings("unchecked")
+            T raced = (T) values.putIfAbsent(key, loaded);
+            value = raced != null ? raced : loaded;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a cached value without loading it.
+     *
+     * @param key The cache key.
+     * @param <T> The type of the cached value.
+     * @return The cached value, or {@code null} if none is cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(Key<T> key) {
+        return (T) values.get(key);
+    }
+
+    /**
+     * Drops one cached value.
+     *
+     * @param key The cache key.
+     */
+    public void remove(Key<?> key) {
+        values.remove(key);
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public void clear() {
+        values.clear();
+    }
+
+    /**
+     * Identifies one cache. Keys compare by identity, so each is declared once as a constant by its repository.
+     *
+     * @param <T> The type of the cached value.
+     */
+    public static final class Key<T> {
+        private final String name;
+
+        /**
+         * Creates a new cache key.
+         *
+         * @param name A descriptive name, used only by {@link #toString()}.
+         */
+        public Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
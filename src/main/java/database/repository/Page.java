@@ -0,0 +1,84 @@
+package database.repository;
+
+/**
+ * Describes a single page of results for paginated repository queries.
+ * <p>
+ * Pages are zero-based. Repositories translate a page into {@code LIMIT ? OFFSET ?} using
+ * {@link #getSize()} and {@link #getOffset()}.
+ * </p>
+ *
+ * @author Dhruv
+ */
+public final class Page {
+    private final int number;
+    private final int size;
+
+    private Page(int number, int size) {
+        this.number = number;
+        this.size = size;
+    }
+
+    /**
+     * Creates a page descriptor.
+     *
+     * @param number The zero-based page number.
+     * @param size   The maximum number of rows in the page.
+     * @return The page descriptor.
+     * @throws IllegalArgumentException if the number is negative or the size is not positive.
+     */
+    public static Page of(int number, int size) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Page number must not be negative.");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        return new Page(number, size);
+    }
+
+    /**
+     * Creates a descriptor for the first page with the given size.
+     *
+     * @param size The maximum number of rows in the page.
+     * @return The first page descriptor.
+     */
+    public static Page first(int size) {
+        return of(0, size);
+    }
+
+    /**
+     * Returns the descriptor for the page following this one.
+     *
+     * @return The next page descriptor.
+     */
+    public Page next() {
+        return new Page(number + 1, size);
+    }
+
+    /**
+     * Gets the zero-based page number.
+     *
+     * @return The page number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the maximum number of rows in the page.
+     *
+     * @return The page size, used as the SQL {@code LIMIT}.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of rows to skip before this page.
+     *
+     * @return The row offset, used as the SQL {@code OFFSET}.
+     */
+    public int getOffset() {
+        return number * size;
+    }
+}
@@ -7,6 +7,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -151,6 +152,58 @@ public abstract class Repository<T extends BaseEntity> implements IRepository<T>
         });
     }
 
+    /**
+     * Runs several statements as one transaction on the shared connection.
+     * <p>
+     * Auto-commit is switched off for the duration of the operation, the work is committed if it completes and
+     * rolled back if it throws, and the previous auto-commit mode is restored either way. When a transaction is
+     * already open the operation simply joins it. A rollback also drops the connection's {@link ConnectionCache},
+     * since repositories may have updated their caches for writes that were just undone.
+     * </p>
+     *
+     * @param operation The statements to execute.
+     * @param <R>       The type of result returned by the operation.
+     * @return The result of the operation.
+     */
+    protected <R> R inTransaction(SqlOperation<R> operation) {
+        return wrap(() -> {
+            if (!connection.getAutoCommit()) {
+                return operation.execute();
+            }
+            connection.setAutoCommit(false);
+            try {
+                R result = operation.execute();
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                cache().clear();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Returns the caches kept for this repository's connection.
+     *
+     * @return The connection's {@link ConnectionCache}.
+     */
+    protected ConnectionCache cache() {
+        return ConnectionCache.of(connection);
+    }
+
+    /**
+     * Builds a comma-separated list of {@code count} JDBC placeholders for an {@code IN (...)} clause.
+     *
+     * @param count The number of placeholders.
+     * @return The placeholder list, e.g. {@code "?, ?, ?"}.
+     */
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     // CRUD methods (to be implemented by subclasses)
     @Override
     public T create(T entity) throws SQLException {
@@ -1,6 +1,8 @@
 package database.repository.repos;
 
 import database.model.entities.AdminRequest;
+import database.repository.ConnectionCache;
+import database.repository.Page;
 import database.repository.Repository;
 import utils.requests.AdminActions;
 import utils.requests.RequestState;
@@ -10,6 +12,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repository for managing {@link AdminRequest} entities.
@@ -23,7 +26,20 @@ import java.util.List;
  * @see AdminRequest
  */
 public class AdminRequests extends Repository<AdminRequest> {
+    private static final String COLUMNS =
+            "ar.requestId, ar.requesterID, ar.targetID, ar.type, ar.state, ar.reason, ar.context, " +
+                    Users.joinColumns("rq", "rq_") + ", " +
+                    Users.joinColumns("tg", "tg_") + " ";
+    private static final String USER_JOINS =
+            "JOIN Users rq ON ar.requesterID = rq.userID " +
+                    "JOIN Users tg ON ar.targetID = tg.userID ";
+
+    // [state][type] -> number of requests; absent until first read
+    private static final ConnectionCache.Key<int[][]> COUNTS = new ConnectionCache.Key<>("adminRequests.counts");
+
     private final Users usersRepo;
+    // Requester and target are joined so build() never has to look them up
+    private final String baseJoinQuery = "SELECT " + COLUMNS + "FROM AdminRequests ar " + USER_JOINS;
 
     /**
      * Initializes with a database connection and Users repository.
@@ -52,6 +68,7 @@ public class AdminRequests extends Repository<AdminRequest> {
             else pstmt.setNull(6, java.sql.Types.INTEGER);
         });
         req.setId(id);
+        adjustCount(req.getState(), req.getType(), 1);
         return req;
     }
 
@@ -60,8 +77,7 @@ public class AdminRequests extends Repository<AdminRequest> {
      */
     @Override
     public AdminRequest getById(int id) throws SQLException {
-        String sql = "SELECT requestId,requesterID,targetID,type,state,reason,context " +
-                "FROM AdminRequests WHERE requestId=?";
+        String sql = baseJoinQuery + "WHERE ar.requestId=?";
         return queryForObject(sql, pstmt -> pstmt.setInt(1, id), this::build);
     }
 
@@ -70,7 +86,7 @@ public class AdminRequests extends Repository<AdminRequest> {
      */
     @Override
     public List<AdminRequest> getAll() throws SQLException {
-        String sql = "SELECT requestId,requesterID,targetID,type,state,reason,context FROM AdminRequests";
+        String sql = baseJoinQuery;
         return queryForList(sql, pstmt -> {
         }, this::build);
     }
@@ -81,9 +97,12 @@ public class AdminRequests extends Repository<AdminRequest> {
     @Override
     public AdminRequest update(AdminRequest req) throws IllegalArgumentException {
         EntityValidator.validateAdminRequest(req);
-        String sql = "UPDATE AdminRequests SET requesterID=?,targetID=?,type=?,state=?,reason=?,context=? " +
-                "WHERE requestId=?";
-        int rows = executeUpdate(sql, pstmt -> {
+        // Read the previous state/type from the UPDATE itself to keep the counters in step
+        String sql = "SELECT state, type FROM OLD TABLE (" +
+                "UPDATE AdminRequests SET requesterID=?,targetID=?,type=?,state=?,reason=?,context=? " +
+                "WHERE requestId=?)";
+        // In a transaction: H2 loses the row if the UPDATE fails under autocommit inside OLD TABLE
+        int[] previous = inTransaction(() -> queryForObject(sql, pstmt -> {
             pstmt.setInt(1, req.getRequester().getId());
             pstmt.setInt(2, req.getTarget().getId());
             pstmt.setInt(3, req.getType().ordinal());
@@ -92,8 +111,13 @@ public class AdminRequests extends Repository<AdminRequest> {
             if (req.getContext() != null) pstmt.setInt(6, req.getContext());
             else pstmt.setNull(6, java.sql.Types.INTEGER);
             pstmt.setInt(7, req.getId());
-        });
-        return rows > 0 ? req : null;
+        }, rs -> new int[]{rs.getInt("state"), rs.getInt("type")}));
+        if (previous == null) {
+            return null;
+        }
+        adjustCount(RequestState.values()[previous[0]], AdminActions.values()[previous[1]], -1);
+        adjustCount(req.getState(), req.getType(), 1);
+        return req;
     }
 
     /**
@@ -101,19 +125,23 @@ public class AdminRequests extends Repository<AdminRequest> {
      */
     @Override
     public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM AdminRequests WHERE requestId=?";
-        executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        String sql = "SELECT state, type FROM OLD TABLE (DELETE FROM AdminRequests WHERE requestId=?)";
+        int[] previous = inTransaction(() -> queryForObject(sql, pstmt -> pstmt.setInt(1, id),
+                rs -> new int[]{rs.getInt("state"), rs.getInt("type")}));
+        if (previous != null) {
+            adjustCount(RequestState.values()[previous[0]], AdminActions.values()[previous[1]], -1);
+        }
     }
 
     /**
-     * Maps a ResultSet row to an AdminRequest entity.
+     * Maps a joined ResultSet row (see {@code baseJoinQuery}) to an AdminRequest entity.
      */
     @Override
     public AdminRequest build(ResultSet rs) throws SQLException {
         AdminRequest req = new AdminRequest();
         req.setId(rs.getInt("requestId"));
-        req.setRequester(usersRepo.getById(rs.getInt("requesterID")));
-        req.setTarget(usersRepo.getById(rs.getInt("targetID")));
+        req.setRequester(usersRepo.build(rs, "rq_"));
+        req.setTarget(usersRepo.build(rs, "tg_"));
         req.setType(AdminActions.values()[rs.getInt("type")]);
         req.setState(RequestState.values()[rs.getInt("state")]);
         req.setReason(rs.getString("reason"));
@@ -130,10 +158,7 @@ public class AdminRequests extends Repository<AdminRequest> {
      * @return a list of AdminRequest objects whose type and state match the parameters
      */
     public List<AdminRequest> filterFetch(AdminActions action, RequestState state) {
-        String sql =
-                "SELECT requestId, requesterID, targetID, type, state, reason, context " +
-                        "FROM AdminRequests " +
-                        "WHERE type = ? AND state = ?";
+        String sql = baseJoinQuery + "WHERE ar.type = ? AND ar.state = ?";
         return queryForList(sql, pstmt -> {
             pstmt.setInt(1, action.ordinal());
             pstmt.setInt(2, state.ordinal());
@@ -149,10 +174,7 @@ public class AdminRequests extends Repository<AdminRequest> {
      * @return a list of AdminRequest objects matching all three criteria
      */
     public List<AdminRequest> filterFetch(AdminActions action, RequestState state, int requesterId) {
-        String sql =
-                "SELECT requestId, requesterID, targetID, type, state, reason, context " +
-                        "FROM AdminRequests " +
-                        "WHERE type = ? AND state = ? AND requesterID = ?";
+        String sql = baseJoinQuery + "WHERE ar.type = ? AND ar.state = ? AND ar.requesterID = ?";
         return queryForList(sql, pstmt -> {
             pstmt.setInt(1, action.ordinal());
             pstmt.setInt(2, state.ordinal());
@@ -167,15 +189,59 @@ public class AdminRequests extends Repository<AdminRequest> {
      * @return a list of AdminRequest objects matching the state
      */
     public List<AdminRequest> filterFetch(RequestState state) {
-        String sql =
-                "SELECT requestId, requesterID, targetID, type, state, reason, context " +
-                        "FROM AdminRequests " +
-                        "WHERE state = ?";
+        String sql = baseJoinQuery + "WHERE ar.state = ?";
         return queryForList(sql, pstmt -> pstmt.setInt(1, state.ordinal()), this::build);
     }
 
+    /**
+     * Retrieves a page of {@link AdminRequest}s whose state and type are in the given sets, newest first.
+     * <p>
+     * A {@code null} or empty set does not restrict that dimension, so
+     * {@code filterFetch(EnumSet.of(Accepted, Denied), null, page)} returns all solved requests in one query.
+     * </p>
+     *
+     * @param states  the {@link RequestState}s to include, or {@code null}/empty for all
+     * @param actions the {@link AdminActions} to include, or {@code null}/empty for all
+     * @param page    the page of results to return
+     * @return a list of AdminRequest objects ordered by descending requestId
+     */
+    public List<AdminRequest> filterFetch(Set<RequestState> states, Set<AdminActions> actions, Page page) {
+        boolean byState = states != null && !states.isEmpty();
+        boolean byAction = actions != null && !actions.isEmpty();
+
+        StringBuilder sql = new StringBuilder(baseJoinQuery).append("WHERE 1=1 ");
+        if (byState) {
+            sql.append("AND ar.state IN (").append(placeholders(states.size())).append(") ");
+        }
+        if (byAction) {
+            sql.append("AND ar.type IN (").append(placeholders(actions.size())).append(") ");
+        }
+        sql.append("ORDER BY ar.requestId DESC LIMIT ? OFFSET ?");
+
+        return queryForList(sql.toString(), pstmt -> {
+            int i = 1;
+            if (byState) {
+                for (RequestState state : states) {
+                    pstmt.setInt(i++, state.ordinal());
+                }
+            }
+            if (byAction) {
+                for (AdminActions action : actions) {
+                    pstmt.setInt(i++, action.ordinal());
+                }
+            }
+            pstmt.setInt(i++, page.getSize());
+            pstmt.setInt(i, page.getOffset());
+        }, this::build);
+    }
+
     /**
      * Updates only the {@link RequestState} of the specified AdminRequest.
+     * <p>
+     * The row is read back from the {@code UPDATE} itself (H2's {@code OLD TABLE}), joined with its requester
+     * and target, so the transition is a single statement with no separate re-fetch. Reading the old row also
+     * gives the previous state needed to keep the counters current.
+     * </p>
      *
      * @param requestId the primary key of the request to update
      * @param newState  the new {@link RequestState} to apply
@@ -186,14 +252,92 @@ public class AdminRequests extends Repository<AdminRequest> {
         if (newState == null) {
             throw new IllegalArgumentException("RequestState must be specified.");
         }
-        String sql = "UPDATE AdminRequests SET state = ? WHERE requestId = ?";
-        executeUpdate(sql, pstmt -> {
+        String sql = "SELECT " + COLUMNS +
+                "FROM OLD TABLE (UPDATE AdminRequests SET state = ? WHERE requestId = ?) ar " +
+                USER_JOINS;
+        AdminRequest req = inTransaction(() -> queryForObject(sql, pstmt -> {
             pstmt.setInt(1, newState.ordinal());
             pstmt.setInt(2, requestId);
-        });
-        String fetchSql =
-                "SELECT requestId, requesterID, targetID, type, state, reason, context " +
-                        "FROM AdminRequests WHERE requestId = ?";
-        return queryForObject(fetchSql, pstmt -> pstmt.setInt(1, requestId), this::build);
+        }, this::build));
+        if (req == null) {
+            return null;
+        }
+        adjustCount(req.getState(), req.getType(), -1);
+        adjustCount(newState, req.getType(), 1);
+        req.setState(newState);
+        return req;
+    }
+
+    /**
+     * Returns the number of requests in the given state, across all types.
+     * <p>
+     * Served from an in-memory snapshot maintained by this repository's write paths, so it costs no query
+     * once the snapshot has been built.
+     * </p>
+     *
+     * @param state the {@link RequestState} to count
+     * @return the number of requests in that state
+     */
+    public int count(RequestState state) {
+        int total = 0;
+        for (AdminActions action : AdminActions.values()) {
+            total += count(state, action);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of requests with the given state and type.
+     *
+     * @param state  the {@link RequestState} to count
+     * @param action the {@link AdminActions} to count
+     * @return the number of matching requests
+     * @see #count(RequestState)
+     */
+    public int count(RequestState state, AdminActions action) {
+        int[][] counts = cache().get(COUNTS, this::loadCounts);
+        synchronized (counts) {
+            return counts[state.ordinal()][action.ordinal()];
+        }
+    }
+
+    /**
+     * Discards the counter snapshot so the next read rebuilds it from the table.
+     * <p>
+     * Needed when requests disappear outside this repository, e.g. through the cascade when a user is deleted.
+     * </p>
+     *
+     * @param connection The connection whose snapshot to discard.
+     */
+    public static void invalidateCounts(Connection connection) {
+        ConnectionCache.of(connection).remove(COUNTS);
+    }
+
+    /**
+     * Builds the counter snapshot with a single aggregate query.
+     */
+    private int[][] loadCounts() {
+        int[][] fresh = new int[RequestState.values().length][AdminActions.values().length];
+        queryForList("SELECT state, type, COUNT(*) AS cnt FROM AdminRequests GROUP BY state, type",
+                pstmt -> {
+                },
+                rs -> {
+                    fresh[rs.getInt("state")][rs.getInt("type")] = rs.getInt("cnt");
+                    return null;
+                });
+        return fresh;
+    }
+
+    /**
+     * Applies a delta to the snapshot, if one has been built. An unbuilt snapshot will pick the change up
+     * when it is loaded.
+     */
+    private void adjustCount(RequestState state, AdminActions action, int delta) {
+        int[][] counts = cache().getIfPresent(COUNTS);
+        if (counts != null) {
+            synchronized (counts) {
+                counts[state.ordinal()][action.ordinal()] += delta;
+            }
+        }
     }
-}
\ No newline at end of file
+}
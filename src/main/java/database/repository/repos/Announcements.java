@@ -2,12 +2,14 @@ package database.repository.repos;
 
 import database.model.entities.Announcement;
 import database.model.entities.Message;
+import database.repository.ConnectionCache;
 import database.repository.Repository;
 import validators.EntityValidator;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,18 +19,45 @@ import java.util.List;
  * including creating, retrieving, updating, and deleting announcements. It also joins with the
  * underlying {@link Message} table to store and load message content.
  * </p>
+ * <p>
+ * The announcements form a versioned feed: {@link #create}, {@link #update} and {@link #delete} each stamp the row
+ * with a new, higher feed version. The live announcements are kept in a snapshot cached per connection and reloaded
+ * only after a change, so {@link #getAll()}, {@link #getLatest(int)} and an up-to-date {@link #getSince(long)} cost
+ * no database read. Callers get their own copies of the cached announcements.
+ * </p>
  *
  * @author Dhruv
  */
 public class Announcements extends Repository<Announcement> {
+    private static final String NEXT_VERSION = "NEXT VALUE FOR announcements_feed_version";
+
+    /**
+     * Turns announcements into tombstones at a new feed version; append a {@code WHERE} clause selecting them.
+     * <p>
+     * Deleting a message only detaches its announcement, so anything deleting messages runs this first for the
+     * announcements among them, or clients would never learn about the delete.
+     * </p>
+     */
+    static final String TOMBSTONE = "UPDATE Announcements SET deleted = TRUE, version = " + NEXT_VERSION + " ";
+
     private final Messages messagesRepo;
 
     private final String baseJoinQuery =
-            "SELECT a.announcementID, a.title, " +
+            "SELECT a.announcementID, a.title, a.version, a.deleted, " +
                     "       m.messageID, m.userID, m.content, m.createdAt " +
                     "FROM Announcements a " +
                     "JOIN Messages m ON a.messageID = m.messageID ";
 
+    // Tombstones may have lost their message, so the feed only left-joins it
+    private final String feedQuery =
+            "SELECT a.announcementID, a.title, a.version, a.deleted, " +
+                    "       m.messageID, m.userID, m.content, m.createdAt " +
+                    "FROM Announcements a " +
+                    "LEFT JOIN Messages m ON a.messageID = m.messageID ";
+
+    // Live announcements at one feed version; replaced, never modified, and dropped on every write
+    private static final ConnectionCache.Key<Snapshot> SNAPSHOT = new ConnectionCache.Key<>("announcements.snapshot");
+
     /**
      * Constructs the Announcements repository with the specified database connection.
      *
@@ -51,19 +80,23 @@ public class Announcements extends Repository<Announcement> {
     public Announcement create(Announcement announcement) throws IllegalArgumentException {
         EntityValidator.validateMessage(announcement.getMessage());
 
-        // Create the underlying message
-        Message createdMsg = messagesRepo.create(announcement.getMessage());
-        announcement.getMessage().setId(createdMsg.getId());
+        inTransaction(() -> {
+            // Create the underlying message
+            Message createdMsg = messagesRepo.create(announcement.getMessage());
+            announcement.getMessage().setId(createdMsg.getId());
 
-        // Insert into Announcements table
-        String sql = "INSERT INTO Announcements (messageID, title) VALUES (?, ?)";
-        int generatedId = executeInsert(sql, pstmt -> {
-            pstmt.setInt(1, announcement.getMessage().getId());
-            pstmt.setString(2, announcement.getTitle());
+            // Insert into Announcements table
+            String sql = "INSERT INTO Announcements (messageID, title, version) VALUES (?, ?, " + NEXT_VERSION + ")";
+            int generatedId = executeInsert(sql, pstmt -> {
+                pstmt.setInt(1, announcement.getMessage().getId());
+                pstmt.setString(2, announcement.getTitle());
+            });
+            if (generatedId > 0) {
+                announcement.setId(generatedId);
+            }
+            return null;
         });
-        if (generatedId > 0) {
-            announcement.setId(generatedId);
-        }
+        cache().remove(SNAPSHOT);
         return announcement;
     }
 
@@ -71,11 +104,11 @@ public class Announcements extends Repository<Announcement> {
      * Retrieves an announcement by its primary key (announcementID).
      *
      * @param id The announcementID.
-     * @return The {@link Announcement} entity, or null if not found.
+     * @return The {@link Announcement} entity, or null if not found or deleted.
      */
     @Override
     public Announcement getById(int id) {
-        String sql = baseJoinQuery + "WHERE a.announcementID = ?";
+        String sql = baseJoinQuery + "WHERE a.announcementID = ? AND NOT a.deleted";
         return queryForObject(sql,
                 pstmt -> pstmt.setInt(1, id),
                 this::build
@@ -83,14 +116,73 @@ public class Announcements extends Repository<Announcement> {
     }
 
     /**
-     * Retrieves all announcements from the database.
+     * Retrieves all announcements, oldest first.
+     * <p>
+     * Served from the cached snapshot, as copies the caller may modify.
+     * </p>
      *
      * @return A list of all {@link Announcement} entities.
      */
     @Override
     public List<Announcement> getAll() {
-        return queryForList(baseJoinQuery, pstmt -> {
-        }, this::build);
+        return copyOf(snapshot().announcements);
+    }
+
+    /**
+     * Retrieves the most recent announcements, newest first.
+     * <p>
+     * Served from the cached snapshot, as copies the caller may modify.
+     * </p>
+     *
+     * @param limit The maximum number of announcements to return.
+     * @return Up to {@code limit} announcements, newest first.
+     */
+    public List<Announcement> getLatest(int limit) {
+        List<Announcement> all = snapshot().announcements;
+        return copyOf(all.subList(Math.max(0, all.size() - limit), all.size()).reversed());
+    }
+
+    /**
+     * Gets the current feed version: the last value drawn from the feed sequence.
+     * <p>
+     * Read from the sequence rather than the rows, so it never goes back, even when rows disappear. A change that
+     * rolled back may have used up a version, which only makes a caller's next feed empty.
+     * </p>
+     *
+     * @return The feed version, or {@code 0} if there has never been an announcement.
+     */
+    public long getFeedVersion() {
+        return snapshot().version;
+    }
+
+    /**
+     * Retrieves what changed in the feed after the given version.
+     * <p>
+     * A caller holding the current version gets an empty feed without a database read. Otherwise the changed
+     * rows are read through the version index.
+     * </p>
+     *
+     * @param version The feed version the caller already has, or {@code 0} for everything.
+     * @return The announcements created or updated since, oldest change first, and the IDs deleted since.
+     */
+    public Feed getSince(long version) {
+        Snapshot current = snapshot();
+        if (version >= current.version) {
+            return new Feed(current.version, List.of(), List.of());
+        }
+        List<Announcement> changed = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        queryForList(feedQuery + "WHERE a.version > ? ORDER BY a.version",
+                pstmt -> pstmt.setLong(1, version),
+                rs -> {
+                    if (rs.getBoolean("deleted")) {
+                        deletedIds.add(rs.getInt("announcementID"));
+                    } else {
+                        changed.add(build(rs));
+                    }
+                    return null;
+                });
+        return new Feed(current.version, changed, deletedIds);
     }
 
     /**
@@ -109,7 +201,7 @@ public class Announcements extends Repository<Announcement> {
         Message msg = new Message();
         msg.setId(rs.getInt("messageID"));
         msg.setUserId(rs.getInt("userID"));
-        msg.setContent(rs.getString("content"));
+        messagesRepo.readContent(msg, rs.getString("content"));
         msg.setCreatedAt(rs.getTimestamp("createdAt"));
 
         announcement.setMessage(msg);
@@ -127,27 +219,155 @@ public class Announcements extends Repository<Announcement> {
     public Announcement update(Announcement announcement) throws IllegalArgumentException {
         EntityValidator.validateMessage(announcement.getMessage());
 
-        // Update the message content
-        messagesRepo.update(announcement.getMessage());
+        int rows = inTransaction(() -> {
+            // Update the message content
+            messagesRepo.update(announcement.getMessage());
 
-        // Update the title in Announcements
-        String sql = "UPDATE Announcements SET title = ? WHERE announcementID = ?";
-        int rows = executeUpdate(sql, pstmt -> {
-            pstmt.setString(1, announcement.getTitle());
-            pstmt.setInt(2, announcement.getId());
+            // Update the title in Announcements
+            String sql = "UPDATE Announcements SET title = ?, version = " + NEXT_VERSION +
+                    " WHERE announcementID = ? AND NOT deleted";
+            return executeUpdate(sql, pstmt -> {
+                pstmt.setString(1, announcement.getTitle());
+                pstmt.setInt(2, announcement.getId());
+            });
         });
+        cache().remove(SNAPSHOT);
 
         return rows > 0 ? announcement : null;
     }
 
     /**
-     * Deletes an announcement by its ID. The underlying message is removed via ON DELETE CASCADE.
+     * Deletes an announcement by its ID.
+     * <p>
+     * The row is kept as a tombstone with a new feed version, so {@link #getSince(long)} can report the delete.
+     * </p>
      *
      * @param id The announcementID to delete.
      */
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM Announcements WHERE announcementID = ?";
+        String sql = TOMBSTONE + "WHERE announcementID = ? AND NOT deleted";
         executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        cache().remove(SNAPSHOT);
+    }
+
+    /**
+     * Drops the cached snapshot of a connection so it is reloaded on next use.
+     * <p>
+     * Needed when announcements are tombstoned through {@link #TOMBSTONE}, which bypasses this class.
+     * </p>
+     *
+     * @param connection The database connection whose snapshot to drop.
+     */
+    static void invalidateSnapshot(Connection connection) {
+        ConnectionCache.of(connection).remove(SNAPSHOT);
+    }
+
+    /**
+     * Returns the current snapshot, loading it if a write dropped the last one.
+     */
+    private Snapshot snapshot() {
+        return cache().get(SNAPSHOT, () -> inTransaction(() -> {
+            Long version = queryForObject("SELECT BASE_VALUE - INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES " +
+                            "WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = 'ANNOUNCEMENTS_FEED_VERSION'",
+                    pstmt -> {
+                    }, rs -> rs.getLong(1));
+            List<Announcement> live = queryForList(baseJoinQuery + "WHERE NOT a.deleted ORDER BY a.announcementID",
+                    pstmt -> {
+                    }, this::build);
+            // Decode once here, so copies handed out share no lazily decoded state
+            live.forEach(a -> a.getMessage().getContent());
+            return new Snapshot(version, live);
+        }));
+    }
+
+    /**
+     * Copies cached announcements, with their messages, so callers cannot change the snapshot.
+     */
+    private static List<Announcement> copyOf(List<Announcement> announcements) {
+        List<Announcement> copies = new ArrayList<>(announcements.size());
+        for (Announcement a : announcements) {
+            Message m = a.getMessage();
+            Message message = new Message()
+                    .setUserId(m.getUserId())
+                    .setContent(m.getContent())
+                    .setCreatedAt(m.getCreatedAt());
+            message.setId(m.getId());
+            Announcement copy = new Announcement(message, a.getTitle());
+            copy.setId(a.getId());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * The live announcements as of one feed version.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final List<Announcement> announcements;
+
+        private Snapshot(long version, List<Announcement> announcements) {
+            this.version = version;
+            this.announcements = List.copyOf(announcements);
+        }
+    }
+
+    /**
+     * The changes to the announcement feed after a given version, returned by {@link #getSince(long)}.
+     */
+    public static class Feed {
+        private final long version;
+        private final List<Announcement> changed;
+        private final List<Integer> deletedIds;
+
+        /**
+         * Constructs a new {@code Feed}.
+         *
+         * @param version    The feed version these changes bring the caller up to.
+         * @param changed    The announcements created or updated, oldest change first.
+         * @param deletedIds The IDs of announcements deleted.
+         */
+        public Feed(long version, List<Announcement> changed, List<Integer> deletedIds) {
+            this.version = version;
+            this.changed = changed;
+            this.deletedIds = deletedIds;
+        }
+
+        /**
+         * Gets the feed version these changes bring the caller up to.
+         *
+         * @return The version to pass to the next {@link #getSince(long)} call.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the announcements created or updated, oldest change first.
+         *
+         * @return The changed announcements.
+         */
+        public List<Announcement> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Gets the IDs of announcements deleted.
+         *
+         * @return The deleted announcement IDs.
+         */
+        public List<Integer> getDeletedIds() {
+            return deletedIds;
+        }
+
+        /**
+         * Checks whether nothing changed.
+         *
+         * @return {@code true} if there are no changes or deletes.
+         */
+        public boolean isEmpty() {
+            return changed.isEmpty() && deletedIds.isEmpty();
+        }
     }
-}
\ No newline at end of file
+}
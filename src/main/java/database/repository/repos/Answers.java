@@ -10,6 +10,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Repository class for managing {@link Answer} entities in the database.
@@ -24,7 +25,22 @@ import java.util.List;
  * @see Answer
  */
 public class Answers extends Repository<Answer> {
+    // Path segment of the answer being written, e.g. "0000000042/"
+    private static final String OWN_SEGMENT = "LPAD(CAST(c.answerID AS VARCHAR), 10, '0') || '/'";
+    // Sets path and depth of the target rows (alias c) from their parent, or as top-level answers
+    private static final String SET_PATH =
+            "UPDATE Answers c SET " +
+                    "path = CASE WHEN c.parentAnswerID IS NULL THEN " + OWN_SEGMENT + " " +
+                    "ELSE (SELECT p.path FROM Answers p WHERE p.answerID = c.parentAnswerID) || " + OWN_SEGMENT + " END, " +
+                    "depth = CASE WHEN c.parentAnswerID IS NULL THEN 0 " +
+                    "ELSE (SELECT p.depth + 1 FROM Answers p WHERE p.answerID = c.parentAnswerID) END ";
+    // SQL form of subtreeEnd(a.path)
+    private static final String SUBTREE_END_SQL = "LEFT(a.path, LENGTH(a.path) - 1) || '0'";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
     private final Messages messagesRepo;
+    private final ReadMessages readMessagesRepo;
+    private final Questions questionsRepo;
     private final String baseJoinQuery =
             "SELECT a.answerID, a.questionID, a.parentAnswerID, a.isPinned, " +
                     "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt " +
@@ -41,6 +57,8 @@ public class Answers extends Repository<Answer> {
     public Answers(Connection connection) throws SQLException {
         super(connection);
         this.messagesRepo = new Messages(connection);
+        this.readMessagesRepo = new ReadMessages(connection);
+        this.questionsRepo = new Questions(connection);
     }
 
     /**
@@ -61,8 +79,24 @@ public class Answers extends Repository<Answer> {
         if (msg == null) {
             throw new IllegalArgumentException("Answer must have a Message");
         }
-        messagesRepo.create(msg);
+        // The question's stats move with the new answer, all or nothing
+        inTransaction(() -> {
+            messagesRepo.create(msg);
+            insert(answer);
+            if (answer.getId() > 0) {
+                questionsRepo.refreshStats(questionOf(answer.getId()));
+            }
+            return null;
+        });
+        readMessagesRepo.messageDelivered(msg.getId());
+        return answer;
+    }
 
+    /**
+     * Inserts the answer row for an already-created message and sets its path and depth.
+     */
+    private void insert(Answer answer) {
+        Message msg = answer.getMessage();
         String sql = "INSERT INTO Answers (messageID, questionID, parentAnswerID, isPinned) VALUES (?, ?, ?, ?)";
         int generatedId = executeInsert(sql, pstmt -> {
             pstmt.setInt(1, msg.getId());
@@ -80,8 +114,8 @@ public class Answers extends Repository<Answer> {
         });
         if (generatedId > 0) {
             answer.setId(generatedId);
+            executeUpdate(SET_PATH + "WHERE c.answerID = ?", pstmt -> pstmt.setInt(1, generatedId));
         }
-        return answer;
     }
 
     /**
@@ -128,7 +162,7 @@ public class Answers extends Repository<Answer> {
         Message msg = new Message();
         msg.setId(rs.getInt("msg_id"));
         msg.setUserId(rs.getInt("msg_userID"));
-        msg.setContent(rs.getString("msg_content"));
+        messagesRepo.readContent(msg, rs.getString("msg_content"));
         msg.setCreatedAt(rs.getTimestamp("msg_createdAt"));
 
         answer.setMessage(msg);
@@ -162,22 +196,77 @@ public class Answers extends Repository<Answer> {
         }
         messagesRepo.update(answer.getMessage());
 
-        String sql = "UPDATE Answers SET questionID = ?, parentAnswerID = ?, isPinned = ? WHERE answerID = ?";
-        int rows = executeUpdate(sql, pstmt -> {
-            if (answer.getQuestionId() != null) {
-                pstmt.setInt(1, answer.getQuestionId());
-            } else {
-                pstmt.setNull(1, java.sql.Types.INTEGER);
+        // One transaction, so a failed UPDATE inside OLD TABLE rolls back cleanly and a move is all-or-nothing
+        return inTransaction(() -> {
+            // The old parent and path come back from the UPDATE itself, to detect a move without another query
+            String sql = "SELECT questionID, parentAnswerID, isPinned, path, depth FROM OLD TABLE (" +
+                    "UPDATE Answers SET questionID = ?, parentAnswerID = ?, isPinned = ? WHERE answerID = ?)";
+            Object[] previous = queryForObject(sql, pstmt -> {
+                if (answer.getQuestionId() != null) {
+                    pstmt.setInt(1, answer.getQuestionId());
+                } else {
+                    pstmt.setNull(1, java.sql.Types.INTEGER);
+                }
+                if (answer.getParentAnswerId() != null) {
+                    pstmt.setInt(2, answer.getParentAnswerId());
+                } else {
+                    pstmt.setNull(2, java.sql.Types.INTEGER);
+                }
+                pstmt.setBoolean(3, answer.getIsPinned());
+                pstmt.setInt(4, answer.getId());
+            }, rs -> new Object[]{rs.getObject("questionID"), rs.getObject("parentAnswerID"), rs.getBoolean("isPinned"),
+                    rs.getString("path"), rs.getObject("depth")});
+            if (previous == null) {
+                return null;
             }
-            if (answer.getParentAnswerId() != null) {
-                pstmt.setInt(2, answer.getParentAnswerId());
+            boolean moved = !Objects.equals(previous[1], answer.getParentAnswerId());
+            if (moved && previous[3] != null) {
+                movePath(answer.getId(), (String) previous[3], (Integer) previous[4]);
+            }
+            if (moved || !Objects.equals(previous[0], answer.getQuestionId())
+                    || (boolean) previous[2] != answer.getIsPinned()) {
+                // A reply's question is its thread root's, found from the old path
+                Integer oldQuestion = previous[0] != null ? (Integer) previous[0] : rootQuestion((String) previous[3]);
+                Integer newQuestion = questionOf(answer.getId());
+                questionsRepo.refreshStats(oldQuestion);
+                if (!Objects.equals(oldQuestion, newQuestion)) {
+                    questionsRepo.refreshStats(newQuestion);
+                }
+            }
+            return answer;
+        });
+    }
+
+    /**
+     * Rewrites the paths and depths of a moved answer's subtree to hang below its new parent.
+     *
+     * @param answerId The ID of the moved answer, already pointing at its new parent.
+     * @param oldPath  The answer's path before the move.
+     * @param oldDepth The answer's depth before the move.
+     */
+    private void movePath(int answerId, String oldPath, int oldDepth) {
+        executeUpdate(SET_PATH + "WHERE c.answerID = ?", pstmt -> pstmt.setInt(1, answerId));
+        Object[] moved = queryForObject("SELECT path, depth FROM Answers WHERE answerID = ?",
+                pstmt -> pstmt.setInt(1, answerId),
+                rs -> new Object[]{rs.getString("path"), rs.getObject("depth")});
+        String newPath = (String) moved[0];
+        // Descendants keep their path below the answer and swap the prefix above it
+        String sql = "UPDATE Answers SET path = ? || SUBSTRING(path FROM ?), depth = depth + ? " +
+                "WHERE path > ? AND path < ?";
+        executeUpdate(sql, pstmt -> {
+            if (newPath != null) {
+                pstmt.setString(1, newPath);
+                pstmt.setInt(2, oldPath.length() + 1);
+                pstmt.setInt(3, (Integer) moved[1] - oldDepth);
             } else {
-                pstmt.setNull(2, java.sql.Types.INTEGER);
+                // New parent not backfilled yet; the backfill will redo the subtree
+                pstmt.setNull(1, java.sql.Types.VARCHAR);
+                pstmt.setInt(2, 1);
+                pstmt.setInt(3, 0);
             }
-            pstmt.setBoolean(3, answer.getIsPinned());
-            pstmt.setInt(4, answer.getId());
+            pstmt.setString(4, oldPath);
+            pstmt.setString(5, subtreeEnd(oldPath));
         });
-        return rows > 0 ? answer : null;
     }
 
     /**
@@ -193,7 +282,13 @@ public class Answers extends Repository<Answer> {
     public void delete(int id) {
         // Only delete from Answers; DB cascade can handle Messages if set
         String sql = "DELETE FROM Answers WHERE answerID = ?";
-        executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        inTransaction(() -> {
+            Integer questionId = questionOf(id);
+            executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+            questionsRepo.refreshStats(questionId);
+            return null;
+        });
+        ReadMessages.invalidateUnreadCounts(connection);
     }
 
     /**
@@ -217,6 +312,7 @@ public class Answers extends Repository<Answer> {
      */
     public List<Answer> searchAnswers(String keyword) throws Exception {
         List<Answer> all = getAll();
+        messagesRepo.loadArchived(all.stream().map(Answer::getMessage).toList());
         return SearchUtil.fullTextSearch(all, keyword,
                 a -> a.getMessage().getContent()
         );
@@ -226,6 +322,8 @@ public class Answers extends Repository<Answer> {
      * Toggles the pinned state of an answer.
      * <p>
      * This method changes the pinned state of the answer, setting it to true if it was previously false, and vice versa.
+     * Pinning a top-level answer goes through {@link #pinExclusive(int, int)}, so any other pin on its question is
+     * cleared.
      * </p>
      *
      * @param answerId The ID of the answer to be toggled.
@@ -234,10 +332,67 @@ public class Answers extends Repository<Answer> {
     public Answer togglePin(int answerId) {
         Answer existing = getById(answerId);
         if (existing == null) return null;
+        if (!existing.getIsPinned() && existing.getQuestionId() != null) {
+            pinExclusive(existing.getQuestionId(), answerId);
+            existing.setPinned(true);
+            return existing;
+        }
         existing.setPinned(!existing.getIsPinned());
+        // update() writes the body back, so an archived one has to be loaded first
+        messagesRepo.loadArchived(existing.getMessage());
         return update(existing);
     }
 
+    /**
+     * Makes an answer the only pinned answer on its question.
+     * <p>
+     * Clears the question's current pin and sets the new one in a single transaction. Nothing changes if the answer
+     * is not a top-level answer to that question.
+     * </p>
+     *
+     * @param questionId The ID of the question.
+     * @param answerId   The ID of the answer to pin.
+     * @return {@code true} if the answer is now pinned.
+     */
+    public boolean pinExclusive(int questionId, int answerId) {
+        return inTransaction(() -> {
+            // The old pin has to go first, or the unique index rejects the new one
+            executeUpdate("UPDATE Answers SET isPinned = FALSE WHERE questionID = ? AND isPinned AND answerID <> ? " +
+                    "AND EXISTS (SELECT 1 FROM Answers t WHERE t.answerID = ? AND t.questionID = ?)", pstmt -> {
+                pstmt.setInt(1, questionId);
+                pstmt.setInt(2, answerId);
+                pstmt.setInt(3, answerId);
+                pstmt.setInt(4, questionId);
+            });
+            int rows = executeUpdate("UPDATE Answers SET isPinned = TRUE WHERE answerID = ? AND questionID = ?",
+                    pstmt -> {
+                        pstmt.setInt(1, answerId);
+                        pstmt.setInt(2, questionId);
+                    });
+            if (rows > 0) {
+                questionsRepo.refreshStats(questionId);
+            }
+            return rows > 0;
+        });
+    }
+
+    /**
+     * Clears the pinned answer on a question, if any.
+     *
+     * @param questionId The ID of the question.
+     * @return {@code true} if an answer was unpinned.
+     */
+    public boolean unpin(int questionId) {
+        String sql = "UPDATE Answers SET isPinned = FALSE WHERE questionID = ? AND isPinned";
+        return inTransaction(() -> {
+            int rows = executeUpdate(sql, pstmt -> pstmt.setInt(1, questionId));
+            if (rows > 0) {
+                questionsRepo.refreshStats(questionId);
+            }
+            return rows > 0;
+        });
+    }
+
     /**
      * Updates only the content of an existing answer.
      *
@@ -275,4 +430,207 @@ public class Answers extends Repository<Answer> {
 
         return queryForList(sql, pstmt -> pstmt.setInt(1, questionId), this::build);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns an answer and all of its descendants in a single query.
+     * <p>
+     * The thread is walked by a recursive CTE, so the cost is one round trip however deep or wide the thread is.
+     * Entries are in depth-first order, with siblings ordered by ID: the root first, then each reply directly
+     * followed by its own replies.
+     * </p>
+     *
+     * @param rootAnswerId The ID of the answer at the root of the thread.
+     * @return The thread entries, or an empty list if the root does not exist.
+     */
+    public List<ThreadEntry> getThread(int rootAnswerId) {
+        // Zero-padded ids make the textual path sort in tree order
+        String sql = "WITH RECURSIVE thread(answerID, depth, path) AS (" +
+                "    SELECT answerID, 0, CAST(LPAD(CAST(answerID AS VARCHAR), 10, '0') AS VARCHAR(10000)) " +
+                "    FROM Answers WHERE answerID = ? " +
+                "  UNION ALL " +
+                "    SELECT a.answerID, t.depth + 1, t.path || '/' || LPAD(CAST(a.answerID AS VARCHAR), 10, '0') " +
+                "    FROM Answers a JOIN thread t ON a.parentAnswerID = t.answerID" +
+                ") " +
+                "SELECT a.answerID, a.questionID, a.parentAnswerID, a.isPinned, " +
+                "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt, " +
+                "       t.depth, t.path " +
+                "FROM thread t " +
+                "JOIN Answers a ON a.answerID = t.answerID " +
+                "JOIN Messages m ON a.messageID = m.messageID " +
+                "ORDER BY t.path";
+
+        return queryForList(sql, pstmt -> pstmt.setInt(1, rootAnswerId),
+                rs -> new ThreadEntry(build(rs), rs.getInt("depth"), rs.getString("path")));
+    }
+
+    /**
+     * Counts the replies below an answer, at any depth.
+     * <p>
+     * Served by a range scan over the materialized {@code path}.
+     * </p>
+     *
+     * @param answerId The ID of the answer.
+     * @return The number of descendants, or {@code 0} if the answer does not exist.
+     */
+    public int countSubtree(int answerId) {
+        String sql = "SELECT COUNT(*) FROM Answers d JOIN Answers a ON a.answerID = ? " +
+                "WHERE d.path > a.path AND d.path < " + SUBTREE_END_SQL;
+        Integer count = queryForObject(sql, pstmt -> pstmt.setInt(1, answerId), rs -> rs.getInt(1));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Deletes an answer together with every reply below it, as one range delete over the materialized path.
+     * <p>
+     * Like {@link #delete(int)}, only the answer rows are removed; their messages are left in place.
+     * </p>
+     *
+     * @param answerId The ID of the answer at the top of the subtree.
+     * @return The number of answers deleted.
+     */
+    public int deleteSubtree(int answerId) {
+        int rows = inTransaction(() -> {
+            Integer questionId = questionOf(answerId);
+            String path = queryForObject("SELECT path FROM Answers WHERE answerID = ?",
+                    pstmt -> pstmt.setInt(1, answerId), rs -> rs.getString("path"));
+            int deleted;
+            if (path == null) {
+                // Unknown answer, or not backfilled yet: fall back to the cascading delete
+                deleted = executeUpdate("DELETE FROM Answers WHERE answerID = ?", pstmt -> pstmt.setInt(1, answerId));
+            } else {
+                deleted = executeUpdate("DELETE FROM Answers WHERE path >= ? AND path < ?", pstmt -> {
+                    pstmt.setString(1, path);
+                    pstmt.setString(2, subtreeEnd(path));
+                });
+            }
+            questionsRepo.refreshStats(questionId);
+            return deleted;
+        });
+        ReadMessages.invalidateUnreadCounts(connection);
+        return rows;
+    }
+
+    /**
+     * Returns the top-level answers to a question, most recently active thread first.
+     * <p>
+     * A thread's activity is the newest message anywhere in it, found with a range scan over the materialized
+     * {@code path} of each top-level answer.
+     * </p>
+     *
+     * @param questionId The ID of the question.
+     * @return The top-level answers ordered by latest activity in their threads.
+     */
+    public List<Answer> getRepliesToQuestionByActivity(int questionId) {
+        String sql = baseJoinQuery +
+                "WHERE a.questionID = ? AND a.parentAnswerID IS NULL " +
+                "ORDER BY (SELECT MAX(dm.createdAt) FROM Answers d JOIN Messages dm ON d.messageID = dm.messageID " +
+                "          WHERE d.path >= a.path AND d.path < " + SUBTREE_END_SQL + ") DESC, a.answerID DESC";
+        return queryForList(sql, pstmt -> pstmt.setInt(1, questionId), this::build);
+    }
+
+    /**
+     * Fills in {@code path} and {@code depth} for answers created before those columns existed.
+     * <p>
+     * Run once by a schema migration. Works in batches of {@value #BACKFILL_BATCH_SIZE}, each committed on its own
+     * unless a transaction is already open. A batch only takes answers whose parent already has a path, so parents
+     * are always done before their replies. Safe to run repeatedly; it stops as soon as nothing is left.
+     * </p>
+     *
+     * @return The number of answers backfilled.
+     */
+    public int backfillPaths() {
+        String sql = SET_PATH + "WHERE c.answerID IN (" +
+                "SELECT x.answerID FROM Answers x LEFT JOIN Answers xp ON xp.answerID = x.parentAnswerID " +
+                "WHERE x.path IS NULL AND (x.parentAnswerID IS NULL OR xp.path IS NOT NULL) " +
+                "ORDER BY x.answerID LIMIT ?)";
+        int total = 0;
+        int rows;
+        do {
+            rows = executeUpdate(sql, pstmt -> pstmt.setInt(1, BACKFILL_BATCH_SIZE));
+            total += rows;
+        } while (rows > 0);
+        return total;
+    }
+
+    /**
+     * Finds the question an answer belongs to: its own for a top-level answer, its thread root's for a reply.
+     *
+     * @return The question ID, or {@code null} if the answer does not exist or has no path yet.
+     */
+    private Integer questionOf(int answerId) {
+        String sql = "SELECT COALESCE(a.questionID, r.questionID) FROM Answers a " +
+                "LEFT JOIN Answers r ON r.answerID = CAST(LEFT(a.path, 10) AS INT) WHERE a.answerID = ?";
+        return queryForObject(sql, pstmt -> pstmt.setInt(1, answerId), rs -> (Integer) rs.getObject(1));
+    }
+
+    /**
+     * Finds the question of the thread whose root starts {@code path}.
+     *
+     * @return The question ID, or {@code null} if the path is unknown.
+     */
+    private Integer rootQuestion(String path) {
+        if (path == null) {
+            return null;
+        }
+        return queryForObject("SELECT questionID FROM Answers WHERE answerID = ?",
+                pstmt -> pstmt.setInt(1, Integer.parseInt(path.substring(0, 10))), rs -> (Integer) rs.getObject(1));
+    }
+
+    /**
+     * Returns the smallest string greater than every path in the subtree rooted at {@code path}. Paths end in
+     * {@code '/'}, so bumping that last character to {@code '0'} bounds the range.
+     */
+    private static String subtreeEnd(String path) {
+        return path.substring(0, path.length() - 1) + '0';
+    }
+
+    /**
+     * A single answer within a thread returned by {@link #getThread(int)}.
+     */
+    public static class ThreadEntry {
+        private final Answer answer;
+        private final int depth;
+        private final String path;
+
+        /**
+         * Constructs a new {@code ThreadEntry}.
+         *
+         * @param answer The answer.
+         * @param depth  The number of replies between the answer and the thread root; 0 for the root.
+         * @param path   The ordering path from the root to the answer.
+         */
+        public ThreadEntry(Answer answer, int depth, String path) {
+            this.answer = answer;
+            this.depth = depth;
+            this.path = path;
+        }
+
+        /**
+         * Gets the answer.
+         *
+         * @return The answer.
+         */
+        public Answer getAnswer() {
+            return answer;
+        }
+
+        /**
+         * Gets the depth of the answer below the thread root.
+         *
+         * @return The depth; 0 for the root.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets the ordering path of the answer: the zero-padded IDs from the root down to it, separated by
+         * {@code '/'}. Sorting by path yields depth-first order.
+         *
+         * @return The path.
+         */
+        public String getPath() {
+            return path;
+        }
+    }
+}
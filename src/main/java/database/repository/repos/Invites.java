@@ -5,9 +5,12 @@ import database.repository.Repository;
 import utils.Helpers;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,11 +19,31 @@ import java.util.List;
  * This class provides methods for performing CRUD operations on the "Invites" table, including creating,
  * retrieving, updating, and deleting invites. It also provides methods to find invites by user or invite code.
  * </p>
+ * <p>
+ * Invites are valid for {@value #INVITE_TTL_SECONDS} seconds. Expired invites are removed by
+ * {@link #sweepExpired()}, and {@link #createBulk(int, Integer, int)} issues many invites in one transaction.
+ * </p>
  *
  * @author Dhruv
  * @see Repository
  */
 public class Invites extends Repository<Invite> {
+    /**
+     * How long an invite stays valid, in seconds.
+     */
+    public static final int INVITE_TTL_SECONDS = 86_400;
+
+    private static final int BULK_BATCH_SIZE = 1000;
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    // Same alphabet as Helpers.generateRandomCode
+    private static final String CODE_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int UNIQUE_CHARS = 4;
+    // The unique part comes from a public sequence, so as much randomness as a single invite's whole code follows
+    private static final int RANDOM_CHARS = 6;
+    private static final long UNIQUE_SPACE = 14_776_336L; // 62^4
+    // Coprime with UNIQUE_SPACE (2^4 * 31^4), so scrambling sequence numbers is a bijection
+    private static final long SCRAMBLE_MULTIPLIER = 9_369_319L;
 
     /**
      * Constructor for {@code Invites} repository.
@@ -167,19 +190,20 @@ public class Invites extends Repository<Invite> {
     /**
      * Finds an invite by its code.
      * <p>
-     * This method checks for an invite that matches the provided code and is still valid (less than 24 hours old).
+     * This method checks for an invite that matches the provided code and is still valid (less than
+     * {@value #INVITE_TTL_SECONDS} seconds old).
      * </p>
      *
      * @param code The invite code to search for.
      * @return The {@link Invite} object if found, or {@code null} if no valid invite is found.
      */
     public Invite findInvite(String code) {
-        String sql = "SELECT * FROM Invites WHERE code = ? AND ? - createdAt < 86400";
+        String sql = "SELECT * FROM Invites WHERE code = ? AND createdAt > ?";
 
         Invite invite = queryForObject(sql,
                 pstmt -> {
                     pstmt.setString(1, code);
-                    pstmt.setLong(2, Helpers.getCurrentTimeInSeconds());
+                    pstmt.setLong(2, expiryCutoff());
                 },
                 this::build
         );
@@ -188,4 +212,161 @@ public class Invites extends Repository<Invite> {
         }
         return invite;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates many invites at once, in a single transaction.
+     * <p>
+     * Each code is {@value #UNIQUE_CHARS} + {@value #RANDOM_CHARS} characters: {@value #UNIQUE_CHARS} derived from a
+     * database sequence, scrambled by a fixed bijection so that consecutive invites do not look alike, followed by
+     * {@value #RANDOM_CHARS} random ones. The scrambled part is guessable and only makes every bulk code unique
+     * without checking for or retrying collisions; the random part is as hard to guess as a single invite's
+     * 6-character code, and the different lengths mean the two never clash. Rows are inserted in JDBC batches of {@value #BULK_BATCH_SIZE}.
+     * </p>
+     *
+     * @param count  The number of invites to create.
+     * @param userId The user issuing the invites, or {@code null}.
+     * @param roles  The roles bit field granted by every invite.
+     * @return The created invites, with their IDs set.
+     * @throws IllegalStateException If the sequence has run past the unique code space.
+     */
+    public List<Invite> createBulk(int count, Integer userId, int roles) {
+        if (count <= 0) {
+            return List.of();
+        }
+        return inTransaction(() -> {
+            List<Long> numbers = queryForList("SELECT NEXT VALUE FOR invite_code_seq FROM SYSTEM_RANGE(1, ?)",
+                    pstmt -> pstmt.setInt(1, count), rs -> rs.getLong(1));
+            long createdAt = Helpers.getCurrentTimeInSeconds();
+            List<Invite> invites = new ArrayList<>(count);
+            for (long n : numbers) {
+                invites.add(new Invite(userId)
+                        .setCode(uniqueCodePart(n) + Helpers.generateRandomCode(RANDOM_CHARS, false))
+                        .setRoles(roles)
+                        .setCreatedAt(createdAt));
+            }
+
+            String sql = "INSERT INTO Invites (code, userID, roles, createdAt) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < invites.size(); from += BULK_BATCH_SIZE) {
+                    List<Invite> chunk = invites.subList(from, Math.min(from + BULK_BATCH_SIZE, invites.size()));
+                    for (Invite invite : chunk) {
+                        pstmt.setString(1, invite.getCode());
+                        if (userId == null) {
+                            pstmt.setNull(2, Types.INTEGER);
+                        } else {
+                            pstmt.setInt(2, userId);
+                        }
+                        pstmt.setInt(3, roles);
+                        pstmt.setLong(4, createdAt);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        for (Invite invite : chunk) {
+                            if (keys.next()) {
+                                invite.setId(keys.getInt(1));
+                            }
+                        }
+                    }
+                }
+            }
+            return invites;
+        });
+    }
+
+    /**
+     * Deletes expired invites, in chunks of {@value #SWEEP_BATCH_SIZE} rows, each committed on its own.
+     *
+     * @return The number of invites deleted.
+     */
+    public int sweepExpired() {
+        String sql = "DELETE FROM Invites WHERE inviteID IN (" +
+                "SELECT inviteID FROM Invites WHERE createdAt <= ? ORDER BY createdAt LIMIT ?)";
+        long cutoff = expiryCutoff();
+        int total = 0;
+        int rows;
+        do {
+            rows = executeUpdate(sql, pstmt -> {
+                pstmt.setLong(1, cutoff);
+                pstmt.setInt(2, SWEEP_BATCH_SIZE);
+            });
+            total += rows;
+        } while (rows == SWEEP_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * Counts live and expired invites, read from the {@code createdAt} index.
+     *
+     * @return The current {@link InviteStats}.
+     */
+    public InviteStats getStats() {
+        String sql = "SELECT COUNT(CASE WHEN createdAt > ? THEN 1 END), COUNT(CASE WHEN createdAt <= ? THEN 1 END) " +
+                "FROM Invites";
+        long cutoff = expiryCutoff();
+        return queryForObject(sql, pstmt -> {
+            pstmt.setLong(1, cutoff);
+            pstmt.setLong(2, cutoff);
+        }, rs -> new InviteStats(rs.getInt(1), rs.getInt(2)));
+    }
+
+    /**
+     * Returns the creation time at or before which an invite has expired.
+     */
+    private static long expiryCutoff() {
+        return Helpers.getCurrentTimeInSeconds() - (long) INVITE_TTL_SECONDS;
+    }
+
+    /**
+     * Encodes a sequence number as the unique, {@value #UNIQUE_CHARS}-character part of a bulk invite code.
+     */
+    private static String uniqueCodePart(long sequenceNumber) {
+        if (sequenceNumber >= UNIQUE_SPACE) {
+            throw new IllegalStateException("Bulk invite codes are exhausted.");
+        }
+        long scrambled = (sequenceNumber * SCRAMBLE_MULTIPLIER) % UNIQUE_SPACE;
+        char[] chars = new char[UNIQUE_CHARS];
+        for (int i = UNIQUE_CHARS - 1; i >= 0; i--) {
+            chars[i] = CODE_CHARS.charAt((int) (scrambled % CODE_CHARS.length()));
+            scrambled /= CODE_CHARS.length();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Counts of live and expired invites, returned by {@link #getStats()}.
+     */
+    public static class InviteStats {
+        private final int live;
+        private final int expired;
+
+        /**
+         * Constructs a new {@code InviteStats}.
+         *
+         * @param live    The number of invites that can still be used.
+         * @param expired The number of expired invites not yet swept.
+         */
+        public InviteStats(int live, int expired) {
+            this.live = live;
+            this.expired = expired;
+        }
+
+        /**
+         * Gets the number of invites that can still be used.
+         *
+         * @return The live invite count.
+         */
+        public int getLive() {
+            return live;
+        }
+
+        /**
+         * Gets the number of expired invites not yet swept.
+         *
+         * @return The expired invite count.
+         */
+        public int getExpired() {
+            return expired;
+        }
+    }
+}
@@ -2,12 +2,19 @@ package database.repository.repos;
 
 import database.model.entities.Message;
 import database.repository.Repository;
+import utils.MessageCodec;
 import validators.EntityValidator;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Repository class for managing {@link Message} entities in the database.
@@ -16,23 +23,51 @@ import java.util.List;
  * retrieving, updating, and deleting messages. It extends the {@link Repository} class, which provides
  * base functionality for database operations.
  * </p>
+ * <p>
+ * Bodies are written through a {@link MessageCodec}, which compresses long ones. Every repository that reads
+ * message content hands the stored form to {@link Message#setStoredContent(String)}, so decompression happens
+ * only when the content is actually read.
+ * </p>
+ * <p>
+ * Old messages from closed questions and inactive chats are archived by {@link #archive()}, which the application
+ * runs once a day: their bodies move to the "MessagesArchive" table and the column here is cleared. Reads do not
+ * join the archive; callers that show an archived body load it with {@link #loadArchived(Collection)}.
+ * </p>
  *
  * @author Dhruv
  * @see Repository
  */
 public class Messages extends Repository<Message> {
+    private static final int RECOMPRESS_BATCH_SIZE = 500;
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    // Messages older than this many days are archived once their question is resolved or their chat goes quiet
+    private static final int ARCHIVE_AFTER_DAYS = Integer.getInteger("db.messages.archiveAfterDays", 365);
+
+    private final MessageCodec codec;
 
     /**
      * Constructor for {@code Messages} repository.
      * <p>
-     * Initializes the repository with the provided database connection.
+     * Initializes the repository with the provided database connection and the {@link MessageCodec#DEFAULT} codec.
      * </p>
      *
      * @param connection The database connection to be used by this repository.
      * @throws SQLException If an error occurs during the initialization of the repository.
      */
     public Messages(Connection connection) throws SQLException {
+        this(connection, MessageCodec.DEFAULT);
+    }
+
+    /**
+     * Constructor for {@code Messages} repository with a specific storage codec.
+     *
+     * @param connection The database connection to be used by this repository.
+     * @param codec      The codec used to store message bodies.
+     * @throws SQLException If an error occurs during the initialization of the repository.
+     */
+    public Messages(Connection connection, MessageCodec codec) throws SQLException {
         super(connection);
+        this.codec = codec;
     }
 
     /**
@@ -51,7 +86,7 @@ public class Messages extends Repository<Message> {
         String sql = "INSERT INTO Messages (userID, content, createdAt) VALUES (?, ?, ?)";
         int generatedId = executeInsert(sql, pstmt -> {
             pstmt.setInt(1, msg.getUserId());
-            pstmt.setString(2, msg.getContent());
+            pstmt.setString(2, codec.encode(msg.getContent()));
             pstmt.setTimestamp(3, msg.getCreatedAt());
         });
         if (generatedId > 0) {
@@ -102,7 +137,7 @@ public class Messages extends Repository<Message> {
         Message m = new Message();
         m.setId(rs.getInt("messageID"));
         m.setUserId(rs.getInt("userID"));
-        m.setContent(rs.getString("content"));
+        readContent(m, rs.getString("content"));
         m.setCreatedAt(rs.getTimestamp("createdAt"));
         return m;
     }
@@ -121,9 +156,13 @@ public class Messages extends Repository<Message> {
     public Message update(Message msg) throws IllegalArgumentException {
         EntityValidator.validateMessageContent(msg.getContent());
         String sql = "UPDATE Messages SET content = ? WHERE messageID = ?";
-        int rows = executeUpdate(sql, pstmt -> {
-            pstmt.setString(1, msg.getContent());
-            pstmt.setInt(2, msg.getId());
+        int rows = inTransaction(() -> {
+            // An edited message is live again
+            executeUpdate("DELETE FROM MessagesArchive WHERE messageID = ?", pstmt -> pstmt.setInt(1, msg.getId()));
+            return executeUpdate(sql, pstmt -> {
+                pstmt.setString(1, codec.encode(msg.getContent()));
+                pstmt.setInt(2, msg.getId());
+            });
         });
         return rows > 0 ? msg : null;
     }
@@ -141,6 +180,234 @@ public class Messages extends Repository<Message> {
     public void delete(int id) {
         // Deleting the row from Messages. If child rows cascade, no manual cleanup needed here.
         String sql = "DELETE FROM Messages WHERE messageID = ?";
-        executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        inTransaction(() -> {
+            // Cascaded answer deletes bypass the Answers repository, so find the questions they count towards first
+            List<Integer> questionIds = queryForList(Questions.ANSWERED_IN + "WHERE m.messageID = ?",
+                    pstmt -> pstmt.setInt(1, id), rs -> rs.getInt("questionID"));
+            // Announcements only lose their message, so record their delete for the feed first
+            executeUpdate(Announcements.TOMBSTONE + "WHERE messageID = ? AND NOT deleted", pstmt -> pstmt.setInt(1, id));
+            executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+            if (!questionIds.isEmpty()) {
+                executeUpdate(Questions.REFRESH_STATS + "WHERE q.questionID = ANY(?)",
+                        pstmt -> pstmt.setArray(1, connection.createArrayOf("INTEGER", questionIds.toArray())));
+            }
+            return null;
+        });
+        ReadMessages.invalidateUnreadCounts(connection);
+        Announcements.invalidateSnapshot(connection);
+    }
+
+    /**
+     * Rewrites stored bodies that do not match the current codec setting.
+     * <p>
+     * With compression on, long bodies stored plain (written before compression was enabled or while the
+     * threshold was higher) are compressed; with it off, compressed bodies are stored plain again. Bodies that do
+     * not shrink stay plain. Rows are walked in batches of {@value #RECOMPRESS_BATCH_SIZE} by ID, each committed
+     * on its own together with a checkpoint in "MessageCodecCheckpoint". Messages written later are stored with
+     * the current setting already, so a later run only looks past the checkpoint; changing the setting starts
+     * over from the first message. Safe to run repeatedly.
+     * </p>
+     *
+     * @return The number of messages rewritten.
+     */
+    public int recompress() {
+        String setting = codec.isEnabled() ? "deflate>=" + codec.getThreshold() : "plain";
+        String prefix = "LEFT(content, " + MessageCodec.DEFLATE_MARKER.length() + ")";
+        String sql = "SELECT messageID, content FROM Messages WHERE messageID > ? AND messageID <= ? AND " +
+                (codec.isEnabled()
+                        ? "LENGTH(content) >= " + codec.getThreshold() + " AND " + prefix + " <> ? "
+                        : prefix + " = ? ") +
+                "ORDER BY messageID LIMIT ?";
+        Integer checkpoint = queryForObject("SELECT lastMessageID FROM MessageCodecCheckpoint WHERE codec = ?",
+                pstmt -> pstmt.setString(1, setting), rs -> rs.getInt(1));
+        int upTo = queryForObject("SELECT COALESCE(MAX(messageID), 0) FROM Messages", pstmt -> {
+        }, rs -> rs.getInt(1));
+        int total = 0;
+        int lastId = checkpoint != null ? checkpoint : 0;
+        LinkedHashMap<Integer, String> batch = new LinkedHashMap<>();
+        while (lastId < upTo) {
+            int after = lastId;
+            batch.clear();
+            queryForList(sql, pstmt -> {
+                pstmt.setInt(1, after);
+                pstmt.setInt(2, upTo);
+                pstmt.setString(3, MessageCodec.DEFLATE_MARKER);
+                pstmt.setInt(4, RECOMPRESS_BATCH_SIZE);
+            }, rs -> batch.put(rs.getInt("messageID"), rs.getString("content")));
+            // A short batch is the last one, so everything up to the end of the range has been looked at
+            int reached = batch.size() == RECOMPRESS_BATCH_SIZE ? batch.lastEntry().getKey() : upTo;
+            total += inTransaction(() -> {
+                int rewritten = 0;
+                for (Map.Entry<Integer, String> row : batch.entrySet()) {
+                    String stored = codec.encode(MessageCodec.decode(row.getValue()));
+                    if (!stored.equals(row.getValue())) {
+                        rewritten += executeUpdate("UPDATE Messages SET content = ? WHERE messageID = ?", pstmt -> {
+                            pstmt.setString(1, stored);
+                            pstmt.setInt(2, row.getKey());
+                        });
+                    }
+                }
+                executeUpdate("MERGE INTO MessageCodecCheckpoint (checkpointID, codec, lastMessageID) " +
+                        "KEY (checkpointID) VALUES (1, ?, ?)", pstmt -> {
+                    pstmt.setString(1, setting);
+                    pstmt.setInt(2, reached);
+                });
+                return rewritten;
+            });
+            lastId = reached;
+        }
+        return total;
+    }
+
+    /**
+     * Sets the content of a message being built from a query row.
+     * <p>
+     * A non-{@code null} value is the stored body and is decoded on first access. {@code NULL} means the body has
+     * been archived; the message is then marked as such and its body is only fetched by {@link #loadArchived}.
+     * </p>
+     *
+     * @param msg    The message being built, with its ID already set.
+     * @param stored The {@code content} column of the row.
+     */
+    public void readContent(Message msg, String stored) {
+        if (stored != null) {
+            msg.setStoredContent(stored);
+        } else {
+            msg.setArchived();
+        }
+    }
+
+    /**
+     * Loads the archived bodies of a batch of messages.
+     * <p>
+     * Reads leave archived bodies out, so callers that display or search old messages opt in here after
+     * fetching them. The bodies come from one query per call, however many messages are archived; messages
+     * that are not archived are left as they are.
+     * </p>
+     *
+     * @param messages The messages whose archived bodies to load.
+     * @return The number of messages loaded.
+     */
+    public int loadArchived(Collection<Message> messages) {
+        Map<Integer, List<Message>> pending = new HashMap<>();
+        for (Message msg : messages) {
+            if (msg != null && msg.isArchived()) {
+                pending.computeIfAbsent(msg.getId(), id -> new ArrayList<>()).add(msg);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        String sql = "SELECT messageID, content FROM MessagesArchive WHERE messageID = ANY(?)";
+        List<Integer> loaded = queryForList(sql,
+                pstmt -> pstmt.setArray(1, connection.createArrayOf("INTEGER", pending.keySet().toArray())), rs -> {
+                    int id = rs.getInt("messageID");
+                    String stored = rs.getString("content");
+                    pending.get(id).forEach(msg -> msg.setStoredContent(stored));
+                    return id;
+                });
+        return loaded.size();
+    }
+
+    /**
+     * Loads the archived body of a single message.
+     *
+     * @param msg The message, possibly archived.
+     * @return The same message, with its body loaded.
+     * @see #loadArchived(Collection)
+     */
+    public Message loadArchived(Message msg) {
+        if (msg != null) {
+            loadArchived(List.of(msg));
+        }
+        return msg;
+    }
+
+    /**
+     * Retrieves the stored body of an archived message.
+     *
+     * @param messageId The ID of the message.
+     * @return The stored body, or {@code null} if the message is not archived.
+     */
+    public String getArchivedContent(int messageId) {
+        return queryForObject("SELECT content FROM MessagesArchive WHERE messageID = ?",
+                pstmt -> pstmt.setInt(1, messageId), rs -> rs.getString(1));
+    }
+
+    /**
+     * Archives messages older than the configured horizon, {@code db.messages.archiveAfterDays} days (365 by
+     * default).
+     *
+     * @return The number of messages archived.
+     * @see #archive(Timestamp)
+     */
+    public int archive() {
+        return archive(new Timestamp(System.currentTimeMillis() - ARCHIVE_AFTER_DAYS * 86_400_000L));
+    }
+
+    /**
+     * Moves the bodies of messages written before {@code horizon} to the archive, from closed questions and
+     * inactive chats only.
+     * <p>
+     * A question is closed once it has a pinned answer and no activity since the horizon; its own message, every
+     * answer and reply in its threads and its private messages are archived. A staff chat is inactive once neither
+     * side has written since the horizon. Work runs in batches of {@value #ARCHIVE_BATCH_SIZE}, each committed on
+     * its own. Safe to run repeatedly.
+     * </p>
+     *
+     * @param horizon Messages written before this time are eligible.
+     * @return The number of messages archived.
+     */
+    public int archive(Timestamp horizon) {
+        String closed = "SELECT questionID FROM Questions WHERE hasPinned AND lastActivityAt < ?";
+        String sql = "WITH RECURSIVE pm(privateMessageID, messageID) AS (" +
+                "    SELECT p.privateMessageID, p.messageID FROM PrivateMessages p " +
+                "    WHERE p.questionID IN (" + closed + ") " +
+                "  UNION ALL " +
+                "    SELECT r.privateMessageID, r.messageID FROM PrivateMessages r " +
+                "    JOIN pm ON r.parentPrivateMessageID = pm.privateMessageID" +
+                ") " +
+                "SELECT m.messageID FROM Messages m " +
+                "WHERE m.content IS NOT NULL AND m.createdAt < ? AND m.messageID IN (" +
+                "    SELECT q.messageID FROM Questions q WHERE q.questionID IN (" + closed + ") " +
+                "  UNION ALL " +
+                "    SELECT a.messageID FROM Answers a " +
+                "    JOIN Answers r ON r.answerID = CAST(LEFT(a.path, 10) AS INT) " +
+                "    WHERE r.questionID IN (" + closed + ") " +
+                "  UNION ALL " +
+                "    SELECT messageID FROM pm " +
+                "  UNION ALL " +
+                "    SELECT sm.messageID FROM StaffMessages sm WHERE NOT EXISTS (" +
+                "        SELECT 1 FROM StaffMessages s2 JOIN Messages m2 ON s2.messageID = m2.messageID " +
+                "        WHERE s2.userID = sm.userID AND s2.staffID = sm.staffID AND m2.createdAt >= ?)" +
+                ") " +
+                "ORDER BY m.messageID LIMIT ?";
+        int total = 0;
+        List<Integer> batch;
+        do {
+            batch = queryForList(sql, pstmt -> {
+                for (int i = 1; i <= 5; i++) {
+                    pstmt.setTimestamp(i, horizon);
+                }
+                pstmt.setInt(6, ARCHIVE_BATCH_SIZE);
+            }, rs -> rs.getInt(1));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Integer> ids = batch;
+            String in = "(" + placeholders(ids.size()) + ")";
+            SqlConsumer bindIds = pstmt -> {
+                for (int i = 0; i < ids.size(); i++) {
+                    pstmt.setInt(i + 1, ids.get(i));
+                }
+            };
+            total += inTransaction(() -> {
+                executeUpdate("INSERT INTO MessagesArchive (messageID, content, archiveMonth) " +
+                        "SELECT messageID, content, YEAR(createdAt) * 100 + MONTH(createdAt) FROM Messages " +
+                        "WHERE messageID IN " + in, bindIds);
+                return executeUpdate("UPDATE Messages SET content = NULL WHERE messageID IN " + in, bindIds);
+            });
+        } while (batch.size() == ARCHIVE_BATCH_SIZE);
+        return total;
     }
-}
\ No newline at end of file
+}
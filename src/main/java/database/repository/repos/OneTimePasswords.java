@@ -1,12 +1,15 @@
 package database.repository.repos;
 
 import database.model.entities.OneTimePassword;
+import database.repository.DataAccessException;
 import database.repository.Repository;
+import utils.Helpers;
 import utils.PasswordUtil;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
 
 /**
@@ -16,12 +19,29 @@ import java.util.List;
  * retrieving, updating, and deleting one-time passwords (OTPs). It also provides functionality for checking the validity
  * of an OTP.
  * </p>
+ * <p>
+ * OTPs are handed out as {@code keyId.secret}. The key ID is stored in plain text under a unique index, so checking
+ * an OTP costs one indexed lookup and exactly one Argon2 verification, however many OTPs a user has outstanding.
+ * OTPs expire after {@value #OTP_TTL_SECONDS} seconds; {@link #deleteUsedAndExpired()} removes spent rows.
+ * </p>
  *
  * @author Dhruv
  * @see Repository
  * @see OneTimePassword
  */
 public class OneTimePasswords extends Repository<OneTimePassword> {
+    /**
+     * How long an OTP stays valid, in seconds.
+     */
+    public static final int OTP_TTL_SECONDS = 86_400;
+
+    // Fresh random key IDs tried before a clash on the key ID index is reported
+    private static final int KEY_ID_ATTEMPTS = 3;
+    // SQLSTATE of a unique index violation
+    private static final String DUPLICATE_KEY = "23505";
+
+    // Verified against when no OTP matches, so a miss costs as much as a hit
+    private static volatile String decoyHash;
 
     /**
      * Constructor for {@code OneTimePasswords} repository.
@@ -36,25 +56,49 @@ public class OneTimePasswords extends Repository<OneTimePassword> {
     /**
      * Creates a new one-time password (OTP) in the "OneTimePasswords" table.
      * <p>
-     * The OTP value is hashed before being stored in the database.
+     * The OTP value is hashed before being stored in the database, next to the plain key ID. An OTP without an
+     * expiry time is given {@value #OTP_TTL_SECONDS} seconds.
+     * </p>
+     * <p>
+     * Key IDs are random, so one can, very rarely, repeat an outstanding OTP's; the unique index rejects it and a
+     * new key ID is drawn, up to {@value #KEY_ID_ATTEMPTS} times. Only the key ID changes, so the hashed secret
+     * stays valid, and {@link OneTimePassword#getPlainOtp()} reflects the key ID that was stored.
      * </p>
      *
      * @param otp The {@link OneTimePassword} object to be created.
      * @return The created {@link OneTimePassword} object, with its ID set.
+     * @throws DataAccessException If the insert fails, including when every key ID tried was taken.
      */
     @Override
     public OneTimePassword create(OneTimePassword otp) {
         String plainOtp = otp.getOtpValue();  // generated or assigned in the entity
         String hashedOtp = PasswordUtil.hashPassword(plainOtp);
         otp.setOtpValue(hashedOtp);
+        if (otp.getExpiresAt() == null) {
+            otp.setExpiresAt(new Timestamp(System.currentTimeMillis() + OTP_TTL_SECONDS * 1000L));
+        }
 
-        String sql = "INSERT INTO OneTimePasswords (otpValue, creatorID, targetID, isUsed) VALUES (?, ?, ?, ?)";
-        int generatedId = executeInsert(sql, pstmt -> {
-            pstmt.setString(1, hashedOtp);
-            pstmt.setInt(2, otp.getCreatorId());
-            pstmt.setInt(3, otp.getTargetId());
-            pstmt.setBoolean(4, otp.isUsed());
-        });
+        String sql = "INSERT INTO OneTimePasswords (otpValue, creatorID, targetID, isUsed, keyId, expiresAt) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        int generatedId;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                generatedId = executeInsert(sql, pstmt -> {
+                    pstmt.setString(1, hashedOtp);
+                    pstmt.setInt(2, otp.getCreatorId());
+                    pstmt.setInt(3, otp.getTargetId());
+                    pstmt.setBoolean(4, otp.isUsed());
+                    pstmt.setString(5, otp.getKeyId());
+                    pstmt.setTimestamp(6, otp.getExpiresAt());
+                });
+                break;
+            } catch (DataAccessException e) {
+                if (attempt >= KEY_ID_ATTEMPTS || otp.getKeyId() == null || !isDuplicateKey(e)) {
+                    throw e;
+                }
+                otp.setKeyId(Helpers.generateRandomCode(otp.getKeyId().length(), false));
+            }
+        }
 
         if (generatedId > 0) {
             otp.setId(generatedId);
@@ -107,6 +151,8 @@ public class OneTimePasswords extends Repository<OneTimePassword> {
         otp.setTargetId(rs.getInt("targetID"));
         otp.setUsed(rs.getBoolean("isUsed"));
         otp.setOtpValue(rs.getString("otpValue"));
+        otp.setKeyId(rs.getString("keyId"));
+        otp.setExpiresAt(rs.getTimestamp("expiresAt"));
         return otp;
     }
 
@@ -118,13 +164,15 @@ public class OneTimePasswords extends Repository<OneTimePassword> {
      */
     @Override
     public OneTimePassword update(OneTimePassword otp) {
-        String sql = "UPDATE OneTimePasswords SET creatorID = ?, targetID = ?, isUsed = ?, otpValue = ? WHERE otpID = ?";
+        String sql = "UPDATE OneTimePasswords SET creatorID = ?, targetID = ?, isUsed = ?, otpValue = ?, expiresAt = ? " +
+                "WHERE otpID = ?";
         int rows = executeUpdate(sql, pstmt -> {
             pstmt.setInt(1, otp.getCreatorId());
             pstmt.setInt(2, otp.getTargetId());
             pstmt.setBoolean(3, otp.isUsed());
             pstmt.setString(4, otp.getOtpValue());
-            pstmt.setInt(5, otp.getId());
+            pstmt.setTimestamp(5, otp.getExpiresAt());
+            pstmt.setInt(6, otp.getId());
         });
         return rows > 0 ? otp : null;
     }
@@ -143,43 +191,95 @@ public class OneTimePasswords extends Repository<OneTimePassword> {
     /**
      * Checks if the provided OTP is valid for the given targetID.
      * <pre>
-     * - Selects all OTPs where targetID = ? and isUsed = FALSE.
-     * - For each, if PasswordUtil.verifyPassword(stored, provided) returns true,
-     *   it marks that OTP as used (UPDATE) and returns true.
-     * - Otherwise, returns false.
+     * - Splits the provided value into its key ID and secret.
+     * - Looks up the one unused, unexpired OTP with that key ID for the target.
+     * - Verifies the secret against its hash once; on a match, marks the OTP as used and returns true.
+     * - If no OTP matches the key ID, a decoy hash is verified instead, so the answer takes the same time.
      * </pre>
+     * A value without a key ID is checked against OTPs issued before key IDs existed, which still need one
+     * verification each until they expire.
      *
      * @param targetId    The target user ID associated with the OTP.
      * @param providedOtp The OTP value provided by the user.
      * @return {@code true} if the OTP is valid and successfully marked as used, {@code false} otherwise.
      */
     public boolean check(int targetId, String providedOtp) {
-        String sql = "SELECT otpID, otpValue FROM OneTimePasswords WHERE targetID = ? AND isUsed = FALSE";
+        int dot = providedOtp.indexOf('.');
+        if (dot < 0) {
+            return checkLegacy(targetId, providedOtp);
+        }
+        String keyId = providedOtp.substring(0, dot);
+        String secret = providedOtp.substring(dot + 1);
 
-        // Helper class to store OTP records.
-        class OTPRecord {
-            final int otpID;
-            final String otpValue;
+        String sql = "SELECT * FROM OneTimePasswords " +
+                "WHERE keyId = ? AND targetID = ? AND isUsed = FALSE AND expiresAt > CURRENT_TIMESTAMP";
+        OneTimePassword match = queryForObject(sql, pstmt -> {
+            pstmt.setString(1, keyId);
+            pstmt.setInt(2, targetId);
+        }, this::build);
 
-            OTPRecord(int id, String value) {
-                this.otpID = id;
-                this.otpValue = value;
-            }
+        if (match == null) {
+            PasswordUtil.verifyPassword(decoyHash(), secret);
+            return false;
         }
-        // Query for all OTP records for the target.
-        List<OTPRecord> otpRecords = queryForList(sql,
+        return PasswordUtil.verifyPassword(match.getOtpValue(), secret) && markUsed(match.getId());
+    }
+
+    /**
+     * Deletes OTPs that have been used or have expired.
+     *
+     * @return The number of OTPs deleted.
+     */
+    public int deleteUsedAndExpired() {
+        String sql = "DELETE FROM OneTimePasswords WHERE isUsed = TRUE OR expiresAt <= CURRENT_TIMESTAMP";
+        return executeUpdate(sql, pstmt -> {
+        });
+    }
+
+    /**
+     * Checks a value against the unexpired OTPs of the target that were issued without a key ID.
+     */
+    private boolean checkLegacy(int targetId, String providedOtp) {
+        String sql = "SELECT * FROM OneTimePasswords " +
+                "WHERE keyId IS NULL AND targetID = ? AND isUsed = FALSE AND expiresAt > CURRENT_TIMESTAMP";
+        List<OneTimePassword> legacy = queryForList(sql,
                 pstmt -> pstmt.setInt(1, targetId),
-                rs -> new OTPRecord(rs.getInt("otpID"), rs.getString("otpValue"))
+                this::build
         );
-        for (OTPRecord record : otpRecords) {
-            if (PasswordUtil.verifyPassword(record.otpValue, providedOtp)) {
-                // Mark this OTP as used
-                String updateSql = "UPDATE OneTimePasswords SET isUsed = TRUE WHERE otpID = ?";
-                int rows = executeUpdate(updateSql, pstmt -> pstmt.setInt(1, record.otpID));
-                return rows > 0;
+        for (OneTimePassword otp : legacy) {
+            if (PasswordUtil.verifyPassword(otp.getOtpValue(), providedOtp)) {
+                return markUsed(otp.getId());
             }
         }
         return false;
     }
 
-}
\ No newline at end of file
+    /**
+     * Marks an OTP as used, unless it already is.
+     *
+     * @return {@code true} if this call used it.
+     */
+    private boolean markUsed(int otpId) {
+        String sql = "UPDATE OneTimePasswords SET isUsed = TRUE WHERE otpID = ? AND isUsed = FALSE";
+        return executeUpdate(sql, pstmt -> pstmt.setInt(1, otpId)) > 0;
+    }
+
+    /**
+     * Checks whether a failed write was rejected by a unique index.
+     */
+    private static boolean isDuplicateKey(DataAccessException e) {
+        return e.getCause() instanceof SQLException sql && DUPLICATE_KEY.equals(sql.getSQLState());
+    }
+
+    /**
+     * Returns a hash of a random secret, created on first use.
+     */
+    private static String decoyHash() {
+        String hash = decoyHash;
+        if (hash == null) {
+            hash = PasswordUtil.hashPassword(Helpers.generateRandomCode(10, true));
+            decoyHash = hash;
+        }
+        return hash;
+    }
+}
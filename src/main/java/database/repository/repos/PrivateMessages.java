@@ -2,6 +2,7 @@ package database.repository.repos;
 
 import database.model.entities.Message;
 import database.model.entities.PrivateMessage;
+import database.repository.Page;
 import database.repository.Repository;
 import utils.SearchUtil;
 import validators.EntityValidator;
@@ -9,6 +10,7 @@ import validators.EntityValidator;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
 
 /**
@@ -24,6 +26,7 @@ import java.util.List;
  */
 public class PrivateMessages extends Repository<PrivateMessage> {
     private final Messages messagesRepo;
+    private final ReadMessages readMessagesRepo;
     private final String baseJoinQuery =
             "SELECT pm.privateMessageID, pm.questionID, pm.parentPrivateMessageID, " +
                     "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt " +
@@ -40,6 +43,7 @@ public class PrivateMessages extends Repository<PrivateMessage> {
     public PrivateMessages(Connection connection) throws SQLException {
         super(connection);
         this.messagesRepo = new Messages(connection);
+        this.readMessagesRepo = new ReadMessages(connection);
     }
 
     /**
@@ -64,24 +68,22 @@ public class PrivateMessages extends Repository<PrivateMessage> {
 
         messagesRepo.create(msg); // inserts the message first
 
-        String sql = "INSERT INTO PrivateMessages (userID, content, createdAt, messageID, questionID, parentPrivateMessageID) VALUES (?, ?, ?, ?, ?, ?)";
+        // Sender, body and timestamp live only in Messages
+        String sql = "INSERT INTO PrivateMessages (messageID, questionID, parentPrivateMessageID) VALUES (?, ?, ?)";
 
         int generatedId = executeInsert(sql, pstmt -> {
-            pstmt.setInt(1, msg.getUserId());
-            pstmt.setString(2, msg.getContent());
-            pstmt.setTimestamp(3, msg.getCreatedAt());
-            pstmt.setInt(4, msg.getId());
+            pstmt.setInt(1, msg.getId());
 
             if (pm.getQuestionId() != null) {
-                pstmt.setInt(5, pm.getQuestionId());
+                pstmt.setInt(2, pm.getQuestionId());
             } else {
-                pstmt.setNull(5, java.sql.Types.INTEGER);
+                pstmt.setNull(2, java.sql.Types.INTEGER);
             }
 
             if (pm.getParentPrivateMessageId() != null) {
-                pstmt.setInt(6, pm.getParentPrivateMessageId());
+                pstmt.setInt(3, pm.getParentPrivateMessageId());
             } else {
-                pstmt.setNull(6, java.sql.Types.INTEGER);
+                pstmt.setNull(3, java.sql.Types.INTEGER);
             }
         });
 
@@ -89,6 +91,7 @@ public class PrivateMessages extends Repository<PrivateMessage> {
         if (generatedId > 0) {
             pm.setId(generatedId);
         }
+        readMessagesRepo.messageDelivered(msg.getId());
 
         return pm;
     }
@@ -137,7 +140,7 @@ public class PrivateMessages extends Repository<PrivateMessage> {
         Message msg = new Message();
         msg.setId(rs.getInt("msg_id"));
         msg.setUserId(rs.getInt("msg_userID"));
-        msg.setContent(rs.getString("msg_content"));
+        messagesRepo.readContent(msg, rs.getString("msg_content"));
         msg.setCreatedAt(rs.getTimestamp("msg_createdAt"));
 
         pm.setMessage(msg);
@@ -204,6 +207,7 @@ public class PrivateMessages extends Repository<PrivateMessage> {
         // Only delete from PrivateMessages; DB cascade can handle Messages if set
         String sql = "DELETE FROM PrivateMessages WHERE privateMessageID = ?";
         executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        ReadMessages.invalidateUnreadCounts(connection);
     }
 
     /**
@@ -226,6 +230,7 @@ public class PrivateMessages extends Repository<PrivateMessage> {
      */
     public List<PrivateMessage> searchPrivateMessages(String keyword) throws Exception {
         List<PrivateMessage> all = getAll();
+        messagesRepo.loadArchived(all.stream().map(PrivateMessage::getMessage).toList());
         return SearchUtil.fullTextSearch(all, keyword,
                 pm -> pm.getMessage().getContent()
         );
@@ -252,4 +257,203 @@ public class PrivateMessages extends Repository<PrivateMessage> {
         String sql = baseJoinQuery + "WHERE pm.questionID = ?";
         return queryForList(sql, pstmt -> pstmt.setInt(1, questionId), this::build);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a whole conversation, starting at a private message and following the first reply at each hop.
+     * <p>
+     * The chain is walked by one recursive query joined to {@code Users} for the sender names, instead of a
+     * reply lookup and a user lookup per message.
+     * </p>
+     *
+     * @param rootId The ID of the private message that starts the conversation.
+     * @return The messages in conversation order, or an empty list if the root does not exist.
+     */
+    public List<ConversationEntry> getConversation(int rootId) {
+        String sql = "WITH RECURSIVE chain(privateMessageID, hop) AS (" +
+                "    SELECT privateMessageID, 0 FROM PrivateMessages WHERE privateMessageID = ? " +
+                "  UNION ALL " +
+                "    SELECT r.privateMessageID, c.hop + 1 FROM PrivateMessages r JOIN chain c " +
+                "    ON r.privateMessageID = (SELECT MIN(x.privateMessageID) FROM PrivateMessages x " +
+                "                              WHERE x.parentPrivateMessageID = c.privateMessageID)" +
+                ") " +
+                "SELECT pm.privateMessageID, pm.questionID, pm.parentPrivateMessageID, " +
+                "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt, " +
+                "       u.userName AS sender_userName " +
+                "FROM chain c " +
+                "JOIN PrivateMessages pm ON pm.privateMessageID = c.privateMessageID " +
+                "JOIN Messages m ON pm.messageID = m.messageID " +
+                "LEFT JOIN Users u ON m.userID = u.userID " +
+                "ORDER BY c.hop";
+        return queryForList(sql, pstmt -> pstmt.setInt(1, rootId),
+                rs -> new ConversationEntry(build(rs), rs.getString("sender_userName")));
+    }
+
+    /**
+     * Returns a page of the conversations opened on a user's questions, most recently active first.
+     * <p>
+     * One statement finds the user's questions, the private messages that open a conversation on them, and every
+     * reply below those, then groups by conversation for its latest activity and the number of messages from
+     * others that the user has not read.
+     * </p>
+     *
+     * @param userId The ID of the question owner.
+     * @param page   The page of conversations to return.
+     * @return The conversations on the requested page.
+     */
+    public List<InboxEntry> inboxForOwner(int userId, Page page) {
+        String sql = "WITH RECURSIVE conv(rootID, privateMessageID) AS (" +
+                "    SELECT pm.privateMessageID, pm.privateMessageID FROM PrivateMessages pm " +
+                "    JOIN Questions q ON pm.questionID = q.questionID " +
+                "    JOIN Messages qm ON q.messageID = qm.messageID " +
+                "    WHERE qm.userID = ? " +
+                "  UNION ALL " +
+                "    SELECT c.rootID, r.privateMessageID FROM PrivateMessages r " +
+                "    JOIN conv c ON r.parentPrivateMessageID = c.privateMessageID" +
+                "), stats(rootID, lastActivityAt, unreadCount) AS (" +
+                "    SELECT c.rootID, MAX(cm.createdAt), " +
+                "           COUNT(CASE WHEN cm.userID <> ? AND rm.messageID IS NULL THEN 1 END) " +
+                "    FROM conv c " +
+                "    JOIN PrivateMessages cp ON cp.privateMessageID = c.privateMessageID " +
+                "    JOIN Messages cm ON cp.messageID = cm.messageID " +
+                "    LEFT JOIN ReadMessages rm ON rm.userID = ? AND rm.messageID = cm.messageID " +
+                "    GROUP BY c.rootID" +
+                ") " +
+                "SELECT pm.privateMessageID, pm.questionID, pm.parentPrivateMessageID, " +
+                "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt, " +
+                "       u.userName AS sender_userName, q.title AS question_title, s.lastActivityAt, s.unreadCount " +
+                "FROM stats s " +
+                "JOIN PrivateMessages pm ON pm.privateMessageID = s.rootID " +
+                "JOIN Messages m ON pm.messageID = m.messageID " +
+                "JOIN Questions q ON pm.questionID = q.questionID " +
+                "LEFT JOIN Users u ON m.userID = u.userID " +
+                "ORDER BY s.lastActivityAt DESC, pm.privateMessageID DESC LIMIT ? OFFSET ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+            pstmt.setInt(3, userId);
+            pstmt.setInt(4, page.getSize());
+            pstmt.setInt(5, page.getOffset());
+        }, rs -> new InboxEntry(build(rs), rs.getString("sender_userName"), rs.getString("question_title"),
+                rs.getTimestamp("lastActivityAt"), rs.getInt("unreadCount")));
+    }
+
+    /**
+     * A single message within a conversation returned by {@link #getConversation(int)}.
+     */
+    public static class ConversationEntry {
+        private final PrivateMessage privateMessage;
+        private final String senderUserName;
+
+        /**
+         * Constructs a new {@code ConversationEntry}.
+         *
+         * @param privateMessage The private message.
+         * @param senderUserName The sender's username, or {@code null} if the sender no longer exists.
+         */
+        public ConversationEntry(PrivateMessage privateMessage, String senderUserName) {
+            this.privateMessage = privateMessage;
+            this.senderUserName = senderUserName;
+        }
+
+        /**
+         * Gets the private message.
+         *
+         * @return The private message, with its message.
+         */
+        public PrivateMessage getPrivateMessage() {
+            return privateMessage;
+        }
+
+        /**
+         * Gets the sender's username.
+         *
+         * @return The username, or {@code null} if the sender no longer exists.
+         */
+        public String getSenderUserName() {
+            return senderUserName;
+        }
+    }
+
+    /**
+     * A conversation on one of the user's questions, returned by {@link #inboxForOwner(int, Page)}.
+     */
+    public static class InboxEntry {
+        private final PrivateMessage privateMessage;
+        private final String senderUserName;
+        private final String questionTitle;
+        private final Timestamp lastActivityAt;
+        private final int unreadCount;
+
+        /**
+         * Constructs a new {@code InboxEntry}.
+         *
+         * @param privateMessage The private message that opened the conversation.
+         * @param senderUserName The opener's username, or {@code null} if the sender no longer exists.
+         * @param questionTitle  The title of the question the conversation is about.
+         * @param lastActivityAt When the newest message in the conversation was sent.
+         * @param unreadCount    The number of messages from others the owner has not read.
+         */
+        public InboxEntry(PrivateMessage privateMessage, String senderUserName, String questionTitle,
+                          Timestamp lastActivityAt, int unreadCount) {
+            this.privateMessage = privateMessage;
+            this.senderUserName = senderUserName;
+            this.questionTitle = questionTitle;
+            this.lastActivityAt = lastActivityAt;
+            this.unreadCount = unreadCount;
+        }
+
+        /**
+         * Gets the private message that opened the conversation.
+         *
+         * @return The private message, with its message.
+         */
+        public PrivateMessage getPrivateMessage() {
+            return privateMessage;
+        }
+
+        /**
+         * Gets the username of whoever opened the conversation.
+         *
+         * @return The username, or {@code null} if the sender no longer exists.
+         */
+        public String getSenderUserName() {
+            return senderUserName;
+        }
+
+        /**
+         * Gets the title of the question the conversation is about.
+         *
+         * @return The question title.
+         */
+        public String getQuestionTitle() {
+            return questionTitle;
+        }
+
+        /**
+         * Gets when the newest message in the conversation was sent.
+         *
+         * @return The latest activity time.
+         */
+        public Timestamp getLastActivityAt() {
+            return lastActivityAt;
+        }
+
+        /**
+         * Gets the number of messages from others in the conversation that the owner has not read.
+         *
+         * @return The unread count.
+         */
+        public int getUnreadCount() {
+            return unreadCount;
+        }
+
+        /**
+         * Checks whether the conversation has anything the owner has not read.
+         *
+         * @return {@code true} if at least one message is unread.
+         */
+        public boolean isUnread() {
+            return unreadCount > 0;
+        }
+    }
+}
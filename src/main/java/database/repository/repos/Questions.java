@@ -2,6 +2,7 @@ package database.repository.repos;
 
 import database.model.entities.Message;
 import database.model.entities.Question;
+import database.repository.Page;
 import database.repository.Repository;
 import utils.SearchUtil;
 import validators.EntityValidator;
@@ -9,6 +10,8 @@ import validators.EntityValidator;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,6 +32,33 @@ public class Questions extends Repository<Question> {
                     "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt " +
                     "FROM Questions q " +
                     "JOIN Messages m ON q.messageID = m.messageID ";
+    private final String statsQuery =
+            "SELECT q.questionID, q.title, q.answerCount, q.hasPinned, q.lastActivityAt, " +
+                    "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt, " +
+                    "       u.userName AS author_userName " +
+                    "FROM Questions q " +
+                    "JOIN Messages m ON q.messageID = m.messageID " +
+                    "LEFT JOIN Users u ON m.userID = u.userID ";
+
+    // Recomputes the stats of the questions picked by an appended WHERE on alias q, or of all of them. Replies
+    // count towards activity through the path range of each top-level answer.
+    static final String REFRESH_STATS =
+            "UPDATE Questions q SET " +
+                    "answerCount = (SELECT COUNT(*) FROM Answers a WHERE a.questionID = q.questionID), " +
+                    "hasPinned = EXISTS (SELECT 1 FROM Answers a WHERE a.questionID = q.questionID AND a.isPinned), " +
+                    "lastActivityAt = (SELECT GREATEST(qm.createdAt, COALESCE((" +
+                    "    SELECT MAX(dm.createdAt) FROM Answers a " +
+                    "    JOIN Answers d ON d.path >= a.path AND d.path < LEFT(a.path, LENGTH(a.path) - 1) || '0' " +
+                    "    JOIN Messages dm ON d.messageID = dm.messageID " +
+                    "    WHERE a.questionID = q.questionID), qm.createdAt)) " +
+                    "  FROM Messages qm WHERE qm.messageID = q.messageID) ";
+
+    // Finds the questions whose stats count answers posted in the messages picked by an appended WHERE on alias m.
+    // A reply counts towards the question of its thread root.
+    static final String ANSWERED_IN =
+            "SELECT DISTINCT COALESCE(a.questionID, r.questionID) AS questionID FROM Messages m " +
+                    "JOIN Answers a ON a.messageID = m.messageID " +
+                    "LEFT JOIN Answers r ON r.answerID = CAST(LEFT(a.path, 10) AS INT) ";
 
     /**
      * Constructor for {@code Questions} repository.
@@ -61,10 +91,12 @@ public class Questions extends Repository<Question> {
         }
         messagesRepo.create(msg); // sets msg.id
 
-        String sql = "INSERT INTO Questions (messageID, title) VALUES (?, ?)";
+        String sql = "INSERT INTO Questions (messageID, title, lastActivityAt) " +
+                "VALUES (?, ?, (SELECT createdAt FROM Messages WHERE messageID = ?))";
         int generatedId = executeInsert(sql, pstmt -> {
             pstmt.setInt(1, msg.getId());
             pstmt.setString(2, question.getTitle());
+            pstmt.setInt(3, msg.getId());
         });
         if (generatedId > 0) {
             question.setId(generatedId);
@@ -118,7 +150,7 @@ public class Questions extends Repository<Question> {
         Message msg = new Message();
         msg.setId(rs.getInt("msg_id"));
         msg.setUserId(rs.getInt("msg_userID"));
-        msg.setContent(rs.getString("msg_content"));
+        messagesRepo.readContent(msg, rs.getString("msg_content"));
         msg.setCreatedAt(rs.getTimestamp("msg_createdAt"));
 
         question.setMessage(msg);
@@ -166,6 +198,8 @@ public class Questions extends Repository<Question> {
         // Only delete from Questions; message row is removed by cascade if set up
         String sql = "DELETE FROM Questions WHERE questionID = ?";
         executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        // Answers and private messages on the question go with it
+        ReadMessages.invalidateUnreadCounts(connection);
     }
 
     /**
@@ -192,6 +226,7 @@ public class Questions extends Repository<Question> {
     public List<Question> searchQuestions(String keyword) throws Exception {
         // Basic approach: retrieve all, then do fuzzy filter in-memory
         List<Question> all = getAll();
+        messagesRepo.loadArchived(all.stream().map(Question::getMessage).toList());
         return SearchUtil.fullTextSearch(all, keyword,
                 q -> q.getTitle() + " " + q.getMessage().getContent()
         );
@@ -212,6 +247,8 @@ public class Questions extends Repository<Question> {
     public Question updateQuestionFields(int questionId, String newTitle, String newContent) {
         Question existing = getById(questionId);
         if (existing == null) return null;
+        // update() writes the body back, so an archived one has to be loaded first
+        messagesRepo.loadArchived(existing.getMessage());
         if (newTitle != null) {
             existing.setTitle(newTitle);
         }
@@ -223,13 +260,14 @@ public class Questions extends Repository<Question> {
 
     /**
      * Returns a list of unanswered questions.
+     * <p>
+     * Reads the denormalized {@code answerCount}, so this is an index lookup rather than a join over all answers.
+     * </p>
      *
      * @return A list of {@link Question} objects that do not have associated answers.
      */
     public List<Question> getUnansweredQuestions() {
-        String sql = baseJoinQuery +
-                "LEFT JOIN Answers a ON q.questionID = a.questionID " +
-                "WHERE a.answerID IS NULL";
+        String sql = baseJoinQuery + "WHERE q.answerCount = 0 ORDER BY q.questionID";
         return queryForList(sql, pstmt -> {
         }, this::build);
     }
@@ -237,16 +275,14 @@ public class Questions extends Repository<Question> {
     /**
      * Returns a list of questions that do not have a pinned answer.
      * <p>
-     * This method retrieves questions that either do not have any answers or have answers but none are pinned.
+     * This method retrieves questions that either do not have any answers or have answers but none are pinned,
+     * using the denormalized {@code hasPinned} flag.
      * </p>
      *
      * @return A list of {@link Question} objects that do not have a pinned answer.
      */
     public List<Question> getQuestionsWithoutPinnedAnswer() {
-        String sql = baseJoinQuery +
-                "LEFT JOIN Answers a ON q.questionID = a.questionID " +
-                "GROUP BY q.questionID " +
-                "HAVING COUNT(CASE WHEN a.isPinned = TRUE THEN 1 END) = 0";
+        String sql = baseJoinQuery + "WHERE q.hasPinned = FALSE ORDER BY q.questionID";
         return queryForList(sql, pstmt -> {
         }, this::build);
     }
@@ -258,7 +294,280 @@ public class Questions extends Repository<Question> {
      * @return {@code true} if the question has a pinned answer, {@code false} otherwise.
      */
     public boolean hasPinnedAnswer(int questionId) {
-        String sql = "SELECT COUNT(*) FROM Answers WHERE questionID = ? AND isPinned = TRUE";
+        String sql = "SELECT hasPinned FROM Questions WHERE questionID = ?";
         return queryForBoolean(sql, pstmt -> pstmt.setInt(1, questionId));
     }
-}
\ No newline at end of file
+
+    /**
+     * Recomputes the answer count, pinned flag and latest activity of one question from its answers.
+     * <p>
+     * Called by the {@link Answers} write paths inside their own transaction, so the stats change together with
+     * the answers they describe.
+     * </p>
+     *
+     * @param questionId The ID of the question, or {@code null} to do nothing.
+     */
+    void refreshStats(Integer questionId) {
+        if (questionId == null) {
+            return;
+        }
+        executeUpdate(REFRESH_STATS + "WHERE q.questionID = ?", pstmt -> pstmt.setInt(1, questionId));
+    }
+
+    /**
+     * Recomputes the denormalized stats of every question from the answers table.
+     * <p>
+     * Run once by a schema migration to fill the columns for questions created before they existed, and available
+     * on demand should they ever drift. Safe to run at any time.
+     * </p>
+     *
+     * @return The number of questions refreshed.
+     */
+    public int rebuildStats() {
+        return executeUpdate(REFRESH_STATS, pstmt -> {
+        });
+    }
+
+    /**
+     * Returns a page of questions together with their answer count, pinned status and latest activity.
+     * <p>
+     * The stats are denormalized onto each question, so this is a single indexed read and list views need no
+     * per-question lookups. Questions are returned oldest first.
+     * </p>
+     *
+     * @param filter Which questions to include.
+     * @param page   The page of results to return.
+     * @return The questions on the requested page, with their stats.
+     */
+    public List<QuestionSummary> listWithStats(QuestionFilter filter, Page page) {
+        return listWithStats(QuestionQuery.of(filter), page);
+    }
+
+    /**
+     * Returns a page of the questions matching a query, together with their stats.
+     * <p>
+     * Every condition set on the query is compiled into one SQL statement. Author and date range conditions are
+     * served by {@code idx_messages_user_created}, the answered and pinned conditions by the indexes on the
+     * denormalized question stats. Questions are returned oldest first.
+     * </p>
+     *
+     * @param query The conditions the questions must meet.
+     * @param page  The page of results to return.
+     * @return The matching questions on the requested page, with their stats.
+     */
+    public List<QuestionSummary> listWithStats(QuestionQuery query, Page page) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (query.authorId != null) {
+            conditions.add("m.userID = ?");
+            params.add(query.authorId);
+        }
+        if (query.answered != null) {
+            conditions.add(query.answered ? "q.answerCount > 0" : "q.answerCount = 0");
+        }
+        if (query.pinned != null) {
+            conditions.add("q.hasPinned = ?");
+            params.add(query.pinned);
+        }
+        if (query.createdFrom != null) {
+            conditions.add("m.createdAt >= ?");
+            params.add(query.createdFrom);
+        }
+        if (query.createdBefore != null) {
+            conditions.add("m.createdAt < ?");
+            params.add(query.createdBefore);
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        String sql = statsQuery + where + "ORDER BY q.questionID ASC LIMIT ? OFFSET ?";
+        return queryForList(sql, pstmt -> {
+            int i = 1;
+            for (Object param : params) {
+                pstmt.setObject(i++, param);
+            }
+            pstmt.setInt(i++, page.getSize());
+            pstmt.setInt(i, page.getOffset());
+        }, rs -> new QuestionSummary(
+                build(rs),
+                rs.getString("author_userName"),
+                rs.getInt("answerCount"),
+                rs.getBoolean("hasPinned"),
+                rs.getTimestamp("lastActivityAt")));
+    }
+
+    /**
+     * Selects which questions {@link #listWithStats(QuestionFilter, Page)} returns.
+     */
+    public enum QuestionFilter {
+        /**
+         * Every question.
+         */
+        ALL,
+        /**
+         * Questions without a pinned answer.
+         */
+        UNRESOLVED,
+        /**
+         * Questions without any answer.
+         */
+        UNANSWERED
+    }
+
+    /**
+     * Conditions for {@link #listWithStats(QuestionQuery, Page)}. Each method returns a new query with one more
+     * condition; conditions left unset do not filter.
+     */
+    public static final class QuestionQuery {
+        private final Integer authorId;
+        private final Boolean answered;
+        private final Boolean pinned;
+        private final Timestamp createdFrom;
+        private final Timestamp createdBefore;
+
+        private QuestionQuery(Integer authorId, Boolean answered, Boolean pinned,
+                              Timestamp createdFrom, Timestamp createdBefore) {
+            this.authorId = authorId;
+            this.answered = answered;
+            this.pinned = pinned;
+            this.createdFrom = createdFrom;
+            this.createdBefore = createdBefore;
+        }
+
+        /**
+         * Creates a query matching every question.
+         *
+         * @return The unfiltered query.
+         */
+        public static QuestionQuery all() {
+            return new QuestionQuery(null, null, null, null, null);
+        }
+
+        /**
+         * Creates the query equivalent to a {@link QuestionFilter}.
+         *
+         * @param filter The filter.
+         * @return The matching query.
+         */
+        public static QuestionQuery of(QuestionFilter filter) {
+            return switch (filter) {
+                case ALL -> all();
+                case UNRESOLVED -> all().pinned(false);
+                case UNANSWERED -> all().answered(false);
+            };
+        }
+
+        /**
+         * Restricts the query to questions asked by one user.
+         *
+         * @param userId The ID of the author.
+         * @return The narrowed query.
+         */
+        public QuestionQuery byAuthor(int userId) {
+            return new QuestionQuery(userId, answered, pinned, createdFrom, createdBefore);
+        }
+
+        /**
+         * Restricts the query to questions with, or without, any answer.
+         *
+         * @param answered {@code true} for answered questions, {@code false} for unanswered ones.
+         * @return The narrowed query.
+         */
+        public QuestionQuery answered(boolean answered) {
+            return new QuestionQuery(authorId, answered, pinned, createdFrom, createdBefore);
+        }
+
+        /**
+         * Restricts the query to questions with, or without, a pinned answer.
+         *
+         * @param pinned {@code true} for resolved questions, {@code false} for unresolved ones.
+         * @return The narrowed query.
+         */
+        public QuestionQuery pinned(boolean pinned) {
+            return new QuestionQuery(authorId, answered, pinned, createdFrom, createdBefore);
+        }
+
+        /**
+         * Restricts the query to questions asked within a time range.
+         *
+         * @param from   The inclusive start, or {@code null} for no lower bound.
+         * @param before The exclusive end, or {@code null} for no upper bound.
+         * @return The narrowed query.
+         */
+        public QuestionQuery createdBetween(Timestamp from, Timestamp before) {
+            return new QuestionQuery(authorId, answered, pinned, from, before);
+        }
+    }
+
+    /**
+     * A question together with the stats returned by {@link #listWithStats(QuestionFilter, Page)}.
+     */
+    public static class QuestionSummary {
+        private final Question question;
+        private final String authorUserName;
+        private final int answerCount;
+        private final boolean pinned;
+        private final Timestamp lastActivityAt;
+
+        /**
+         * Constructs a new {@code QuestionSummary}.
+         *
+         * @param question       The question.
+         * @param authorUserName The author's username, or {@code null} if the author no longer exists.
+         * @param answerCount    The number of top-level answers.
+         * @param pinned         Whether one of the answers is pinned.
+         * @param lastActivityAt When the question or its newest answer or reply was posted.
+         */
+        public QuestionSummary(Question question, String authorUserName, int answerCount, boolean pinned,
+                               Timestamp lastActivityAt) {
+            this.question = question;
+            this.authorUserName = authorUserName;
+            this.answerCount = answerCount;
+            this.pinned = pinned;
+            this.lastActivityAt = lastActivityAt;
+        }
+
+        /**
+         * Gets the question.
+         *
+         * @return The question, with its message.
+         */
+        public Question getQuestion() {
+            return question;
+        }
+
+        /**
+         * Gets the author's username.
+         *
+         * @return The username, or {@code null} if the author no longer exists.
+         */
+        public String getAuthorUserName() {
+            return authorUserName;
+        }
+
+        /**
+         * Gets the number of top-level answers.
+         *
+         * @return The answer count.
+         */
+        public int getAnswerCount() {
+            return answerCount;
+        }
+
+        /**
+         * Checks whether one of the answers is pinned.
+         *
+         * @return {@code true} if the question is resolved.
+         */
+        public boolean isPinned() {
+            return pinned;
+        }
+
+        /**
+         * Gets when the question or its newest answer or reply was posted.
+         *
+         * @return The latest activity time.
+         */
+        public Timestamp getLastActivityAt() {
+            return lastActivityAt;
+        }
+    }
+}
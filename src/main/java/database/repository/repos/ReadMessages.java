@@ -1,13 +1,23 @@
 package database.repository.repos;
 
 import database.model.BaseEntity;
+import database.repository.ConnectionCache;
 import database.repository.Repository;
+import utils.CompressedBitmap;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Repository class for managing read messages.
@@ -16,11 +26,73 @@ import java.util.List;
  * as read or unread, finding read messages for a user, and performing basic CRUD operations.
  * The repository uses a pivot model with composite keys for the "userID" and "messageID".
  * </p>
+ * <p>
+ * Read-state lookups for users seen recently are served from a {@link ConnectionCache} holding each user's read
+ * message ids as a {@link CompressedBitmap}. A user's first lookup is answered by an indexed SQL intersection; a
+ * further lookup loads their whole set, which is then kept current by every write in this class (which still goes
+ * to the table first) and evicted least-recently-used once the cache exceeds its memory budget. Rows removed by
+ * cascade leave stale bits behind; they never match a new message, because H2 does not reuse identity values and
+ * the cache is dropped along with the data when the database is cleared.
+ * </p>
+ * <p>
+ * It also keeps per-user unread counters, broken down by {@link Conversation}. A user's counters are built from
+ * one aggregate query on first use, adjusted as messages are delivered to them and as their read state changes,
+ * and rebuilt from SQL once they are older than the reconciliation interval.
+ * </p>
  *
  * @author Dhruv
  * @see Repository
  */
 public class ReadMessages extends Repository<ReadMessages.ReadMessagePivot> {
+    // Upper bound on ids bound into a single IN (...) list
+    private static final int CHUNK_SIZE = 500;
+    // Approximate heap the read-set cache may use before evicting
+    private static final long CACHE_BUDGET_BYTES = 8L * 1024 * 1024;
+
+    // Users remembered as having looked something up, so their next lookup loads the read set
+    private static final int MAX_SEEN_USERS = 1024;
+
+    private static final ConnectionCache.Key<ReadSets> READ_SETS = new ConnectionCache.Key<>("readMessages.readSets");
+
+    // Users whose unread counters are kept in memory at once
+    private static final int MAX_COUNTED_USERS = 1024;
+    // Counters older than this are rebuilt from SQL on their next read
+    private static final long RECONCILE_INTERVAL_MS = 5 * 60 * 1000;
+
+    // userID -> unread counters, least recently used first
+    private static final ConnectionCache.Key<Map<Integer, UnreadCounts>> UNREAD_COUNTS =
+            new ConnectionCache.Key<>("readMessages.unreadCounts");
+
+    /*
+     * Every message someone else can have unread, with who receives it and the conversation it belongs to:
+     * staff chats go to the other side of the chat, top-level answers and private messages go to the
+     * question's author, and replies go to the author of the answer or private message replied to.
+     */
+    private static final String DELIVERIES =
+            "SELECT m.messageID, m.userID AS senderID, " +
+                    "CASE WHEN m.userID = sm.userID THEN sm.staffID ELSE sm.userID END AS recipientID, " +
+                    Conversation.Kind.STAFF_CHAT.ordinal() + " AS kind, m.userID AS conversationID " +
+                    "FROM StaffMessages sm JOIN Messages m ON m.messageID = sm.messageID " +
+                    "UNION ALL " +
+                    "SELECT m.messageID, m.userID, qm.userID, " + Conversation.Kind.QUESTION.ordinal() + ", a.questionID " +
+                    "FROM Answers a JOIN Messages m ON m.messageID = a.messageID " +
+                    "JOIN Questions q ON q.questionID = a.questionID JOIN Messages qm ON qm.messageID = q.messageID " +
+                    "WHERE a.parentAnswerID IS NULL " +
+                    "UNION ALL " +
+                    "SELECT m.messageID, m.userID, pam.userID, " + Conversation.Kind.ANSWER.ordinal() + ", a.parentAnswerID " +
+                    "FROM Answers a JOIN Messages m ON m.messageID = a.messageID " +
+                    "JOIN Answers pa ON pa.answerID = a.parentAnswerID JOIN Messages pam ON pam.messageID = pa.messageID " +
+                    "UNION ALL " +
+                    "SELECT m.messageID, m.userID, qm.userID, " + Conversation.Kind.QUESTION.ordinal() + ", pm.questionID " +
+                    "FROM PrivateMessages pm JOIN Messages m ON m.messageID = pm.messageID " +
+                    "JOIN Questions q ON q.questionID = pm.questionID JOIN Messages qm ON qm.messageID = q.messageID " +
+                    "WHERE pm.parentPrivateMessageID IS NULL " +
+                    "UNION ALL " +
+                    "SELECT m.messageID, m.userID, ppm_m.userID, " + Conversation.Kind.PRIVATE_MESSAGE.ordinal() + ", " +
+                    "pm.parentPrivateMessageID " +
+                    "FROM PrivateMessages pm JOIN Messages m ON m.messageID = pm.messageID " +
+                    "JOIN PrivateMessages ppm ON ppm.privateMessageID = pm.parentPrivateMessageID " +
+                    "JOIN Messages ppm_m ON ppm_m.messageID = ppm.messageID";
 
     /**
      * Constructor for {@code ReadMessages} repository.
@@ -45,6 +117,7 @@ public class ReadMessages extends Repository<ReadMessages.ReadMessagePivot> {
             pstmt.setInt(1, pivot.getUserId());
             pstmt.setInt(2, pivot.getMessageId());
         });
+        cacheUpdate(pivot.getUserId(), List.of(pivot.getMessageId()), true);
         return pivot;
     }
 
@@ -135,32 +208,68 @@ public class ReadMessages extends Repository<ReadMessages.ReadMessagePivot> {
      */
     public void deleteByCompositeKey(int userId, int messageId) {
         String sql = "DELETE FROM ReadMessages WHERE userID = ? AND messageID = ?";
-        executeUpdate(sql, pstmt -> {
+        int rows = executeUpdate(sql, pstmt -> {
             pstmt.setInt(1, userId);
             pstmt.setInt(2, messageId);
         });
+        if (rows > 0) {
+            cacheUpdate(userId, List.of(messageId), false);
+        }
     }
 
     /**
      * Marks a message as read for a specific user.
+     * <p>
+     * Marking a message that is already read is a no-op.
+     * </p>
      *
      * @param userId    The ID of the user.
      * @param messageId The ID of the message.
      */
     public void markAsRead(int userId, int messageId) {
-        create(new ReadMessagePivot(userId, messageId));
+        markAsRead(userId, List.of(messageId));
     }
 
     /**
      * Marks multiple messages as read for a specific user.
+     * <p>
+     * The ids are inserted set-based, one {@code INSERT ... SELECT} per chunk of {@value #CHUNK_SIZE}, all in one
+     * transaction. Messages that are already read, duplicate ids and ids of messages that no longer exist are
+     * skipped, so the call is idempotent.
+     * </p>
      *
      * @param userId     The ID of the user.
      * @param messageIds A list of message IDs to be marked as read.
+     * @return The number of messages that were newly marked as read.
      */
-    public void markAsRead(int userId, List<Integer> messageIds) {
-        for (int messageId : messageIds) {
-            create(new ReadMessagePivot(userId, messageId));
+    public int markAsRead(int userId, List<Integer> messageIds) {
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(messageIds));
+        if (ids.isEmpty()) {
+            return 0;
         }
+        List<Integer> inserted = inTransaction(() -> {
+            List<Integer> changed = new ArrayList<>();
+            for (List<Integer> chunk : chunks(ids)) {
+                // Reading the inserted ids back tells the cache exactly which rows were added
+                String sql = "SELECT messageID FROM FINAL TABLE (" +
+                        "INSERT INTO ReadMessages (userID, messageID) " +
+                        "SELECT ?, m.messageID FROM Messages m " +
+                        "WHERE m.messageID IN (" + placeholders(chunk.size()) + ") " +
+                        "AND NOT EXISTS (SELECT 1 FROM ReadMessages rm " +
+                        "WHERE rm.userID = ? AND rm.messageID = m.messageID))";
+                changed.addAll(queryForList(sql, pstmt -> {
+                    int i = 1;
+                    pstmt.setInt(i++, userId);
+                    for (int messageId : chunk) {
+                        pstmt.setInt(i++, messageId);
+                    }
+                    pstmt.setInt(i, userId);
+                }, rs -> rs.getInt("messageID")));
+            }
+            return changed;
+        });
+        cacheUpdate(userId, inserted, true);
+        return inserted.size();
     }
 
     /**
@@ -175,34 +284,489 @@ public class ReadMessages extends Repository<ReadMessages.ReadMessagePivot> {
 
     /**
      * Marks multiple messages as unread for a specific user.
+     * <p>
+     * Issues one {@code DELETE ... IN (...)} per chunk of {@value #CHUNK_SIZE} ids, all in one transaction.
+     * Messages that are not read are ignored.
+     * </p>
      *
      * @param userId     The ID of the user.
      * @param messageIds A list of message IDs to be marked as unread.
+     * @return The number of messages that were marked as unread.
      */
-    public void markAsUnread(int userId, List<Integer> messageIds) {
-        for (int messageId : messageIds) {
-            deleteByCompositeKey(userId, messageId);
+    public int markAsUnread(int userId, List<Integer> messageIds) {
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(messageIds));
+        if (ids.isEmpty()) {
+            return 0;
         }
+        List<Integer> deleted = inTransaction(() -> {
+            List<Integer> changed = new ArrayList<>();
+            for (List<Integer> chunk : chunks(ids)) {
+                String sql = "SELECT messageID FROM OLD TABLE (" +
+                        "DELETE FROM ReadMessages WHERE userID = ? " +
+                        "AND messageID IN (" + placeholders(chunk.size()) + "))";
+                changed.addAll(queryForList(sql, pstmt -> {
+                    int i = 1;
+                    pstmt.setInt(i++, userId);
+                    for (int messageId : chunk) {
+                        pstmt.setInt(i++, messageId);
+                    }
+                }, rs -> rs.getInt("messageID")));
+            }
+            return changed;
+        });
+        cacheUpdate(userId, deleted, false);
+        return deleted.size();
+    }
+
+    /**
+     * Checks whether a user has read a message.
+     *
+     * @param userId    The ID of the user.
+     * @param messageId The ID of the message.
+     * @return {@code true} if the message has been read by the user.
+     */
+    public boolean isRead(int userId, int messageId) {
+        return !findReadMessages(userId, List.of(messageId)).isEmpty();
     }
 
     /**
      * Finds messages that have been read by a specific user from a list of message IDs.
+     * <p>
+     * Answered from the user's cached read set when there is one. Otherwise the intersection is computed by H2 on
+     * the {@code (userID, messageID)} primary key, with the candidate ids bound as a single {@code INT ARRAY}
+     * parameter.
+     * </p>
      *
      * @param userId     The ID of the user.
      * @param messageIds A list of message IDs to check for read status.
      * @return A list of message IDs that have been read by the user.
      */
     public List<Integer> findReadMessages(int userId, List<Integer> messageIds) {
-        List<ReadMessagePivot> userRead = getAllByUser(userId);
+        if (messageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        BitSet mask = cachedMask(userId, messageIds);
+        if (mask == null) {
+            return queryReadMessages(userId, messageIds);
+        }
         List<Integer> result = new ArrayList<>();
-        for (ReadMessagePivot pivot : userRead) {
-            if (messageIds.contains(pivot.getMessageId())) {
-                result.add(pivot.getMessageId());
-            }
+        for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+            result.add(messageIds.get(i));
         }
         return result;
     }
 
+    /**
+     * Returns the read state of a list of messages as a bitset aligned with the list.
+     * <p>
+     * Bit {@code i} is set when {@code messageIds.get(i)} has been read by the user, so callers rendering a page of
+     * messages can test each item in constant time.
+     * </p>
+     *
+     * @param userId     The ID of the user.
+     * @param messageIds The message IDs to check, in display order.
+     * @return A {@link BitSet} with one bit per requested id.
+     */
+    public BitSet readMask(int userId, List<Integer> messageIds) {
+        BitSet mask = messageIds.isEmpty() ? new BitSet() : cachedMask(userId, messageIds);
+        if (mask == null) {
+            mask = new BitSet(messageIds.size());
+            // Not findReadMessages: it would ask the cache again, which loads the set on the second lookup
+            Set<Integer> read = new HashSet<>(queryReadMessages(userId, messageIds));
+            for (int i = 0; i < messageIds.size(); i++) {
+                if (read.contains(messageIds.get(i))) {
+                    mask.set(i);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Reads which of the given messages a user has read straight from the table, bypassing the cache.
+     */
+    private List<Integer> queryReadMessages(int userId, List<Integer> messageIds) {
+        String sql = "SELECT messageID FROM ReadMessages WHERE userID = ? AND messageID = ANY(?)";
+        return queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setArray(2, connection.createArrayOf("INTEGER", messageIds.toArray()));
+        }, rs -> rs.getInt("messageID"));
+    }
+
+    /**
+     * Returns the approximate heap used by a user's cached read set.
+     *
+     * @param userId The ID of the user.
+     * @return The size in bytes, or {@code 0} if the user's set is not cached.
+     */
+    public long cachedBytes(int userId) {
+        ReadSets sets = readSets();
+        synchronized (sets) {
+            CompressedBitmap read = sets.byUser.get(userId);
+            return read == null ? 0 : read.sizeInBytes();
+        }
+    }
+
+    /**
+     * Returns the approximate heap used by all cached read sets.
+     *
+     * @return The size in bytes.
+     */
+    public long cachedBytes() {
+        ReadSets sets = readSets();
+        synchronized (sets) {
+            return sets.bytes;
+        }
+    }
+
+    /**
+     * Returns how many messages delivered to the user they have not read yet.
+     *
+     * @param userId The ID of the user.
+     * @return The number of unread messages.
+     */
+    public int unreadCount(int userId) {
+        Map<Integer, UnreadCounts> counted = unreadCounts();
+        synchronized (counted) {
+            return unreadCounts(counted, userId).total;
+        }
+    }
+
+    /**
+     * Returns the user's unread messages counted per conversation. Conversations with nothing unread are omitted.
+     *
+     * @param userId The ID of the user.
+     * @return An unmodifiable map from {@link Conversation} to its unread count.
+     */
+    public Map<Conversation, Integer> unreadByConversation(int userId) {
+        Map<Integer, UnreadCounts> counted = unreadCounts();
+        synchronized (counted) {
+            return Map.copyOf(unreadCounts(counted, userId).byConversation);
+        }
+    }
+
+    /**
+     * Counts a newly created message for its recipient, if the recipient's counters are in memory.
+     * <p>
+     * Called by the repositories that create deliverable messages once the row is in place.
+     * </p>
+     *
+     * @param messageId The ID of the created message.
+     */
+    void messageDelivered(int messageId) {
+        Map<Integer, UnreadCounts> counted = cache().getIfPresent(UNREAD_COUNTS);
+        if (counted == null) {
+            return;
+        }
+        synchronized (counted) {
+            if (counted.isEmpty()) {
+                return;
+            }
+        }
+        String sql = "SELECT d.recipientID, d.kind, d.conversationID FROM (" + DELIVERIES + ") d " +
+                "WHERE d.messageID = ? AND d.senderID <> d.recipientID";
+        queryForList(sql, pstmt -> pstmt.setInt(1, messageId), rs -> {
+            int recipientId = rs.getInt("recipientID");
+            Conversation conversation = new Conversation(
+                    Conversation.Kind.values()[rs.getInt("kind")], rs.getInt("conversationID"));
+            synchronized (counted) {
+                UnreadCounts counts = counted.get(recipientId);
+                if (counts != null) {
+                    counts.add(conversation, 1);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops every user's unread counters so they are rebuilt on next use.
+     * <p>
+     * Needed when deliverable messages disappear, since deletes cascade without passing through this class.
+     * </p>
+     *
+     * @param connection The connection the counters belong to.
+     */
+    static void invalidateUnreadCounts(Connection connection) {
+        ConnectionCache.of(connection).remove(UNREAD_COUNTS);
+    }
+
+    /**
+     * Returns this connection's unread counters, keyed by user.
+     */
+    private Map<Integer, UnreadCounts> unreadCounts() {
+        return cache().get(UNREAD_COUNTS, () -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, UnreadCounts> eldest) {
+                return size() > MAX_COUNTED_USERS;
+            }
+        });
+    }
+
+    /**
+     * Returns the user's counters, rebuilding them from SQL when missing or due for reconciliation.
+     * Callers must hold the lock of {@code counted}.
+     */
+    private UnreadCounts unreadCounts(Map<Integer, UnreadCounts> counted, int userId) {
+        UnreadCounts counts = counted.get(userId);
+        if (counts == null || System.currentTimeMillis() - counts.loadedAt > RECONCILE_INTERVAL_MS) {
+            UnreadCounts loaded = new UnreadCounts();
+            String sql = "SELECT d.kind, d.conversationID, COUNT(*) AS cnt FROM (" + DELIVERIES + ") d " +
+                    "WHERE d.recipientID = ? AND d.senderID <> d.recipientID " +
+                    "AND NOT EXISTS (SELECT 1 FROM ReadMessages rm WHERE rm.userID = ? AND rm.messageID = d.messageID) " +
+                    "GROUP BY d.kind, d.conversationID";
+            queryForList(sql, pstmt -> {
+                pstmt.setInt(1, userId);
+                pstmt.setInt(2, userId);
+            }, rs -> {
+                loaded.add(new Conversation(Conversation.Kind.values()[rs.getInt("kind")],
+                        rs.getInt("conversationID")), rs.getInt("cnt"));
+                return null;
+            });
+            counted.put(userId, loaded);
+            counts = loaded;
+        }
+        return counts;
+    }
+
+    /**
+     * Moves the given messages in or out of the user's unread counters, if those are in memory. Only messages
+     * actually delivered to the user are counted.
+     */
+    private void adjustUnread(int userId, List<Integer> messageIds, int delta) {
+        Map<Integer, UnreadCounts> counted = cache().getIfPresent(UNREAD_COUNTS);
+        if (counted == null) {
+            return;
+        }
+        synchronized (counted) {
+            if (!counted.containsKey(userId)) {
+                return;
+            }
+        }
+        String sql = "SELECT d.kind, d.conversationID FROM (" + DELIVERIES + ") d " +
+                "WHERE d.recipientID = ? AND d.senderID <> d.recipientID AND d.messageID = ANY(?)";
+        List<Conversation> affected = queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setArray(2, connection.createArrayOf("INTEGER", messageIds.toArray()));
+        }, rs -> new Conversation(Conversation.Kind.values()[rs.getInt("kind")], rs.getInt("conversationID")));
+        synchronized (counted) {
+            UnreadCounts counts = counted.get(userId);
+            if (counts != null) {
+                for (Conversation conversation : affected) {
+                    counts.add(conversation, delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the read state of the ids from the user's cached read set, or {@code null} if the user is cold.
+     * <p>
+     * A user with no cached set is remembered on their first lookup, which the caller answers with SQL; their
+     * next lookup loads the set from the table.
+     * </p>
+     */
+    private BitSet cachedMask(int userId, List<Integer> messageIds) {
+        ReadSets sets = readSets();
+        synchronized (sets) {
+            CompressedBitmap read = sets.byUser.get(userId);
+            if (read == null) {
+                if (sets.seen.put(userId, Boolean.TRUE) == null) {
+                    return null;
+                }
+                read = new CompressedBitmap();
+                CompressedBitmap loaded = read;
+                // Ascending ids let the bitmap append instead of insert
+                queryForList("SELECT messageID FROM ReadMessages WHERE userID = ? ORDER BY messageID",
+                        pstmt -> pstmt.setInt(1, userId),
+                        rs -> {
+                            loaded.add(rs.getInt("messageID"));
+                            return null;
+                        });
+                sets.byUser.put(userId, loaded);
+                sets.bytes += loaded.sizeInBytes();
+                sets.evict();
+            }
+            BitSet mask = new BitSet(messageIds.size());
+            for (int i = 0; i < messageIds.size(); i++) {
+                if (read.contains(messageIds.get(i))) {
+                    mask.set(i);
+                }
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Returns this connection's read-set cache.
+     */
+    private ReadSets readSets() {
+        return cache().get(READ_SETS, ReadSets::new);
+    }
+
+    /**
+     * Applies committed writes to the user's cached read set and unread counters. Anything not cached is left to
+     * load lazily.
+     */
+    private void cacheUpdate(int userId, List<Integer> messageIds, boolean read) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        adjustUnread(userId, messageIds, read ? -1 : 1);
+        ReadSets sets = cache().getIfPresent(READ_SETS);
+        if (sets == null) {
+            return;
+        }
+        synchronized (sets) {
+            CompressedBitmap set = sets.byUser.get(userId);
+            if (set == null) {
+                return;
+            }
+            sets.bytes -= set.sizeInBytes();
+            for (int messageId : messageIds) {
+                if (read) {
+                    set.add(messageId);
+                } else {
+                    set.remove(messageId);
+                }
+            }
+            sets.bytes += set.sizeInBytes();
+            sets.evict();
+        }
+    }
+
+    /**
+     * Splits the ids into consecutive sublists of at most {@value #CHUNK_SIZE} elements.
+     */
+    private static List<List<Integer>> chunks(List<Integer> ids) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Identifies what a user's unread messages are attached to.
+     */
+    public static final class Conversation {
+        private final Kind kind;
+        private final int id;
+
+        /**
+         * Constructs a new {@code Conversation}.
+         *
+         * @param kind The kind of conversation.
+         * @param id   The ID of the chat partner, question, answer or private message, depending on the kind.
+         */
+        public Conversation(Kind kind, int id) {
+            this.kind = kind;
+            this.id = id;
+        }
+
+        /**
+         * Gets the kind of conversation.
+         *
+         * @return The kind.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the ID the conversation is keyed by; see {@link Kind}.
+         *
+         * @return The ID.
+         */
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Conversation other && kind == other.kind && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + id;
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + id;
+        }
+
+        /**
+         * The kinds of conversation a user receives messages in.
+         */
+        public enum Kind {
+            /**
+             * A staff chat, keyed by the other participant's user ID.
+             */
+            STAFF_CHAT,
+            /**
+             * Answers and private messages on the user's question, keyed by question ID.
+             */
+            QUESTION,
+            /**
+             * Replies to the user's answer, keyed by answer ID.
+             */
+            ANSWER,
+            /**
+             * Replies to the user's private message, keyed by private message ID.
+             */
+            PRIVATE_MESSAGE
+        }
+    }
+
+    /**
+     * The cached read sets of one connection. Guarded by its own monitor.
+     */
+    private static final class ReadSets {
+        // userID -> read message ids, in access order so the eldest entry is the least recently used
+        private final Map<Integer, CompressedBitmap> byUser = new LinkedHashMap<>(16, 0.75f, true);
+        // Users with one SQL-answered lookup behind them
+        private final Map<Integer, Boolean> seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                return size() > MAX_SEEN_USERS;
+            }
+        };
+        private long bytes;
+
+        /**
+         * Drops least recently used sets until the cache fits its budget, always keeping the most recent one.
+         */
+        private void evict() {
+            Iterator<CompressedBitmap> eldest = byUser.values().iterator();
+            while (bytes > CACHE_BUDGET_BYTES && byUser.size() > 1) {
+                bytes -= eldest.next().sizeInBytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * A user's unread counters. Guarded by the lock of the map holding them.
+     */
+    private static final class UnreadCounts {
+        private final Map<Conversation, Integer> byConversation = new HashMap<>();
+        private final long loadedAt = System.currentTimeMillis();
+        private int total;
+
+        private void add(Conversation conversation, int delta) {
+            int before = byConversation.getOrDefault(conversation, 0);
+            int after = Math.max(0, before + delta);
+            if (after == 0) {
+                byConversation.remove(conversation);
+            } else {
+                byConversation.put(conversation, after);
+            }
+            total += after - before;
+        }
+    }
+
     /**
      * Represents a pivot between user and message, indicating whether the message has been read.
      */
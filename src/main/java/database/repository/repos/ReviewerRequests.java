@@ -1,7 +1,7 @@
 package database.repository.repos;
 
 import database.model.entities.ReviewerRequest;
-import database.model.entities.User;
+import database.repository.Page;
 import database.repository.Repository;
 import utils.permissions.Roles;
 import utils.permissions.RolesUtil;
@@ -11,7 +11,10 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repository class for managing {@link ReviewerRequest} entities in the database.
@@ -26,7 +29,21 @@ import java.util.List;
  * @see ReviewerRequest
  */
 public class ReviewerRequests extends Repository<ReviewerRequest> {
+    private static final String COLUMNS =
+            "rr.requestID, rr.userID, rr.instructorID, rr.status, rr.createdAt, rr.updatedAt, " +
+                    Users.joinColumns("rq", "rq_") + ", " +
+                    Users.joinColumns("ins", "ins_") + " ";
+    // The instructor is optional, hence the outer join
+    private static final String USER_JOINS =
+            "JOIN Users rq ON rr.userID = rq.userID " +
+                    "LEFT JOIN Users ins ON rr.instructorID = ins.userID ";
+    // Only requests assigned to an actual instructor may change status
+    private static final String INSTRUCTOR_GUARD =
+            "instructorID IN (SELECT userID FROM Users WHERE BITAND(roles, " + Roles.INSTRUCTOR.getBit() + ") <> 0)";
+
     private final Users usersRepo;
+    // Requester and instructor are joined so build() never has to look them up
+    private final String baseJoinQuery = "SELECT " + COLUMNS + "FROM ReviewerRequests rr " + USER_JOINS;
 
     /**
      * Constructor for {@code ReviewerRequests} repository.
@@ -81,7 +98,7 @@ public class ReviewerRequests extends Repository<ReviewerRequest> {
      */
     @Override
     public ReviewerRequest getById(int id) {
-        String sql = "SELECT * FROM ReviewerRequests WHERE requestID=?";
+        String sql = baseJoinQuery + "WHERE rr.requestID=?";
         return queryForObject(sql, pstmt -> pstmt.setInt(1, id), this::build);
     }
 
@@ -92,7 +109,7 @@ public class ReviewerRequests extends Repository<ReviewerRequest> {
      */
     @Override
     public List<ReviewerRequest> getAll() {
-        String sql = "SELECT * FROM ReviewerRequests";
+        String sql = baseJoinQuery;
         return queryForList(sql, pstmt -> {
         }, this::build);
     }
@@ -153,12 +170,8 @@ public class ReviewerRequests extends Repository<ReviewerRequest> {
     public ReviewerRequest build(ResultSet rs) throws SQLException {
         ReviewerRequest rr = new ReviewerRequest();
         rr.setId(rs.getInt("requestID"));
-        User requester = usersRepo.getById(rs.getInt("userID"));
-        rr.setRequester(requester);
-        int instructorId = rs.getInt("instructorID");
-        if (!rs.wasNull()) {
-            rr.setInstructor(usersRepo.getById(instructorId));
-        }
+        rr.setRequester(usersRepo.build(rs, "rq_"));
+        rr.setInstructor(usersRepo.build(rs, "ins_"));
         Boolean st = null;
         boolean statusVal = rs.getBoolean("status");
         if (!rs.wasNull()) {
@@ -179,7 +192,7 @@ public class ReviewerRequests extends Repository<ReviewerRequest> {
      * @return A list of {@link ReviewerRequest} objects made by the specified user.
      */
     public List<ReviewerRequest> getRequestsByUser(int userId) {
-        String sql = "SELECT * FROM ReviewerRequests WHERE userID=?";
+        String sql = baseJoinQuery + "WHERE rr.userID=?";
         return queryForList(sql, pstmt -> pstmt.setInt(1, userId), this::build);
     }
 
@@ -190,43 +203,138 @@ public class ReviewerRequests extends Repository<ReviewerRequest> {
      * @return A list of {@link ReviewerRequest} objects made to the specified instructor.
      */
     public List<ReviewerRequest> getRequestsByInstructor(int instructorId) {
-        String sql = "SELECT * FROM ReviewerRequests WHERE instructorID=?";
+        String sql = baseJoinQuery + "WHERE rr.instructorID=?";
         return queryForList(sql, pstmt -> pstmt.setInt(1, instructorId), this::build);
     }
 
     /**
-     * Accepts a reviewer request by updating its status to {@code true}.
+     * Retrieves one page of the pending requests (status not yet set) made to a specific instructor.
      * <p>
-     * The instructor must be assigned to the request and must have the {@link Roles#INSTRUCTOR} role.
+     * The queue is ordered oldest first by {@code createdAt} so requests are handled in arrival order.
+     * </p>
+     *
+     * @param instructorId The ID of the instructor whose queue is to be retrieved.
+     * @param page         The page of the queue to retrieve.
+     * @return A list of pending {@link ReviewerRequest} objects for the instructor.
+     */
+    public List<ReviewerRequest> getPendingForInstructor(int instructorId, Page page) {
+        String sql = baseJoinQuery + "WHERE rr.instructorID=? AND rr.status IS NULL " +
+                "ORDER BY rr.createdAt ASC, rr.requestID ASC LIMIT ? OFFSET ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setInt(1, instructorId);
+            pstmt.setInt(2, page.getSize());
+            pstmt.setInt(3, page.getOffset());
+        }, this::build);
+    }
+
+    /**
+     * Accepts a pending reviewer request and grants the requester the {@link Roles#REVIEWER} role.
+     * <p>
+     * The request must still be pending, and its instructor must have the {@link Roles#INSTRUCTOR} role. Same as
+     * {@link #acceptRequests(Collection)} with one ID, so the status change and the role grant are atomic.
      * </p>
      *
      * @param requestId The ID of the request to be accepted.
      * @return The updated {@link ReviewerRequest} object if the request was accepted, or {@code null} if it couldn't be accepted.
      */
     public ReviewerRequest acceptRequest(int requestId) {
-        ReviewerRequest rr = getById(requestId);
-        if (rr == null) return null;
-        if (rr.getInstructor() == null) return null;
-        if (!RolesUtil.hasRole(rr.getInstructor().getRoles(), Roles.INSTRUCTOR)) return null;
-        rr.setStatus(true);
-        return update(rr);
+        List<ReviewerRequest> accepted = acceptRequests(List.of(requestId));
+        return accepted.isEmpty() ? null : accepted.getFirst();
     }
 
     /**
-     * Rejects a reviewer request by updating its status to {@code false}.
+     * Rejects a pending reviewer request.
      * <p>
-     * The instructor must be assigned to the request and must have the {@link Roles#INSTRUCTOR} role.
+     * The request must still be pending, and its instructor must have the {@link Roles#INSTRUCTOR} role. Same as
+     * {@link #rejectRequests(Collection)} with one ID.
      * </p>
      *
      * @param requestId The ID of the request to be rejected.
      * @return The updated {@link ReviewerRequest} object if the request was rejected, or {@code null} if it couldn't be rejected.
      */
     public ReviewerRequest rejectRequest(int requestId) {
-        ReviewerRequest rr = getById(requestId);
-        if (rr == null) return null;
-        if (rr.getInstructor() == null) return null;
-        if (!RolesUtil.hasRole(rr.getInstructor().getRoles(), Roles.INSTRUCTOR)) return null;
-        rr.setStatus(false);
-        return update(rr);
+        List<ReviewerRequest> rejected = rejectRequests(List.of(requestId));
+        return rejected.isEmpty() ? null : rejected.getFirst();
+    }
+
+    /**
+     * Accepts many pending reviewer requests at once and grants each requester the {@link Roles#REVIEWER} role.
+     * <p>
+     * The status change and the role grants run in a single transaction, so either every eligible request is
+     * accepted with its role granted or nothing changes. Requests that are no longer pending or whose instructor
+     * lacks the {@link Roles#INSTRUCTOR} role are skipped.
+     * </p>
+     *
+     * @param requestIds The IDs of the requests to be accepted.
+     * @return The accepted {@link ReviewerRequest} objects, with their requesters' roles updated.
+     */
+    public List<ReviewerRequest> acceptRequests(Collection<Integer> requestIds) {
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(requestIds));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<ReviewerRequest> accepted = inTransaction(() -> {
+            List<ReviewerRequest> updated = setPendingStatuses(ids, true);
+            Set<Integer> requesterIds = new LinkedHashSet<>();
+            for (ReviewerRequest rr : updated) {
+                requesterIds.add(rr.getRequester().getId());
+            }
+            if (!requesterIds.isEmpty()) {
+                String grant = "UPDATE Users SET roles = BITOR(roles, " + Roles.REVIEWER.getBit() + ") " +
+                        "WHERE userID IN (" + placeholders(requesterIds.size()) + ")";
+                executeUpdate(grant, pstmt -> {
+                    int i = 1;
+                    for (int userId : requesterIds) {
+                        pstmt.setInt(i++, userId);
+                    }
+                });
+            }
+            return updated;
+        });
+        for (ReviewerRequest rr : accepted) {
+            rr.getRequester().setRoles(RolesUtil.addRole(rr.getRequester().getRoles(), Roles.REVIEWER));
+        }
+        if (!accepted.isEmpty()) {
+            // New reviewers show up in everyone's un-rated list
+            Users.invalidateUnratedReviewers(connection);
+        }
+        return accepted;
+    }
+
+    /**
+     * Rejects many pending reviewer requests at once, in a single statement.
+     * <p>
+     * Requests that are no longer pending or whose instructor lacks the {@link Roles#INSTRUCTOR} role are skipped.
+     * </p>
+     *
+     * @param requestIds The IDs of the requests to be rejected.
+     * @return The rejected {@link ReviewerRequest} objects.
+     */
+    public List<ReviewerRequest> rejectRequests(Collection<Integer> requestIds) {
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(requestIds));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return setPendingStatuses(ids, false);
+    }
+
+    /**
+     * Sets the status of every still-pending request in {@code ids} with one {@code UPDATE} and returns the
+     * joined rows that changed.
+     */
+    private List<ReviewerRequest> setPendingStatuses(List<Integer> ids, boolean status) {
+        String sql = "SELECT " + COLUMNS +
+                "FROM FINAL TABLE (UPDATE ReviewerRequests SET status = ? " +
+                "WHERE requestID IN (" + placeholders(ids.size()) + ") AND status IS NULL AND " +
+                INSTRUCTOR_GUARD + ") rr " +
+                USER_JOINS + "ORDER BY rr.createdAt ASC, rr.requestID ASC";
+        // In a transaction: H2 loses the rows if the UPDATE fails under autocommit inside FINAL TABLE
+        return inTransaction(() -> queryForList(sql, pstmt -> {
+            int i = 1;
+            pstmt.setBoolean(i++, status);
+            for (int id : ids) {
+                pstmt.setInt(i++, id);
+            }
+        }, this::build));
     }
-}
\ No newline at end of file
+}
@@ -60,6 +60,7 @@ public class Reviews extends Repository<Review> {
             pstmt.setInt(2, review.getUser().getId());
             pstmt.setInt(3, review.getRating());
         });
+        Users.invalidateUnratedReviewers(connection, review.getUser().getId());
         return review;
     }
 
@@ -109,6 +110,7 @@ public class Reviews extends Repository<Review> {
             pstmt.setInt(2, review.getReviewer().getId());
             pstmt.setInt(3, review.getUser().getId());
         });
+        Users.invalidateUnratedReviewers(connection, review.getUser().getId());
         return rows > 0 ? review : null;
     }
 
@@ -124,6 +126,7 @@ public class Reviews extends Repository<Review> {
             pstmt.setInt(1, reviewerId);
             pstmt.setInt(2, userId);
         });
+        Users.invalidateUnratedReviewers(connection, userId);
     }
 
     /**
@@ -179,6 +182,7 @@ public class Reviews extends Repository<Review> {
                 pstmt.setInt(2, reviewer.getId());
                 pstmt.setInt(3, user.getId());
             });
+            Users.invalidateUnratedReviewers(connection, user.getId());
             return getByCompositeKey(reviewer.getId(), user.getId());
         } else {
             Review newReview = new Review();
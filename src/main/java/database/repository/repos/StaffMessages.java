@@ -3,13 +3,15 @@ package database.repository.repos;
 import database.model.entities.Message;
 import database.model.entities.StaffMessage;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.Repository;
+import utils.MessageCodec;
 import validators.EntityValidator;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Timestamp;
 import java.util.List;
 
 /**
@@ -26,13 +28,18 @@ import java.util.List;
 public class StaffMessages extends Repository<StaffMessage> {
 
     private final Messages messagesRepo;
+    private final ReadMessages readMessagesRepo;
     private final Users usersRepo;
     private final String baseJoinQuery =
             "SELECT sm.staffMessageID, " +
                     "       sm.userID AS sm_userID, sm.staffID AS sm_staffID, " +
-                    "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt " +
+                    "       m.messageID AS msg_id, m.userID AS msg_userID, m.content AS msg_content, m.createdAt AS msg_createdAt, " +
+                    "       " + Users.joinColumns("u", "u_") + ", " +
+                    "       " + Users.joinColumns("s", "s_") + " " +
                     "FROM StaffMessages sm " +
-                    "JOIN Messages m ON sm.messageID = m.messageID ";
+                    "JOIN Messages m ON sm.messageID = m.messageID " +
+                    "JOIN Users u ON sm.userID = u.userID " +
+                    "JOIN Users s ON sm.staffID = s.userID ";
 
     /**
      * Constructor for the {@code StaffMessages} repository.
@@ -46,6 +53,7 @@ public class StaffMessages extends Repository<StaffMessage> {
     public StaffMessages(Connection connection) throws SQLException {
         super(connection);
         this.messagesRepo = new Messages(connection);
+        this.readMessagesRepo = new ReadMessages(connection);
         this.usersRepo = new Users(connection);
     }
 
@@ -78,6 +86,7 @@ public class StaffMessages extends Repository<StaffMessage> {
         if (generatedId > 0) {
             staffMessage.setId(generatedId);
         }
+        readMessagesRepo.messageDelivered(createdMsg.getId());
         return staffMessage;
     }
 
@@ -132,19 +141,13 @@ public class StaffMessages extends Repository<StaffMessage> {
         Message m = new Message();
         m.setId(rs.getInt("msg_id"));
         m.setUserId(rs.getInt("msg_userID"));
-        m.setContent(rs.getString("msg_content"));
+        messagesRepo.readContent(m, rs.getString("msg_content"));
         m.setCreatedAt(rs.getTimestamp("msg_createdAt"));
         sm.setMessage(m);
 
-        // Retrieve the user entity.
-        int userId = rs.getInt("sm_userID");
-        User user = usersRepo.getById(userId);
-        sm.setUser(user);
-
-        // Retrieve the staff entity.
-        int staffId = rs.getInt("sm_staffID");
-        User staff = usersRepo.getById(staffId);
-        sm.setStaff(staff);
+        // The user and staff rows are joined into the same result row.
+        sm.setUser(usersRepo.build(rs, "u_"));
+        sm.setStaff(usersRepo.build(rs, "s_"));
 
         return sm;
     }
@@ -188,6 +191,7 @@ public class StaffMessages extends Repository<StaffMessage> {
     public void delete(int id) {
         String sql = "DELETE FROM StaffMessages WHERE staffMessageID = ?";
         executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        ReadMessages.invalidateUnreadCounts(connection);
     }
 
     /**
@@ -200,16 +204,69 @@ public class StaffMessages extends Repository<StaffMessage> {
      * @return A {@code List} of unique {@link User} objects.
      */
     public List<User> getUniqueChats(int staffId) {
-        String sql = "SELECT DISTINCT userID FROM StaffMessages WHERE staffID = ?";
-        List<Integer> userIds = queryForList(sql, pstmt -> pstmt.setInt(1, staffId), rs -> rs.getInt("userID"));
-        List<User> users = new ArrayList<>();
-        for (Integer uId : userIds) {
-            User u = usersRepo.getById(uId);
-            if (u != null) {
-                users.add(u);
-            }
-        }
-        return users;
+        String sql = "SELECT u.* FROM Users u " +
+                "WHERE EXISTS (SELECT 1 FROM StaffMessages sm WHERE sm.userID = u.userID AND sm.staffID = ?)";
+        return queryForList(sql, pstmt -> pstmt.setInt(1, staffId), usersRepo::build);
+    }
+
+    /**
+     * Retrieves the inbox of a staff member: one entry per conversation partner, newest conversation first.
+     * <p>
+     * Each entry carries the partner, a preview of the last message, its timestamp and the number of messages
+     * from the partner that the staff member has not read yet (according to "ReadMessages"). All of it is
+     * computed by a single windowed query over the staff member's conversations.
+     * </p>
+     *
+     * @param staffId The unique identifier of the staff member.
+     * @param page    The page of conversations to return.
+     * @return A {@code List} of {@link InboxEntry} objects ordered by most recent activity.
+     */
+    public List<InboxEntry> getInbox(int staffId, Page page) {
+        String sql = "SELECT u.*, COALESCE(c.lastContent, ma.content) AS lastContent, c.lastCreatedAt, c.unreadCount " +
+                "FROM ( " +
+                "    SELECT sm.userID AS partnerID, m.messageID AS lastMessageID, " +
+                // Compressed bodies are fetched whole and cut to length once decoded
+                "           CASE WHEN LEFT(m.content, " + MessageCodec.DEFLATE_MARKER.length() + ") = ? THEN m.content " +
+                "                ELSE SUBSTRING(m.content FROM 1 FOR " + InboxEntry.PREVIEW_LENGTH + ") END AS lastContent, " +
+                "           m.createdAt AS lastCreatedAt, " +
+                "           ROW_NUMBER() OVER (PARTITION BY sm.userID ORDER BY m.createdAt DESC, m.messageID DESC) AS rn, " +
+                "           SUM(CASE WHEN m.userID <> sm.staffID AND rm.messageID IS NULL THEN 1 ELSE 0 END) " +
+                "               OVER (PARTITION BY sm.userID) AS unreadCount " +
+                "    FROM StaffMessages sm " +
+                "    JOIN Messages m ON sm.messageID = m.messageID " +
+                "    LEFT JOIN ReadMessages rm ON rm.messageID = m.messageID AND rm.userID = sm.staffID " +
+                "    WHERE sm.staffID = ? " +
+                ") c " +
+                "JOIN Users u ON u.userID = c.partnerID " +
+                // Only the last message of an archived chat is looked up in the archive
+                "LEFT JOIN MessagesArchive ma ON c.lastContent IS NULL AND ma.messageID = c.lastMessageID " +
+                "WHERE c.rn = 1 " +
+                "ORDER BY c.lastCreatedAt DESC " +
+                "LIMIT ? OFFSET ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setString(1, MessageCodec.DEFLATE_MARKER);
+            pstmt.setInt(2, staffId);
+            pstmt.setInt(3, page.getSize());
+            pstmt.setInt(4, page.getOffset());
+        }, rs -> new InboxEntry(
+                usersRepo.build(rs),
+                preview(rs.getString("lastContent")),
+                rs.getTimestamp("lastCreatedAt"),
+                rs.getInt("unreadCount")
+        ));
+    }
+
+    /**
+     * Decodes a stored message body and cuts it to {@link InboxEntry#PREVIEW_LENGTH} characters.
+     *
+     * @param stored The stored body, or its uncompressed prefix.
+     * @return The preview text.
+     */
+    private static String preview(String stored) {
+        String content = MessageCodec.decode(stored);
+        return content == null || content.length() <= InboxEntry.PREVIEW_LENGTH
+                ? content
+                : content.substring(0, InboxEntry.PREVIEW_LENGTH);
     }
 
     /**
@@ -232,6 +289,58 @@ public class StaffMessages extends Repository<StaffMessage> {
         }, this::build);
     }
 
+    /**
+     * Loads the messages of a user/staff conversation that were sent after a given message.
+     * <p>
+     * Intended for refreshing an open chat: callers pass the ID of the last message they already display and
+     * append the result. Served by the {@code (userID, staffID, messageID)} index, so the cost depends on the
+     * number of new messages rather than the length of the conversation.
+     * </p>
+     *
+     * @param userId         The identifier of the user.
+     * @param staffId        The identifier of the staff member.
+     * @param afterMessageId The message ID to continue after (exclusive); use {@code 0} to start from the beginning.
+     * @param limit          The maximum number of messages to return.
+     * @return A {@code List} of {@link StaffMessage} objects, oldest first.
+     */
+    public List<StaffMessage> loadChatSince(int userId, int staffId, int afterMessageId, int limit) {
+        String sql = baseJoinQuery +
+                " WHERE sm.userID = ? AND sm.staffID = ? AND sm.messageID > ? " +
+                " ORDER BY sm.messageID ASC LIMIT ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, staffId);
+            pstmt.setInt(3, afterMessageId);
+            pstmt.setInt(4, limit);
+        }, this::build);
+    }
+
+    /**
+     * Loads the messages of a user/staff conversation that were sent before a given message.
+     * <p>
+     * Intended for scrollback: callers pass the ID of the oldest message they already display and prepend the
+     * result. Pass {@link Integer#MAX_VALUE} to load the most recent messages of the conversation.
+     * </p>
+     *
+     * @param userId          The identifier of the user.
+     * @param staffId         The identifier of the staff member.
+     * @param beforeMessageId The message ID to page back from (exclusive).
+     * @param limit           The maximum number of messages to return.
+     * @return A {@code List} of {@link StaffMessage} objects, oldest first.
+     */
+    public List<StaffMessage> loadChatBefore(int userId, int staffId, int beforeMessageId, int limit) {
+        String sql = baseJoinQuery +
+                " WHERE sm.userID = ? AND sm.staffID = ? AND sm.messageID < ? " +
+                " ORDER BY sm.messageID DESC LIMIT ?";
+        List<StaffMessage> newestFirst = queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, staffId);
+            pstmt.setInt(3, beforeMessageId);
+            pstmt.setInt(4, limit);
+        }, this::build);
+        return newestFirst.reversed();
+    }
+
     /**
      * Sends a new message between a user and a staff member.
      * <p>
@@ -257,4 +366,70 @@ public class StaffMessages extends Repository<StaffMessage> {
 
         return create(sm);
     }
-}
\ No newline at end of file
+
+    /**
+     * Summary of a single staff conversation as shown in the staff inbox.
+     */
+    public static class InboxEntry {
+        /**
+         * Maximum number of characters of the last message kept as preview.
+         */
+        public static final int PREVIEW_LENGTH = 80;
+
+        private final User partner;
+        private final String lastMessagePreview;
+        private final Timestamp lastMessageAt;
+        private final int unreadCount;
+
+        /**
+         * Constructs a new {@code InboxEntry}.
+         *
+         * @param partner            The user on the other side of the conversation.
+         * @param lastMessagePreview The first {@link #PREVIEW_LENGTH} characters of the last message.
+         * @param lastMessageAt      The creation time of the last message.
+         * @param unreadCount        The number of partner messages the staff member has not read.
+         */
+        public InboxEntry(User partner, String lastMessagePreview, Timestamp lastMessageAt, int unreadCount) {
+            this.partner = partner;
+            this.lastMessagePreview = lastMessagePreview;
+            this.lastMessageAt = lastMessageAt;
+            this.unreadCount = unreadCount;
+        }
+
+        /**
+         * Gets the user on the other side of the conversation.
+         *
+         * @return The conversation partner.
+         */
+        public User getPartner() {
+            return partner;
+        }
+
+        /**
+         * Gets the preview of the last message in the conversation.
+         *
+         * @return The last message preview.
+         */
+        public String getLastMessagePreview() {
+            return lastMessagePreview;
+        }
+
+        /**
+         * Gets the creation time of the last message in the conversation.
+         *
+         * @return The last message timestamp.
+         */
+        public Timestamp getLastMessageAt() {
+            return lastMessageAt;
+        }
+
+        /**
+         * Gets the number of partner messages the staff member has not read.
+         *
+         * @return The unread count.
+         */
+        public int getUnreadCount() {
+            return unreadCount;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package database.repository.repos;
 
-import database.model.entities.Review;
 import database.model.entities.User;
+import database.repository.ConnectionCache;
 import database.repository.Repository;
 import utils.PasswordUtil;
 import utils.permissions.Roles;
@@ -11,6 +11,9 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Repository class for managing {@link User} entities in the database.
@@ -19,12 +22,26 @@ import java.util.List;
  * retrieving, updating, and deleting users. It extends the {@link Repository} class, which provides
  * base functionality for database operations.
  * </p>
+ * <p>
+ * Usernames are matched case-insensitively through the indexed {@code userNameLower} column. Resolved
+ * username-to-id pairs are cached per connection and used by {@link #getByUsername(String)},
+ * {@link #doesUserExist(String)} and {@link #validateLogin(String, String)}, so a sign-up or login flow finds each
+ * name by primary key after the first lookup. A cached pair is always checked against the row it points to.
+ * </p>
  *
  * @author Dhruv
  * @see Repository
  */
 public class Users extends Repository<User> {
 
+    // userID -> reviewers that user has not rated yet
+    private static final ConnectionCache.Key<Map<Integer, List<User>>> UNRATED_REVIEWERS =
+            new ConnectionCache.Key<>("users.unratedReviewers");
+
+    // Lower-cased userName -> userID for names known to exist
+    private static final ConnectionCache.Key<Map<String, Integer>> USER_IDS_BY_NAME =
+            new ConnectionCache.Key<>("users.userIdsByName");
+
     /**
      * Constructor for {@code Users} repository.
      * <p>
@@ -68,7 +85,9 @@ public class Users extends Repository<User> {
 
         if (generatedId > 0) {
             user.setId(generatedId);
+            userIdsByName().put(nameKey(user.getUserName()), generatedId);
         }
+        cache().remove(UNRATED_REVIEWERS);
         return user;
     }
 
@@ -125,6 +144,51 @@ public class Users extends Repository<User> {
         return u;
     }
 
+    /**
+     * Returns the select list for a joined "Users" row, with every column aliased as {@code prefix + column}.
+     * <p>
+     * Used by repositories that fetch related users in the same statement instead of calling
+     * {@link #getById(int)} per row. Pair it with {@link #build(ResultSet, String)}.
+     * </p>
+     *
+     * @param alias  The table alias of the joined "Users" table (e.g. {@code "u"}).
+     * @param prefix The prefix to apply to each column alias (e.g. {@code "u_"}).
+     * @return A comma-separated select list.
+     */
+    public static String joinColumns(String alias, String prefix) {
+        return alias + ".userID AS " + prefix + "userID, "
+                + alias + ".userName AS " + prefix + "userName, "
+                + alias + ".firstName AS " + prefix + "firstName, "
+                + alias + ".lastName AS " + prefix + "lastName, "
+                + alias + ".password AS " + prefix + "password, "
+                + alias + ".email AS " + prefix + "email, "
+                + alias + ".roles AS " + prefix + "roles";
+    }
+
+    /**
+     * Builds a {@link User} object from prefixed columns of a joined {@link ResultSet}.
+     *
+     * @param rs     The {@link ResultSet} containing the user data.
+     * @param prefix The column prefix used in {@link #joinColumns(String, String)}.
+     * @return The {@link User} object, or {@code null} if the joined user is absent (outer join).
+     * @throws SQLException If an error occurs while extracting data from the result set.
+     */
+    public User build(ResultSet rs, String prefix) throws SQLException {
+        int id = rs.getInt(prefix + "userID");
+        if (rs.wasNull()) {
+            return null;
+        }
+        User u = new User();
+        u.setId(id);
+        u.setUserName(rs.getString(prefix + "userName"));
+        u.setFirstName(rs.getString(prefix + "firstName"));
+        u.setLastName(rs.getString(prefix + "lastName"));
+        u.setPassword(rs.getString(prefix + "password"));
+        u.setEmail(rs.getString(prefix + "email"));
+        u.setRoles(rs.getInt(prefix + "roles"));
+        return u;
+    }
+
     /**
      * Updates an existing user's information in the "Users" table.
      * <p>
@@ -147,6 +211,10 @@ public class Users extends Repository<User> {
             pstmt.setInt(5, user.getRoles());
             pstmt.setInt(6, user.getId());
         });
+        // Roles may have changed, so any cached reviewer list can be stale
+        cache().remove(UNRATED_REVIEWERS);
+        // The username may have changed too
+        userIdsByName().values().remove(user.getId());
         return rows > 0 ? user : null;
     }
 
@@ -158,51 +226,140 @@ public class Users extends Repository<User> {
     @Override
     public void delete(int id) {
         String sql = "DELETE FROM Users WHERE userID = ?";
-        executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+        inTransaction(() -> {
+            // Cascaded answer deletes bypass the Answers repository, so find the questions they count towards first
+            List<Integer> questionIds = queryForList(Questions.ANSWERED_IN + "WHERE m.userID = ?",
+                    pstmt -> pstmt.setInt(1, id), rs -> rs.getInt("questionID"));
+            // Announcements only lose their message, so record their delete for the feed first
+            executeUpdate(Announcements.TOMBSTONE + "WHERE NOT deleted AND messageID IN (SELECT messageID FROM Messages WHERE userID = ?)", pstmt -> pstmt.setInt(1, id));
+            executeUpdate(sql, pstmt -> pstmt.setInt(1, id));
+            if (!questionIds.isEmpty()) {
+                executeUpdate(Questions.REFRESH_STATS + "WHERE q.questionID = ANY(?)",
+                        pstmt -> pstmt.setArray(1, connection.createArrayOf("INTEGER", questionIds.toArray())));
+            }
+            return null;
+        });
+        cache().remove(UNRATED_REVIEWERS);
+        userIdsByName().values().remove(id);
+        // The user's admin requests and messages are removed by cascade
+        AdminRequests.invalidateCounts(connection);
+        ReadMessages.invalidateUnreadCounts(connection);
+        Announcements.invalidateSnapshot(connection);
     }
 
     /**
      * Validates a user's login by comparing the hashed password stored in the database.
      *
-     * @param userName      The username of the user attempting to log in.
+     * @param userName      The username of the user attempting to log in, in any case.
      * @param plainPassword The plain-text password provided by the user.
      * @return {@code true} if the login is valid, {@code false} otherwise.
      */
     public boolean validateLogin(String userName, String plainPassword) {
-        String sql = "SELECT password FROM Users WHERE userName = ?";
-        String storedHash = queryForObject(sql,
-                pstmt -> pstmt.setString(1, userName),
-                rs -> rs.getString("password")
-        );
-        return storedHash != null && PasswordUtil.verifyPassword(storedHash, plainPassword);
+        User user = getByUsername(userName);
+        return user != null && PasswordUtil.verifyPassword(user.getPassword(), plainPassword);
     }
 
     /**
      * Checks if a user already exists in the database based on their userName.
+     * <p>
+     * The check ignores case, matching the unique index: "Alice" exists once "alice" does.
+     * </p>
      *
      * @param userName The username to check for existence.
      * @return {@code true} if the user exists, {@code false} otherwise.
      */
     public boolean doesUserExist(String userName) {
-        String sql = "SELECT COUNT(*) FROM Users WHERE userName = ?";
-        return queryForObject(sql,
-                pstmt -> pstmt.setString(1, userName),
-                rs -> rs.getInt(1) > 0
-        );
+        return getByUsername(userName) != null;
     }
 
     /**
-     * Retrieves a user by their username.
+     * Retrieves a user by their username, ignoring case.
+     * <p>
+     * A cached name is read by primary key; otherwise the lookup goes through the {@code userNameLower} index and
+     * the name is cached.
+     * </p>
      *
      * @param username The username of the user to be retrieved.
      * @return The {@link User} object corresponding to the provided username, or {@code null} if not found.
      */
     public User getByUsername(String username) {
-        String sql = "SELECT * FROM Users WHERE userName = ?";
-        return queryForObject(sql,
+        if (username == null) {
+            return null;
+        }
+        String key = nameKey(username);
+        Integer cachedId = userIdsByName().get(key);
+        if (cachedId != null) {
+            User user = getById(cachedId);
+            if (user != null && nameKey(user.getUserName()).equals(key)) {
+                return user;
+            }
+            // Renamed or removed without going through this class
+            userIdsByName().remove(key, cachedId);
+        }
+
+        String sql = "SELECT * FROM Users WHERE userNameLower = LOWER(?)";
+        User user = queryForObject(sql,
                 pstmt -> pstmt.setString(1, username),
                 this::build
         );
+        if (user != null) {
+            userIdsByName().put(key, user.getId());
+        }
+        return user;
+    }
+
+    /**
+     * Retrieves users whose username starts with the given prefix, ignoring case.
+     * <p>
+     * Resolved as a range scan on the {@code userNameLower} index; {@code %} and {@code _} in the prefix match
+     * literally.
+     * </p>
+     *
+     * @param prefix The start of the username; an empty prefix matches every user.
+     * @param limit  The maximum number of users to return.
+     * @return Up to {@code limit} matching users, ordered by username.
+     */
+    public List<User> searchByUsernamePrefix(String prefix, int limit) {
+        String sql = "SELECT * FROM Users WHERE userNameLower LIKE LOWER(?) ESCAPE '\\' "
+                + "ORDER BY userNameLower LIMIT ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setString(1, likePrefix(prefix));
+            pstmt.setInt(2, limit);
+        }, this::build);
+    }
+
+    /**
+     * Retrieves users holding a role whose username starts with the given prefix, ignoring case.
+     *
+     * @param prefix The start of the username; an empty prefix matches every user with the role.
+     * @param role   The role the users must hold.
+     * @param limit  The maximum number of users to return.
+     * @return Up to {@code limit} matching users, ordered by username.
+     * @see #searchByUsernamePrefix(String, int)
+     */
+    public List<User> searchByUsernamePrefix(String prefix, Roles role, int limit) {
+        String sql = "SELECT * FROM Users WHERE userNameLower LIKE LOWER(?) ESCAPE '\\' "
+                + "AND BITAND(roles, " + role.getBit() + ") <> 0 "
+                + "ORDER BY userNameLower LIMIT ?";
+        return queryForList(sql, pstmt -> {
+            pstmt.setString(1, likePrefix(prefix));
+            pstmt.setInt(2, limit);
+        }, this::build);
+    }
+
+    /**
+     * Returns the cache key for a username.
+     */
+    private static String nameKey(String userName) {
+        return userName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Turns a username prefix into a LIKE pattern, escaping the wildcard characters it contains.
+     */
+    private static String likePrefix(String prefix) {
+        String text = prefix == null ? "" : prefix;
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
     }
 
     /**
@@ -223,23 +380,71 @@ public class Users extends Repository<User> {
 
     /**
      * Returns a list of all reviewers that a user hasn't yet rated.
+     * <p>
+     * Resolved with a single anti-join against "Reviews". The result is cached per user and dropped whenever
+     * that user's reviews change (see {@link #invalidateUnratedReviewers(Connection, int)}) or any user row is
+     * written.
+     * </p>
      *
      * @param userId The ID of the user who is rating/trusting reviewers.
-     * @return A list of reviewers not yet rated by the specified user.
+     * @return An unmodifiable list of reviewers not yet rated by the specified user.
      * @throws SQLException If an error occurs during the retrieval of reviewers.
      */
     public List<User> getReviewersNotRatedByUser(int userId) throws SQLException {
-        List<User> allReviewers = getAllReviewers();
-        List<Review> userReviews = new Reviews(this.connection).getReviewersByUserId(userId);
+        List<User> cached = unratedReviewers().get(userId);
+        if (cached != null) {
+            return cached;
+        }
 
-        List<Integer> ratedReviewerIds = userReviews.stream()
-                .map(review -> review.getReviewer().getId())
-                .toList();
+        String sql = "SELECT u.* FROM Users u "
+                + "WHERE BITAND(u.roles, " + Roles.REVIEWER.getBit() + ") <> 0 AND u.userID <> ? "
+                + "AND NOT EXISTS (SELECT 1 FROM Reviews r WHERE r.userID = ? AND r.reviewerID = u.userID)";
+        List<User> reviewers = List.copyOf(queryForList(sql, pstmt -> {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+        }, this::build));
 
-        return allReviewers.stream()
-                .filter(reviewer -> !ratedReviewerIds.contains(reviewer.getId())
-                        && reviewer.getId() != userId)
-                .toList();
+        unratedReviewers().put(userId, reviewers);
+        return reviewers;
+    }
+
+    /**
+     * Drops the cached "not yet rated" reviewer list for a user.
+     * <p>
+     * Called by {@link Reviews} whenever a review owned by the user is created, changed or removed.
+     * </p>
+     *
+     * @param connection The connection the cache belongs to.
+     * @param userId     The ID of the user whose reviews changed.
+     */
+    static void invalidateUnratedReviewers(Connection connection, int userId) {
+        Map<Integer, List<User>> cache = ConnectionCache.of(connection).getIfPresent(UNRATED_REVIEWERS);
+        if (cache != null) {
+            cache.remove(userId);
+        }
+    }
+
+    /**
+     * Drops every cached un-rated reviewer list, for writes that change roles outside {@link #update(User)}.
+     *
+     * @param connection The connection the cache belongs to.
+     */
+    static void invalidateUnratedReviewers(Connection connection) {
+        ConnectionCache.of(connection).remove(UNRATED_REVIEWERS);
+    }
+
+    /**
+     * Returns this connection's username-to-id cache.
+     */
+    private Map<String, Integer> userIdsByName() {
+        return cache().get(USER_IDS_BY_NAME, ConcurrentHashMap::new);
+    }
+
+    /**
+     * Returns this connection's un-rated reviewer cache.
+     */
+    private Map<Integer, List<User>> unratedReviewers() {
+        return cache().get(UNRATED_REVIEWERS, ConcurrentHashMap::new);
     }
 
     /**
@@ -0,0 +1,282 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative {@code int} values, laid out like a roaring bitmap.
+ * <p>
+ * Values are split into chunks of 65536 by their upper 16 bits. Each chunk is stored in the cheaper of two
+ * containers: a sorted {@code char[]} while it holds at most {@value #ARRAY_MAX} values, or a fixed 8 KiB
+ * {@code long[]} bitmap once it grows past that. Sparse sets therefore cost about two bytes per value and dense
+ * sets about one bit per value, while lookups stay a binary search plus an array or bit probe.
+ * </p>
+ * <p>
+ * Instances are not thread-safe; callers sharing one must synchronize externally.
+ * </p>
+ *
+ * @author Dhruv
+ */
+public final class CompressedBitmap {
+    // A chunk switches to the bitmap container once it holds more values than this
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int chunkCount;
+    private int cardinality;
+
+    /**
+     * Checks whether the value is in the set.
+     *
+     * @param value The value to look up.
+     * @return {@code true} if the value is present.
+     */
+    public boolean contains(int value) {
+        int i = indexOf(high(value));
+        return i >= 0 && containers[i].contains(low(value));
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     * @return {@code true} if the value was not already present.
+     */
+    public boolean add(int value) {
+        char key = high(value);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new ArrayContainer());
+        }
+        Container before = containers[i];
+        int oldCardinality = before.cardinality();
+        containers[i] = before.add(low(value));
+        boolean added = containers[i].cardinality() != oldCardinality;
+        if (added) {
+            cardinality++;
+        }
+        return added;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to remove.
+     * @return {@code true} if the value was present.
+     */
+    public boolean remove(int value) {
+        int i = indexOf(high(value));
+        if (i < 0) {
+            return false;
+        }
+        Container before = containers[i];
+        int oldCardinality = before.cardinality();
+        containers[i] = before.remove(low(value));
+        if (containers[i].cardinality() == oldCardinality) {
+            return false;
+        }
+        cardinality--;
+        if (containers[i].cardinality() == 0) {
+            removeChunk(i);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return The cardinality of the set.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Estimates the heap used by this set, including array headers and spare capacity.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = 32 + 16 + 2L * keys.length + 16 + 8L * containers.length;
+        for (int i = 0; i < chunkCount; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private int indexOf(char key) {
+        // Values usually arrive in ascending order, so check the last chunk first
+        if (chunkCount > 0 && keys[chunkCount - 1] == key) {
+            return chunkCount - 1;
+        }
+        return Arrays.binarySearch(keys, 0, chunkCount, key);
+    }
+
+    private void insertChunk(int i, char key, Container container) {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            containers = Arrays.copyOf(containers, chunkCount * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, chunkCount - i);
+        System.arraycopy(containers, i, containers, i + 1, chunkCount - i);
+        keys[i] = key;
+        containers[i] = container;
+        chunkCount++;
+    }
+
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, chunkCount - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, chunkCount - i - 1);
+        chunkCount--;
+        containers[chunkCount] = null;
+    }
+
+    /**
+     * Holds the low 16 bits of the values in one chunk. Mutators return the container to keep using,
+     * which differs from {@code this} when the chunk changes representation.
+     */
+    private interface Container {
+        boolean contains(char low);
+
+        Container add(char low);
+
+        Container remove(char low);
+
+        int cardinality();
+
+        long sizeInBytes();
+    }
+
+    /**
+     * Sparse chunk: sorted low halves.
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            int i = size > 0 && values[size - 1] < low ? -size - 1 : Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+                // Give back capacity left over from a larger or converted chunk
+                if (values.length > 16 && size < values.length / 4) {
+                    values = Arrays.copyOf(values, values.length / 2);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 24 + 16 + 2L * values.length;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Dense chunk: one bit per possible low half.
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int size;
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container add(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            if (before != words[low >>> 6]) {
+                size++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (before != words[low >>> 6]) {
+                size--;
+                if (size <= ARRAY_MAX) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 24 + 16 + 8L * BITMAP_WORDS;
+        }
+
+        private ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[size];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    array.values[array.size++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+}
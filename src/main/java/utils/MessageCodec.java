@@ -0,0 +1,145 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage codec for message bodies.
+ * <p>
+ * Bodies of at least {@link #getThreshold()} characters are stored Deflate-compressed, Base64-encoded and prefixed
+ * with {@link #DEFLATE_MARKER}, so the column stays plain text. Shorter bodies, and bodies that would not shrink,
+ * are stored as they are. The marker starts with a control character that typed text does not contain; a body
+ * that does start with it is always stored compressed, which keeps {@link #decode(String)} unambiguous.
+ * </p>
+ * <p>
+ * The default threshold comes from the {@code db.messages.compressThreshold} system property; zero or a negative
+ * value turns compression off. Decoding does not depend on the threshold, so stored bodies stay readable whatever
+ * it is set to.
+ * </p>
+ *
+ * @author Dhruv
+ */
+public final class MessageCodec {
+    /**
+     * Prefix marking a Deflate-compressed, Base64-encoded body.
+     */
+    public static final String DEFLATE_MARKER = "\u0001D";
+
+    /**
+     * Codec configured from the {@code db.messages.compressThreshold} system property, 512 characters by default.
+     */
+    public static final MessageCodec DEFAULT = new MessageCodec(Integer.getInteger("db.messages.compressThreshold", 512));
+
+    private final int threshold;
+
+    /**
+     * Creates a codec that compresses bodies of at least {@code threshold} characters.
+     *
+     * @param threshold The minimum body length to compress, or zero or less to never compress.
+     */
+    public MessageCodec(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the minimum body length this codec compresses.
+     *
+     * @return The threshold in characters, or zero or less if compression is off.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Checks whether this codec compresses at all.
+     *
+     * @return {@code true} if bodies at or above the threshold are compressed.
+     */
+    public boolean isEnabled() {
+        return threshold > 0;
+    }
+
+    /**
+     * Turns a message body into its stored form.
+     *
+     * @param content The message body, possibly {@code null}.
+     * @return The stored form: the body itself, or its compressed encoding.
+     */
+    public String encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        boolean mustCompress = content.startsWith(DEFLATE_MARKER.substring(0, 1));
+        if (!mustCompress && (!isEnabled() || content.length() < threshold)) {
+            return content;
+        }
+        String compressed = DEFLATE_MARKER + Base64.getEncoder().encodeToString(deflate(content.getBytes(StandardCharsets.UTF_8)));
+        return mustCompress || compressed.length() < content.length() ? compressed : content;
+    }
+
+    /**
+     * Turns a stored body back into the message body.
+     *
+     * @param stored The stored form, possibly {@code null}.
+     * @return The message body.
+     * @throws IllegalStateException If the body carries the marker but cannot be decompressed.
+     */
+    public static String decode(String stored) {
+        if (!isCompressed(stored)) {
+            return stored;
+        }
+        byte[] packed = Base64.getDecoder().decode(stored.substring(DEFLATE_MARKER.length()));
+        return new String(inflate(packed), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a stored body is in compressed form.
+     *
+     * @param stored The stored form, possibly {@code null}.
+     * @return {@code true} if it starts with {@link #DEFLATE_MARKER}.
+     */
+    public static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(DEFLATE_MARKER);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            byte[] buf = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buf = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed message body.");
+                }
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed message body.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,23 +1,35 @@
 package utils;
 
+import database.migration.Migration;
+
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Provides utilities for synchronizing table schemas within a relational database.
  * <p>
- * Supports table creation, detecting missing columns, and adding new columns as required.
+ * Supports table creation, detecting missing columns, adding new columns as required, removing columns that
+ * the schema no longer defines, and running one-off data migrations.
  * </p>
  *
  * @author Dhruv
  */
 public class TableSyncUtil {
+    // Records which migrations a database has already applied
+    private static final String MIGRATIONS_TABLE = "SchemaMigrations";
+    // A column definition that declares the column nullable, as opposed to NOT NULL or DEFAULT NULL
+    private static final Pattern DECLARED_NULL = Pattern.compile("(?i)(?<!NOT\\s)(?<!DEFAULT\\s)\\bNULL\\b");
 
     /**
      * Synchronizes a table schema within the database by creating a new table if it does not exist,
      * or by adding missing columns if the table already exists.
+     * <p>
+     * Existing columns whose definition now declares them {@code NULL} are made nullable if the database still
+     * has them {@code NOT NULL}. Constraints are only relaxed this way, never tightened.
+     * </p>
      *
      * @param connection      The database connection to use.
      * @param tableName       The name of the table to synchronize.
@@ -38,6 +50,123 @@ public class TableSyncUtil {
         // Table does exist: handle differences
         List<String> existingColumns = getExistingColumns(connection, tableName);
         addMissingColumns(connection, tableName, existingColumns, expectedColumns);
+        relaxNullability(connection, tableName, expectedColumns);
+    }
+
+    /**
+     * Creates any missing secondary indexes for a table.
+     * <p>
+     * Each statement is expected to be idempotent (e.g. {@code CREATE INDEX IF NOT EXISTS ...}).
+     * </p>
+     *
+     * @param connection      The database connection to use.
+     * @param tableName       The name of the table the indexes belong to.
+     * @param indexStatements The index statements to execute.
+     * @throws SQLException If a database access error occurs or a statement is invalid.
+     */
+    public static void syncIndexes(Connection connection, String tableName, String[] indexStatements) throws SQLException {
+        for (String indexSql : indexStatements) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(indexSql);
+            }
+        }
+        if (indexStatements.length > 0) {
+            System.out.println("Indexes synchronized: " + tableName + " (" + indexStatements.length + ")");
+        }
+    }
+
+    /**
+     * Applies the migrations this database has not applied yet.
+     * <p>
+     * Each migration runs in its own transaction together with the row recording it in
+     * {@value #MIGRATIONS_TABLE}, so it is either applied and recorded or, if it throws, rolled back and retried on
+     * the next sync. A failing migration aborts the sync.
+     * </p>
+     *
+     * @param connection The database connection to use.
+     * @param tableName  The name of the table the migrations belong to.
+     * @param migrations The migrations, keyed by ID, in the order they should run.
+     * @throws SQLException If a migration fails or a database access error occurs.
+     */
+    public static void runMigrations(Connection connection, String tableName, Map<String, Migration> migrations)
+            throws SQLException {
+        if (migrations.isEmpty()) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + MIGRATIONS_TABLE + " (" +
+                    "migrationID VARCHAR(255) PRIMARY KEY, appliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+        for (Map.Entry<String, Migration> entry : migrations.entrySet()) {
+            String id = entry.getKey();
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM " + MIGRATIONS_TABLE + " WHERE migrationID = ?")) {
+                pstmt.setString(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    if (rs.getInt(1) > 0) {
+                        continue;
+                    }
+                }
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                entry.getValue().apply(connection);
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "INSERT INTO " + MIGRATIONS_TABLE + " (migrationID) VALUES (?)")) {
+                    pstmt.setString(1, id);
+                    pstmt.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                System.err.println("Migration failed: " + tableName + " " + id + ": " + e.getMessage());
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            System.out.println("Migration applied: " + tableName + " " + id);
+        }
+    }
+
+    /**
+     * Drops columns the schema no longer defines, if they are still present.
+     * <p>
+     * The size of each column's values is measured first and logged as the space reclaimed; the column is then
+     * dropped with a single {@code ALTER TABLE}, which rewrites the table once.
+     * </p>
+     *
+     * @param connection The database connection to use.
+     * @param tableName  The name of the table to clean up.
+     * @param columns    The obsolete column names.
+     * @return The approximate number of bytes reclaimed.
+     * @throws SQLException If a database access error occurs or a statement is invalid.
+     */
+    public static long dropObsoleteColumns(Connection connection, String tableName, String[] columns) throws SQLException {
+        if (columns.length == 0) {
+            return 0;
+        }
+        List<String> existingColumns = getExistingColumns(connection, tableName);
+        long reclaimed = 0;
+        for (String column : columns) {
+            if (!existingColumns.contains(column.toUpperCase())) {
+                continue;
+            }
+            long bytes;
+            try (Statement stmt = connection.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(String.format(
+                        "SELECT COALESCE(SUM(OCTET_LENGTH(CAST(%s AS VARCHAR))), 0) FROM %s", column, tableName))) {
+                    rs.next();
+                    bytes = rs.getLong(1);
+                }
+                stmt.execute(String.format("ALTER TABLE %s DROP COLUMN %s", tableName, column));
+            }
+            reclaimed += bytes;
+            System.out.println("Column dropped: " + tableName + "." + column + " (~" + bytes + " bytes reclaimed)");
+        }
+        return reclaimed;
     }
 
     /**
@@ -105,6 +234,39 @@ public class TableSyncUtil {
         }
     }
 
+    /**
+     * Drops {@code NOT NULL} from columns whose expected definition declares them {@code NULL}.
+     *
+     * @param connection      The database connection to use.
+     * @param tableName       The name of the table to modify.
+     * @param expectedColumns A map of expected column names and their definitions.
+     * @throws SQLException If a database access error occurs or the SQL statement is invalid.
+     */
+    private static void relaxNullability(Connection connection,
+                                         String tableName,
+                                         Map<String, String> expectedColumns) throws SQLException {
+        String sql = "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = ? AND TABLE_SCHEMA = SCHEMA() AND IS_NULLABLE = 'NO'";
+        List<String> notNullColumns = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, tableName.toUpperCase());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    notNullColumns.add(rs.getString("COLUMN_NAME").toUpperCase());
+                }
+            }
+        }
+        for (Map.Entry<String, String> entry : expectedColumns.entrySet()) {
+            if (notNullColumns.contains(entry.getKey().toUpperCase())
+                    && DECLARED_NULL.matcher(entry.getValue()).find()) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(String.format("ALTER TABLE %s ALTER COLUMN %s SET NULL", tableName, entry.getKey()));
+                    System.out.println("Column made nullable: " + tableName + "." + entry.getKey());
+                }
+            }
+        }
+    }
+
     /**
      * Checks if a table exists within the current database schema.
      *
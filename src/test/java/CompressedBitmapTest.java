@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import utils.CompressedBitmap;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CompressedBitmap} class.
+ * <p>
+ * Covers membership across chunks, conversion between the sparse and dense containers in both directions,
+ * and agreement with a {@link HashSet} under random updates.
+ * </p>
+ *
+ * @author Dhruv
+ * @see CompressedBitmap
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class CompressedBitmapTest {
+
+    /**
+     * Tests add, contains and remove across several 16-bit chunks.
+     */
+    @Test
+    @Order(1)
+    public void testAddContainsRemove() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.add(70_000));
+        assertTrue(bitmap.add(Integer.MAX_VALUE));
+        assertEquals(3, bitmap.cardinality());
+
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70_000));
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.contains(6));
+        assertFalse(bitmap.contains(65_541));
+
+        assertTrue(bitmap.remove(70_000));
+        assertFalse(bitmap.remove(70_000));
+        assertFalse(bitmap.contains(70_000));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    /**
+     * Tests that a dense chunk is stored in about one bit per value and converts back when thinned out.
+     */
+    @Test
+    @Order(2)
+    public void testDenseChunkConversion() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 60_000; i++) {
+            bitmap.add(i);
+        }
+        assertEquals(60_000, bitmap.cardinality());
+        assertTrue(bitmap.sizeInBytes() < 10_000, "Dense chunk should use the 8 KiB bitmap container");
+
+        for (int i = 0; i < 60_000; i += 2) {
+            bitmap.remove(i);
+        }
+        for (int i = 0; i < 60_000; i++) {
+            if (i % 100 != 1) {
+                bitmap.remove(i);
+            }
+        }
+        assertEquals(600, bitmap.cardinality());
+        assertTrue(bitmap.contains(101));
+        assertFalse(bitmap.contains(102));
+        assertTrue(bitmap.sizeInBytes() < 8_000, "Sparse chunk should shrink back to the array container");
+    }
+
+    /**
+     * Tests that random updates agree with a {@link HashSet}.
+     */
+    @Test
+    @Order(3)
+    public void testMatchesHashSet() {
+        Random random = new Random(42);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        Set<Integer> expected = new HashSet<>();
+        for (int n = 0; n < 50_000; n++) {
+            int value = random.nextInt(200_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), bitmap.remove(value));
+            } else {
+                assertEquals(expected.add(value), bitmap.add(value));
+            }
+        }
+        assertEquals(expected.size(), bitmap.cardinality());
+        for (int value = 0; value < 200_000; value++) {
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+    }
+}
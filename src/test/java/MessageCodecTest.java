@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import utils.MessageCodec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MessageCodec} class.
+ * <p>
+ * Verifies that bodies round-trip through the codec, that only long bodies which actually shrink are compressed,
+ * and that the format marker stays unambiguous.
+ * </p>
+ *
+ * @author Dhruv
+ * @see MessageCodec
+ */
+public class MessageCodecTest {
+
+    /**
+     * Tests that bodies below the threshold are stored as they are.
+     */
+    @Test
+    public void testShortBodiesStayPlain() {
+        MessageCodec codec = new MessageCodec(100);
+        String body = "A short message body.";
+        assertSame(body, codec.encode(body));
+        assertEquals(body, MessageCodec.decode(body));
+        assertNull(codec.encode(null));
+        assertNull(MessageCodec.decode(null));
+    }
+
+    /**
+     * Tests that long, repetitive bodies are compressed and decode back exactly, including non-ASCII text.
+     */
+    @Test
+    public void testLongBodiesRoundTrip() {
+        MessageCodec codec = new MessageCodec(100);
+        String body = "Ünïcödé answers about JavaFX layouts — ".repeat(40);
+        String stored = codec.encode(body);
+        assertTrue(MessageCodec.isCompressed(stored));
+        assertTrue(stored.length() < body.length() / 4);
+        assertEquals(body, MessageCodec.decode(stored));
+    }
+
+    /**
+     * Tests that a body which would grow when compressed is kept plain.
+     */
+    @Test
+    public void testIncompressibleBodyStaysPlain() {
+        MessageCodec codec = new MessageCodec(10);
+        String body = "qZ7#pL0x!vR2m@Kw9^Tb";
+        assertSame(body, codec.encode(body));
+    }
+
+    /**
+     * Tests that a threshold of zero turns compression off.
+     */
+    @Test
+    public void testDisabledCodec() {
+        MessageCodec codec = new MessageCodec(0);
+        assertFalse(codec.isEnabled());
+        String body = "x".repeat(5000);
+        assertSame(body, codec.encode(body));
+    }
+
+    /**
+     * Tests that a body starting with the marker character is always compressed, so it cannot be mistaken for an
+     * encoded body.
+     */
+    @Test
+    public void testMarkerLookalikeIsEscaped() {
+        MessageCodec codec = new MessageCodec(0);
+        String body = MessageCodec.DEFLATE_MARKER + "not really compressed";
+        String stored = codec.encode(body);
+        assertNotEquals(body, stored);
+        assertEquals(body, MessageCodec.decode(stored));
+    }
+
+    /**
+     * Tests that a damaged compressed body is reported rather than silently returned.
+     */
+    @Test
+    public void testCorruptBodyThrows() {
+        String stored = new MessageCodec(10).encode("corrupt me ".repeat(20));
+        String damaged = stored.substring(0, stored.length() / 2);
+        assertThrows(RuntimeException.class, () -> MessageCodec.decode(damaged));
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import utils.MessageCodec;
+
+import java.util.Random;
+
+/**
+ * Measures how much {@link MessageCodec} shrinks message bodies and what encoding and decoding cost.
+ * <p>
+ * Not a unit test: it is a plain program, run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes benchmarks.MessageCodecBenchmark}. Bodies are synthetic
+ * forum-like text of several lengths, built from a fixed seed so runs are comparable. Each length is warmed up
+ * before it is timed.
+ * </p>
+ *
+ * @author Dhruv
+ * @see MessageCodec
+ */
+public class MessageCodecBenchmark {
+    private static final int[] LENGTHS = {300, 600, 1000, 2000, 8000};
+    private static final int ITERATIONS = 20_000;
+    private static final String[] WORDS = ("the a JavaFX build fails when I run my test on CI because the database " +
+            "connection is not closed properly and the layout").split(" ");
+
+    /**
+     * Runs the benchmark and prints one line per body length.
+     *
+     * @param args Optionally, the compression threshold; defaults to the codec's default of 512.
+     */
+    public static void main(String[] args) {
+        MessageCodec codec = new MessageCodec(args.length > 0 ? Integer.parseInt(args[0]) : 512);
+        Random random = new Random(1);
+        for (int length : LENGTHS) {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < length) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            String body = text.substring(0, length);
+
+            String stored = body;
+            for (int i = 0; i < ITERATIONS; i++) {
+                stored = codec.encode(body);
+                MessageCodec.decode(stored);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                stored = codec.encode(body);
+            }
+            long encoded = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                MessageCodec.decode(stored);
+            }
+            long decoded = System.nanoTime();
+
+            System.out.printf("%5d chars -> %5d stored (%3.0f%%, %s)  encode %6.1f us  decode %6.1f us%n",
+                    length, stored.length(), 100.0 * stored.length() / length,
+                    MessageCodec.isCompressed(stored) ? "compressed" : "plain",
+                    (encoded - start) / 1e3 / ITERATIONS, (decoded - encoded) / 1e3 / ITERATIONS);
+        }
+    }
+}
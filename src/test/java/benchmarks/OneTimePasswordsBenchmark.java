@@ -0,0 +1,54 @@
+package benchmarks;
+
+import database.repository.repos.OneTimePasswords;
+import utils.Helpers;
+import utils.PasswordUtil;
+
+/**
+ * Measures what checking an OTP costs when a user has several outstanding, comparing the scan used for OTPs issued
+ * without a key ID against the single verification of a key ID lookup.
+ * <p>
+ * Not a unit test: it is a plain program, run after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes:<dependency classpath> benchmarks.OneTimePasswordsBenchmark}.
+ * Only the password hashing is timed, since it dominates both paths; the database lookups are left out. The scan is
+ * timed for a wrong value, which has to verify against every outstanding OTP. Hashing is warmed up before it is
+ * timed.
+ * </p>
+ *
+ * @author Dhruv
+ * @see OneTimePasswords#check(int, String)
+ */
+public class OneTimePasswordsBenchmark {
+    private static final int[] OUTSTANDING = {1, 2, 5, 10};
+    private static final int WARMUP = 3;
+
+    /**
+     * Runs the benchmark and prints one line per number of outstanding OTPs.
+     *
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        int most = OUTSTANDING[OUTSTANDING.length - 1];
+        String[] hashes = new String[most];
+        for (int i = 0; i < most; i++) {
+            hashes[i] = PasswordUtil.hashPassword(Helpers.generateRandomCode(10, true));
+        }
+        String wrong = Helpers.generateRandomCode(10, true);
+        for (int i = 0; i < WARMUP; i++) {
+            PasswordUtil.verifyPassword(hashes[0], wrong);
+        }
+
+        for (int outstanding : OUTSTANDING) {
+            long start = System.nanoTime();
+            for (int i = 0; i < outstanding; i++) {
+                PasswordUtil.verifyPassword(hashes[i], wrong);
+            }
+            long scanned = System.nanoTime();
+            PasswordUtil.verifyPassword(hashes[outstanding - 1], wrong);
+            long lookedUp = System.nanoTime();
+
+            System.out.printf("%2d outstanding  scan %7.1f ms  key ID lookup %6.1f ms%n",
+                    outstanding, (scanned - start) / 1e6, (lookedUp - scanned) / 1e6);
+        }
+    }
+}
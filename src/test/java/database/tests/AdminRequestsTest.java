@@ -3,6 +3,7 @@ package database.tests;
 import database.BaseDatabaseTest;
 import database.model.entities.AdminRequest;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.AdminRequests;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
@@ -12,6 +13,7 @@ import utils.requests.AdminActions;
 import utils.requests.RequestState;
 
 import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -210,4 +212,83 @@ public class AdminRequestsTest extends BaseDatabaseTest {
         AdminRequest none = arRepo.setState(999999, RequestState.Accepted);
         assertNull(none);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests fetching several states at once with paging, newest first, with requester and target joined.
+     */
+    @Test
+    @Order(11)
+    public void testFilterFetchMultipleStatesPaged() {
+        EnumSet<RequestState> solved = EnumSet.of(RequestState.Accepted, RequestState.Denied);
+        List<AdminRequest> all = arRepo.filterFetch(solved, null, Page.first(50));
+
+        assertTrue(all.stream().anyMatch(r -> r.getId() == delReqId));
+        assertTrue(all.stream().anyMatch(r -> r.getId() == updReqId));
+        assertTrue(all.stream().allMatch(r -> solved.contains(r.getState())));
+        assertTrue(all.stream().allMatch(r -> r.getRequester() != null && r.getTarget() != null));
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getId() > all.get(i).getId(), "Results should be newest first");
+        }
+
+        List<AdminRequest> deletesOnly = arRepo.filterFetch(solved, EnumSet.of(AdminActions.DeleteUser), Page.first(50));
+        assertTrue(deletesOnly.stream().allMatch(r -> r.getType() == AdminActions.DeleteUser));
+
+        List<AdminRequest> firstPage = arRepo.filterFetch(solved, null, Page.first(1));
+        List<AdminRequest> secondPage = arRepo.filterFetch(solved, null, Page.first(1).next());
+        assertEquals(1, firstPage.size());
+        assertEquals(all.get(0).getId(), firstPage.get(0).getId());
+        assertEquals(all.get(1).getId(), secondPage.get(0).getId());
+    }
+
+    /**
+     * Tests that the in-memory counters follow create, setState and delete, and match a rebuild.
+     */
+    @Test
+    @Order(12)
+    public void testCountsTrackWrites() throws SQLException {
+        int pending = arRepo.count(RequestState.Pending);
+        int pendingPasswords = arRepo.count(RequestState.Pending, AdminActions.RequestPassword);
+        int accepted = arRepo.count(RequestState.Accepted);
+
+        User instructor = usersRepo.getById(instructorId);
+        User target = usersRepo.getById(targetBId);
+        AdminRequest req = arRepo.create(new AdminRequest(
+                instructor, target, AdminActions.RequestPassword, RequestState.Pending, "Counter check", 0));
+        assertEquals(pending + 1, arRepo.count(RequestState.Pending));
+        assertEquals(pendingPasswords + 1, arRepo.count(RequestState.Pending, AdminActions.RequestPassword));
+
+        AdminRequest moved = arRepo.setState(req.getId(), RequestState.Accepted);
+        assertEquals(RequestState.Accepted, moved.getState());
+        assertEquals(pending, arRepo.count(RequestState.Pending));
+        assertEquals(accepted + 1, arRepo.count(RequestState.Accepted));
+
+        AdminRequests.invalidateCounts(appContext.getConnection());
+        assertEquals(pending, arRepo.count(RequestState.Pending));
+        assertEquals(accepted + 1, arRepo.count(RequestState.Accepted));
+
+        arRepo.delete(req.getId());
+        assertEquals(accepted, arRepo.count(RequestState.Accepted));
+    }
+
+    /**
+     * Tests that an update rejected by a foreign key leaves the request and the counters untouched.
+     */
+    @Test
+    @Order(13)
+    public void testFailedUpdateKeepsRow() throws SQLException {
+        AdminRequest req = arRepo.create(new AdminRequest(usersRepo.getById(instructorId), usersRepo.getById(targetBId),
+                AdminActions.RequestPassword, RequestState.Pending, "Rollback check", 0));
+        int pending = arRepo.count(RequestState.Pending);
+
+        User ghost = new User("ghost", "No", "One", "pwG", "ghost@example.com", 0);
+        ghost.setId(999999);
+        req.setTarget(ghost);
+        assertThrows(RuntimeException.class, () -> arRepo.update(req));
+
+        AdminRequest stored = arRepo.getById(req.getId());
+        assertNotNull(stored);
+        assertEquals(targetBId, stored.getTarget().getId());
+        assertEquals(pending, arRepo.count(RequestState.Pending));
+        arRepo.delete(req.getId());
+    }
+}
@@ -96,4 +96,71 @@ public class AnnouncementsTest extends BaseDatabaseTest {
         Announcement shouldBeGone = announcementsRepo.getById(1);
         assertNull(shouldBeGone, "Announcement #1 should have been deleted");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that writes bump the feed version, that getSince reports changes and deletes, and that callers cannot
+     * change the cached snapshot through what it hands out.
+     */
+    @Test
+    @Order(6)
+    public void testVersionedFeed() {
+        long start = announcementsRepo.getFeedVersion();
+        assertTrue(announcementsRepo.getSince(start).isEmpty());
+
+        Announcement first = announcementsRepo.create(new Announcement(new Message(staffUserId, "Feed entry number one"), "Feed One"));
+        Announcement second = announcementsRepo.create(new Announcement(new Message(staffUserId, "Feed entry number two"), "Feed Two"));
+        long afterCreates = announcementsRepo.getFeedVersion();
+        assertTrue(afterCreates > start);
+
+        List<Announcement> handedOut = announcementsRepo.getAll();
+        assertFalse(handedOut.isEmpty());
+        assertNotSame(handedOut, announcementsRepo.getAll(), "Each caller should get its own copy of the snapshot");
+        handedOut.forEach(a -> a.setTitle("Changed by a caller").getMessage().setContent("Changed by a caller too"));
+        assertTrue(announcementsRepo.getAll().stream().noneMatch(a -> a.getTitle().equals("Changed by a caller")
+                || a.getMessage().getContent().equals("Changed by a caller too")));
+
+        List<Announcement> latest = announcementsRepo.getLatest(2);
+        assertEquals(List.of(second.getId(), first.getId()), latest.stream().map(Announcement::getId).toList());
+
+        Announcements.Feed created = announcementsRepo.getSince(start);
+        assertEquals(afterCreates, created.getVersion());
+        assertEquals(List.of(first.getId(), second.getId()), created.getChanged().stream().map(Announcement::getId).toList());
+
+        Announcement edited = announcementsRepo.getById(first.getId());
+        edited.setTitle("Feed One, edited");
+        announcementsRepo.update(edited);
+        announcementsRepo.delete(second.getId());
+
+        Announcements.Feed changes = announcementsRepo.getSince(afterCreates);
+        assertTrue(changes.getVersion() > afterCreates);
+        assertEquals(List.of(first.getId()), changes.getChanged().stream().map(Announcement::getId).toList());
+        assertEquals("Feed One, edited", changes.getChanged().getFirst().getTitle());
+        assertEquals(List.of(second.getId()), changes.getDeletedIds());
+        assertTrue(announcementsRepo.getAll().stream().noneMatch(a -> a.getId() == second.getId()));
+        assertTrue(announcementsRepo.getSince(changes.getVersion()).isEmpty());
+    }
+
+    /**
+     * Tests that removing an announcement's author reports the delete and never moves the feed version back.
+     */
+    @Test
+    @Order(7)
+    public void testAuthorDeleteLeavesTombstone() {
+        User author = new User("annAuthor", "Gone", "Author", "pw", "annauthor@example.com",
+                RolesUtil.rolesToInt(new Roles[]{Roles.STAFF}));
+        usersRepo.create(author);
+        Announcement kept = announcementsRepo.create(new Announcement(new Message(staffUserId, "Stays"), "Kept"));
+        Announcement gone = announcementsRepo.create(new Announcement(new Message(author.getId(), "Goes"), "Gone"));
+        long held = announcementsRepo.getFeedVersion();
+
+        usersRepo.delete(author.getId());
+
+        assertTrue(announcementsRepo.getFeedVersion() > held);
+        Announcements.Feed feed = announcementsRepo.getSince(held);
+        assertEquals(List.of(gone.getId()), feed.getDeletedIds());
+        assertTrue(feed.getChanged().isEmpty());
+        assertNull(announcementsRepo.getById(gone.getId()));
+        assertNotNull(announcementsRepo.getById(kept.getId()));
+        assertTrue(announcementsRepo.getSince(feed.getVersion()).isEmpty());
+    }
+}
@@ -1,6 +1,7 @@
 package database.tests;
 
 import database.BaseDatabaseTest;
+import database.migration.tables.AnswersTable;
 import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Question;
@@ -10,6 +11,11 @@ import database.repository.repos.Questions;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -187,4 +193,174 @@ public class AnswersTest extends BaseDatabaseTest {
                     "Each answer must contain 'search'");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a whole reply thread comes back in depth-first order with depths and paths.
+     */
+    @Test
+    @Order(13)
+    public void testGetThread() {
+        Answer root = answersRepo.create(new Answer(new Message(2, "Thread root answer"), 1, null, false));
+        Answer a = answersRepo.create(new Answer(new Message(1, "First reply to root"), null, root.getId(), false));
+        Answer b = answersRepo.create(new Answer(new Message(2, "Second reply to root"), null, root.getId(), false));
+        Answer a1 = answersRepo.create(new Answer(new Message(2, "Reply to first reply"), null, a.getId(), false));
+        Answer a1x = answersRepo.create(new Answer(new Message(1, "Reply nested deeper"), null, a1.getId(), false));
+
+        List<Answers.ThreadEntry> thread = answersRepo.getThread(root.getId());
+        assertEquals(List.of(root.getId(), a.getId(), a1.getId(), a1x.getId(), b.getId()),
+                thread.stream().map(e -> e.getAnswer().getId()).toList());
+        assertEquals(List.of(0, 1, 2, 3, 1), thread.stream().map(Answers.ThreadEntry::getDepth).toList());
+        assertEquals("Reply nested deeper", thread.get(3).getAnswer().getMessage().getContent());
+        assertTrue(thread.get(3).getPath().startsWith(thread.get(2).getPath() + "/"));
+
+        // A subtree is a thread of its own
+        assertEquals(3, answersRepo.getThread(a.getId()).size());
+        assertTrue(answersRepo.getThread(-1).isEmpty());
+    }
+
+    /**
+     * Tests that materialized paths follow creates and moves, and back subtree counts, activity order,
+     * subtree deletes and the backfill.
+     */
+    @Test
+    @Order(14)
+    public void testMaterializedPaths() throws Exception {
+        // Explicit, increasing timestamps keep the activity order independent of clock resolution
+        long base = System.currentTimeMillis();
+        Question q = appContext.questions().create(new Question(new Message(1, "Which thread is busiest?"), "Busiest thread"));
+        Answer x = answersRepo.create(new Answer(new Message(2, "Older top-level answer")
+                .setCreatedAt(new Timestamp(base + 1000)), q.getId(), null, false));
+        Answer y = answersRepo.create(new Answer(new Message(2, "Newer top-level answer")
+                .setCreatedAt(new Timestamp(base + 2000)), q.getId(), null, false));
+        Answer x1 = answersRepo.create(new Answer(new Message(1, "Reply below the older one")
+                .setCreatedAt(new Timestamp(base + 3000)), null, x.getId(), false));
+        Answer x1a = answersRepo.create(new Answer(new Message(2, "Latest reply, two levels deep")
+                .setCreatedAt(new Timestamp(base + 4000)), null, x1.getId(), false));
+
+        assertEquals(2, answersRepo.countSubtree(x.getId()));
+        assertEquals(0, answersRepo.countSubtree(y.getId()));
+        assertEquals(List.of(x.getId(), y.getId()),
+                answersRepo.getRepliesToQuestionByActivity(q.getId()).stream().map(Answer::getId).toList());
+
+        // Moving x1 under y carries its reply along
+        x1.setParentAnswerId(y.getId());
+        assertNotNull(answersRepo.update(x1));
+        assertEquals(0, answersRepo.countSubtree(x.getId()));
+        assertEquals(2, answersRepo.countSubtree(y.getId()));
+        assertEquals(List.of(0, 1, 2), answersRepo.getThread(y.getId()).stream().map(Answers.ThreadEntry::getDepth).toList());
+        assertEquals(List.of(y.getId(), x.getId()),
+                answersRepo.getRepliesToQuestionByActivity(q.getId()).stream().map(Answer::getId).toList());
+
+        // Rows without paths are filled in parent-first
+        try (var stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Answers SET path = NULL, depth = NULL WHERE answerID IN ("
+                    + y.getId() + ", " + x1.getId() + ", " + x1a.getId() + ")");
+        }
+        assertEquals(3, answersRepo.backfillPaths());
+        assertEquals(2, answersRepo.countSubtree(y.getId()));
+
+        assertEquals(3, answersRepo.deleteSubtree(y.getId()));
+        assertNull(answersRepo.getById(x1a.getId()));
+        assertNotNull(answersRepo.getById(x.getId()));
+    }
+
+    /**
+     * Tests that pinning moves the single pin between answers and that the index rejects a second pin.
+     */
+    @Test
+    @Order(15)
+    public void testPinExclusive() {
+        Question q = appContext.questions().create(new Question(new Message(1, "Which answer is the solution?"), "Pick one"));
+        Answer first = answersRepo.create(new Answer(new Message(2, "First candidate answer"), q.getId(), null, false));
+        Answer second = answersRepo.create(new Answer(new Message(2, "Second candidate answer"), q.getId(), null, false));
+        Answer reply = answersRepo.create(new Answer(new Message(1, "A reply, never pinnable"), null, first.getId(), false));
+
+        assertTrue(answersRepo.pinExclusive(q.getId(), first.getId()));
+        assertTrue(answersRepo.pinExclusive(q.getId(), second.getId()));
+        assertFalse(answersRepo.getById(first.getId()).getIsPinned());
+        assertTrue(answersRepo.getById(second.getId()).getIsPinned());
+
+        // A foreign answer leaves the current pin alone
+        assertFalse(answersRepo.pinExclusive(q.getId(), reply.getId()));
+        assertTrue(answersRepo.getById(second.getId()).getIsPinned());
+
+        first.setPinned(true);
+        assertThrows(RuntimeException.class, () -> answersRepo.update(first));
+
+        assertTrue(answersRepo.togglePin(first.getId()).getIsPinned());
+        assertFalse(answersRepo.getById(second.getId()).getIsPinned());
+
+        assertTrue(answersRepo.unpin(q.getId()));
+        assertFalse(appContext.questions().hasPinnedAnswer(q.getId()));
+    }
+
+    /**
+     * Tests that the pin clean-up runs as a recorded one-off migration, keeping the oldest pin.
+     */
+    @Test
+    @Order(16)
+    public void testSinglePinMigration() throws Exception {
+        Question q = appContext.questions().create(new Question(new Message(1, "Pinned twice by an old version"), "Legacy pins"));
+        Answer older = answersRepo.create(new Answer(new Message(2, "Pinned first"), q.getId(), null, false));
+        Answer newer = answersRepo.create(new Answer(new Message(2, "Pinned second"), q.getId(), null, false));
+
+        Connection connection = appContext.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP INDEX idx_answers_one_pin");
+            stmt.executeUpdate("UPDATE Answers SET isPinned = TRUE WHERE answerID IN ("
+                    + older.getId() + ", " + newer.getId() + ")");
+            stmt.executeUpdate("DELETE FROM SchemaMigrations WHERE migrationID = 'answers-single-pin'");
+        }
+        new AnswersTable().syncTable(connection);
+
+        assertTrue(answersRepo.getById(older.getId()).getIsPinned());
+        assertFalse(answersRepo.getById(newer.getId()).getIsPinned());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM SchemaMigrations WHERE migrationID = 'answers-single-pin'")) {
+            rs.next();
+            assertEquals(1, rs.getInt(1));
+        }
+
+        // Later syncs skip the recorded migration and only re-check the index
+        answersRepo.pinExclusive(q.getId(), newer.getId());
+        new AnswersTable().syncTable(connection);
+        assertTrue(answersRepo.getById(newer.getId()).getIsPinned());
+        assertThrows(SQLException.class, () -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("UPDATE Answers SET isPinned = TRUE WHERE answerID = " + older.getId());
+            }
+        });
+    }
+
+    /**
+     * Tests that the schema sync backfills answer paths and rebuilds question stats once, as migrations.
+     */
+    @Test
+    @Order(17)
+    public void testPathAndStatsMigrations() throws Exception {
+        Question q = appContext.questions().create(new Question(new Message(1, "Written before paths"), "Legacy paths"));
+        Answer top = answersRepo.create(new Answer(new Message(2, "Old top-level answer"), q.getId(), null, false));
+        Answer reply = answersRepo.create(new Answer(new Message(1, "Old reply to the answer"), null, top.getId(), false));
+
+        Connection connection = appContext.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("UPDATE Answers SET path = NULL, depth = NULL WHERE answerID IN ("
+                    + top.getId() + ", " + reply.getId() + ")");
+            stmt.executeUpdate("UPDATE Questions SET answerCount = 0 WHERE questionID = " + q.getId());
+            stmt.executeUpdate("DELETE FROM SchemaMigrations WHERE migrationID IN ('answers-paths', 'questions-stats')");
+        }
+        new AnswersTable().syncTable(connection);
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT depth FROM Answers WHERE answerID = " + reply.getId())) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT answerCount FROM Questions WHERE questionID = " + q.getId())) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+}
+
@@ -0,0 +1,103 @@
+package database.tests;
+
+import database.BaseDatabaseTest;
+import database.model.entities.Invite;
+import database.model.entities.User;
+import database.repository.repos.Invites;
+import org.junit.jupiter.api.*;
+import utils.Helpers;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Invites} repository.
+ * <p>
+ * This test class verifies invite creation and redemption, bulk generation, and the expiry sweep.
+ * </p>
+ *
+ * @author Dhruv
+ * @see Invites
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class InvitesTest extends BaseDatabaseTest {
+
+    private static Invites invitesRepo;
+    private static int adminId;
+
+    /**
+     * Sets up the repository and the admin issuing invites.
+     */
+    @BeforeAll
+    public static void setupInvites() {
+        User admin = new User("inviteAdmin", "Invite", "Admin", "pw", "inviteadmin@example.com", 1);
+        appContext.users().create(admin);
+        adminId = admin.getId();
+        invitesRepo = appContext.invites();
+    }
+
+    /**
+     * Tests that a fresh invite can be redeemed once and an expired one cannot.
+     */
+    @Test
+    @Order(1)
+    public void testFindInvite() {
+        Invite fresh = invitesRepo.create(new Invite(adminId).setRoles(4));
+        Invite stale = invitesRepo.create(new Invite(adminId)
+                .setCreatedAt(Helpers.getCurrentTimeInSeconds() - Invites.INVITE_TTL_SECONDS - 5));
+
+        Invite found = invitesRepo.findInvite(fresh.getCode());
+        assertNotNull(found);
+        assertEquals(4, found.getRoles());
+        assertNull(invitesRepo.findInvite(fresh.getCode()), "An invite can only be redeemed once");
+        assertNull(invitesRepo.findInvite(stale.getCode()), "Expired invites cannot be redeemed");
+    }
+
+    /**
+     * Tests that bulk generation creates distinct, redeemable codes with their IDs set.
+     */
+    @Test
+    @Order(2)
+    public void testCreateBulk() {
+        List<Invite> invites = invitesRepo.createBulk(2500, adminId, 2);
+        assertEquals(2500, invites.size());
+
+        Set<String> codes = new HashSet<>();
+        Set<Integer> ids = new HashSet<>();
+        for (Invite invite : invites) {
+            assertEquals(10, invite.getCode().length());
+            codes.add(invite.getCode());
+            ids.add(invite.getId());
+        }
+        assertEquals(2500, codes.size(), "Bulk codes must be unique");
+        assertEquals(2500, ids.size(), "Every bulk invite must get its ID");
+
+        Invite last = invitesRepo.getById(invites.getLast().getId());
+        assertEquals(invites.getLast().getCode(), last.getCode());
+        assertEquals(2, invitesRepo.findInvite(invites.getFirst().getCode()).getRoles());
+        assertTrue(invitesRepo.createBulk(0, adminId, 2).isEmpty());
+    }
+
+    /**
+     * Tests that the sweep deletes only expired invites and that the stats follow.
+     */
+    @Test
+    @Order(3)
+    public void testSweepExpired() {
+        long expiredAt = Helpers.getCurrentTimeInSeconds() - Invites.INVITE_TTL_SECONDS - 60;
+        for (int i = 0; i < 3; i++) {
+            invitesRepo.create(new Invite(adminId).setCreatedAt(expiredAt));
+        }
+        Invites.InviteStats before = invitesRepo.getStats();
+        assertTrue(before.getExpired() >= 3);
+        assertTrue(before.getLive() >= 2499);
+
+        assertEquals(before.getExpired(), invitesRepo.sweepExpired());
+        Invites.InviteStats after = invitesRepo.getStats();
+        assertEquals(0, after.getExpired());
+        assertEquals(before.getLive(), after.getLive());
+    }
+}
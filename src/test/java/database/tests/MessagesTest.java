@@ -0,0 +1,166 @@
+package database.tests;
+
+import database.BaseDatabaseTest;
+import database.model.entities.Answer;
+import database.model.entities.Message;
+import database.model.entities.PrivateMessage;
+import database.model.entities.Question;
+import database.model.entities.User;
+import database.repository.repos.Answers;
+import database.repository.repos.Messages;
+import database.repository.repos.Questions;
+import database.repository.repos.Users;
+import org.junit.jupiter.api.*;
+import utils.MessageCodec;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Messages} repository.
+ * <p>
+ * This test class verifies how message bodies are stored: compression through the configured codec, the
+ * recompression job, and archiving old messages of closed questions and inactive chats.
+ * </p>
+ *
+ * <p>
+ * Messages are created through the {@link Questions}, {@link Answers} and private message repositories, as the
+ * application does.
+ * </p>
+ *
+ * @author Dhruv
+ * @see Messages
+ * @see MessageCodec
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class MessagesTest extends BaseDatabaseTest {
+
+    private static Questions questionsRepo;
+
+    /**
+     * Sets up the repository instances and initializes users for testing.
+     */
+    @BeforeAll
+    public static void setupMessages() {
+        Users userRepo = appContext.users();
+        // Create two users (ID=1 and ID=2) to write the messages
+        userRepo.create(new User("msgUser1", "Message", "Writer", "somePassword", "msg1@example.com", 0));
+        userRepo.create(new User("msgUser2", "Another", "Writer", "somePassword", "msg2@example.com", 0));
+
+        questionsRepo = appContext.questions();
+    }
+
+    /**
+     * Tests that long bodies are stored compressed, read back transparently, and rewritten by the recompression job.
+     */
+    @Test
+    @Order(1)
+    public void testCompressedBodies() throws Exception {
+        String body = "Why does my build fail on the CI server but pass locally? ".repeat(20);
+        Question q = questionsRepo.create(new Question(new Message(2, body), "Long question body"));
+        int messageId = q.getMessage().getId();
+        assertTrue(MessageCodec.isCompressed(storedContent(messageId)));
+        assertEquals(body, questionsRepo.getById(q.getId()).getMessage().getContent());
+        assertTrue(questionsRepo.searchQuestions("CI server").stream().anyMatch(x -> x.getId() == q.getId()));
+
+        // Rows written plain, e.g. before compression was enabled, are picked up by the job
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Messages SET content = '" + body + "' WHERE messageID = " + messageId);
+        }
+        Messages messages = appContext.messages();
+        assertTrue(messages.recompress() >= 1);
+        assertTrue(MessageCodec.isCompressed(storedContent(messageId)));
+        assertEquals(0, messages.recompress());
+        // Progress is kept, so later runs only look at messages written since
+        try (Statement stmt = appContext.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT codec, lastMessageID FROM MessageCodecCheckpoint")) {
+            assertTrue(rs.next());
+            assertEquals("deflate>=" + MessageCodec.DEFAULT.getThreshold(), rs.getString(1));
+            assertTrue(rs.getInt(2) >= messageId);
+        }
+
+        // Switching compression off stores bodies plain again
+        assertTrue(new Messages(appContext.getConnection(), new MessageCodec(0)).recompress() >= 1);
+        assertEquals(body, storedContent(messageId));
+        assertEquals(body, questionsRepo.getById(q.getId()).getMessage().getContent());
+        messages.recompress();
+    }
+
+    /**
+     * Tests that old messages of a resolved question move to the archive, read back when loaded explicitly, and
+     * come back to the live table when edited, while an unresolved question stays put.
+     */
+    @Test
+    @Order(2)
+    public void testArchiveClosedQuestion() throws Exception {
+        Answers answersRepo = appContext.answers();
+        Messages messages = appContext.messages();
+        Question closed = questionsRepo.create(new Question(new Message(2, "An old, settled question"), "Archived"));
+        Answer answer = answersRepo.create(new Answer(new Message(1, "The accepted old answer"), closed.getId(), null, false));
+        Answer reply = answersRepo.create(new Answer(new Message(2, "Thanks, that did it"), null, answer.getId(), false));
+        answersRepo.pinExclusive(closed.getId(), answer.getId());
+        PrivateMessage pm = appContext.privateMessages().create(
+                new PrivateMessage(new Message(1, "Private note on the old question"), closed.getId(), null));
+        Question open = questionsRepo.create(new Question(new Message(2, "An old question nobody solved"), "Still open"));
+
+        List<Integer> ids = List.of(closed.getMessage().getId(), answer.getMessage().getId(), reply.getMessage().getId(),
+                pm.getMessage().getId(), open.getMessage().getId());
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Messages SET createdAt = DATEADD('DAY', -400, createdAt) WHERE messageID IN ("
+                    + String.join(", ", ids.stream().map(String::valueOf).toList()) + ")");
+        }
+        questionsRepo.rebuildStats();
+
+        assertTrue(messages.archive(new Timestamp(System.currentTimeMillis() - 30 * 86_400_000L)) >= 4);
+        for (int id : ids.subList(0, 4)) {
+            assertNull(storedContent(id));
+            assertNotNull(messages.getArchivedContent(id));
+        }
+        assertEquals("An old question nobody solved", storedContent(open.getMessage().getId()));
+
+        Message archived = questionsRepo.getById(closed.getId()).getMessage();
+        assertTrue(archived.isArchived());
+        assertNull(archived.getContent());
+        assertEquals("An old, settled question", messages.loadArchived(archived).getContent());
+        assertFalse(archived.isArchived());
+
+        List<Message> thread = List.of(answersRepo.getById(answer.getId()).getMessage(),
+                answersRepo.getById(reply.getId()).getMessage(),
+                appContext.privateMessages().getById(pm.getId()).getMessage(),
+                questionsRepo.getById(open.getId()).getMessage());
+        assertEquals(3, messages.loadArchived(thread));
+        assertEquals("Thanks, that did it", thread.get(1).getContent());
+        assertEquals("Private note on the old question", thread.get(2).getContent());
+        assertEquals("An old question nobody solved", thread.get(3).getContent());
+        assertTrue(questionsRepo.searchQuestions("settled").stream().anyMatch(x -> x.getId() == closed.getId()));
+
+        answersRepo.updateAnswerContent(answer.getId(), "The accepted old answer, edited");
+        assertEquals("The accepted old answer, edited", storedContent(answer.getMessage().getId()));
+        assertNull(messages.getArchivedContent(answer.getMessage().getId()));
+
+        // Changing other fields of an archived message keeps its body
+        assertNotNull(questionsRepo.updateQuestionFields(closed.getId(), "Archived, renamed", null));
+        Question renamed = questionsRepo.getById(closed.getId());
+        assertEquals("Archived, renamed", renamed.getTitle());
+        assertEquals("An old, settled question", messages.loadArchived(renamed.getMessage()).getContent());
+        assertTrue(answersRepo.togglePin(reply.getId()).getIsPinned());
+        assertEquals("Thanks, that did it",
+                messages.loadArchived(answersRepo.getById(reply.getId()).getMessage()).getContent());
+    }
+
+    /**
+     * Reads a message body exactly as stored.
+     */
+    private String storedContent(int messageId) throws Exception {
+        try (Statement stmt = appContext.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT content FROM Messages WHERE messageID = " + messageId)) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package database.tests;
+
+import database.BaseDatabaseTest;
+import database.model.entities.OneTimePassword;
+import database.model.entities.User;
+import database.repository.repos.OneTimePasswords;
+import org.junit.jupiter.api.*;
+import utils.PasswordUtil;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link OneTimePasswords} repository.
+ * <p>
+ * This test class verifies issuing OTPs in {@code keyId.secret} form, checking them by key ID, expiry, and the
+ * cleanup of used and expired OTPs.
+ * </p>
+ *
+ * @author Dhruv
+ * @see OneTimePasswords
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class OneTimePasswordsTest extends BaseDatabaseTest {
+
+    private static OneTimePasswords otpRepo;
+    private static int adminId, targetId;
+
+    /**
+     * Sets up the repository and the users issuing and receiving OTPs.
+     */
+    @BeforeAll
+    public static void setupOtps() {
+        User admin = new User("otpAdmin", "Otp", "Admin", "pw", "otpadmin@example.com", 1);
+        User target = new User("otpTarget", "Otp", "Target", "pw", "otptarget@example.com", 0);
+        appContext.users().create(admin);
+        appContext.users().create(target);
+        adminId = admin.getId();
+        targetId = target.getId();
+        otpRepo = appContext.oneTimePasswords();
+    }
+
+    /**
+     * Tests that an OTP is accepted once, by its key ID, and only for its target.
+     */
+    @Test
+    @Order(1)
+    public void testCheckByKeyId() {
+        OneTimePassword other = new OneTimePassword(adminId, targetId);
+        otpRepo.create(other);
+        OneTimePassword otp = new OneTimePassword(adminId, targetId);
+        otpRepo.create(otp);
+
+        String plain = otp.getPlainOtp();
+        assertTrue(plain.startsWith(otp.getKeyId() + "."));
+        assertNotNull(otp.getExpiresAt());
+
+        assertFalse(otpRepo.check(adminId, plain), "An OTP only works for its target");
+        assertFalse(otpRepo.check(targetId, otp.getKeyId() + ".wrongSecret"));
+        assertFalse(otpRepo.check(targetId, "nokey123.whatever"));
+        assertTrue(otpRepo.check(targetId, plain));
+        assertFalse(otpRepo.check(targetId, plain), "An OTP can only be used once");
+        assertFalse(otpRepo.getById(other.getId()).isUsed());
+    }
+
+    /**
+     * Tests that an expired OTP is rejected.
+     */
+    @Test
+    @Order(2)
+    public void testExpiredOtpRejected() {
+        OneTimePassword otp = new OneTimePassword(adminId, targetId)
+                .setExpiresAt(new Timestamp(System.currentTimeMillis() - 1000));
+        otpRepo.create(otp);
+        assertFalse(otpRepo.check(targetId, otp.getPlainOtp()));
+    }
+
+    /**
+     * Tests that OTPs issued before key IDs are still accepted through the fallback.
+     */
+    @Test
+    @Order(3)
+    public void testLegacyOtp() throws Exception {
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("INSERT INTO OneTimePasswords (otpValue, creatorID, targetID, isUsed, expiresAt) VALUES ('"
+                    + PasswordUtil.hashPassword("legacy#Otp1") + "', " + adminId + ", " + targetId
+                    + ", FALSE, DATEADD('HOUR', 1, CURRENT_TIMESTAMP))");
+        }
+        assertTrue(otpRepo.check(targetId, "legacy#Otp1"));
+        assertFalse(otpRepo.check(targetId, "legacy#Otp1"));
+    }
+
+    /**
+     * Tests that cleanup removes used and expired OTPs and keeps live ones.
+     */
+    @Test
+    @Order(4)
+    public void testDeleteUsedAndExpired() {
+        OneTimePassword live = new OneTimePassword(adminId, targetId);
+        otpRepo.create(live);
+
+        assertTrue(otpRepo.deleteUsedAndExpired() >= 3);
+        assertNotNull(otpRepo.getById(live.getId()));
+        assertTrue(otpRepo.getAll().stream().noneMatch(OneTimePassword::isUsed));
+        assertEquals(0, otpRepo.deleteUsedAndExpired());
+    }
+
+    /**
+     * Tests that an OTP whose random key ID is already taken is stored under a fresh one and still works.
+     */
+    @Test
+    @Order(5)
+    public void testKeyIdCollisionRetries() {
+        OneTimePassword first = new OneTimePassword(adminId, targetId);
+        otpRepo.create(first);
+        OneTimePassword second = new OneTimePassword(adminId, targetId);
+        second.setKeyId(first.getKeyId());
+        otpRepo.create(second);
+
+        assertTrue(second.getId() > 0);
+        assertNotEquals(first.getKeyId(), second.getKeyId());
+        assertEquals(second.getKeyId(), otpRepo.getById(second.getId()).getKeyId());
+        assertTrue(otpRepo.check(targetId, second.getPlainOtp()));
+        assertTrue(otpRepo.check(targetId, first.getPlainOtp()));
+    }
+}
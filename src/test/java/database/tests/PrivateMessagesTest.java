@@ -5,11 +5,18 @@ import database.model.entities.Message;
 import database.model.entities.PrivateMessage;
 import database.model.entities.Question;
 import database.model.entities.User;
+import database.migration.tables.PrivateMessageTable;
+import database.repository.Page;
 import database.repository.repos.PrivateMessages;
 import database.repository.repos.Questions;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
+import utils.TableSyncUtil;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -160,4 +167,98 @@ public class PrivateMessagesTest extends BaseDatabaseTest {
         PrivateMessage deleted = pmRepo.getById(1);
         assertNull(deleted, "PrivateMessage #1 should be deleted");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a conversation comes back as one chain, following the first reply at each hop, with sender names.
+     */
+    @Test
+    @Order(8)
+    public void testGetConversation() {
+        PrivateMessage root = pmRepo.create(new PrivateMessage(new Message(1, "Conversation opener"), dummyQuestionId, null));
+        PrivateMessage reply = pmRepo.create(new PrivateMessage(new Message(2, "First reply in chain"), null, root.getId()));
+        pmRepo.create(new PrivateMessage(new Message(1, "Later sibling, not followed"), null, root.getId()));
+        PrivateMessage last = pmRepo.create(new PrivateMessage(new Message(1, "Reply to the reply"), null, reply.getId()));
+
+        List<PrivateMessages.ConversationEntry> chain = pmRepo.getConversation(root.getId());
+        assertEquals(List.of(root.getId(), reply.getId(), last.getId()),
+                chain.stream().map(e -> e.getPrivateMessage().getId()).toList());
+        assertEquals(List.of("pmUser1", "pmUser2", "pmUser1"),
+                chain.stream().map(PrivateMessages.ConversationEntry::getSenderUserName).toList());
+        assertEquals("Reply to the reply", chain.getLast().getPrivateMessage().getMessage().getContent());
+        assertTrue(pmRepo.getConversation(-1).isEmpty());
+    }
+
+    /**
+     * Tests that the owner's inbox lists conversations on their questions by latest activity with unread counts.
+     */
+    @Test
+    @Order(9)
+    public void testInboxForOwner() throws Exception {
+        Question owned = appContext.questions().create(new Question(new Message(2, "Question owned by user two"), "Inbox question"));
+        // Explicit, increasing timestamps keep the activity order independent of clock resolution
+        long base = System.currentTimeMillis();
+        PrivateMessage a = pmRepo.create(new PrivateMessage(new Message(1, "Opening conversation A")
+                .setCreatedAt(new Timestamp(base + 1000)), owned.getId(), null));
+        PrivateMessage b = pmRepo.create(new PrivateMessage(new Message(1, "Opening conversation B")
+                .setCreatedAt(new Timestamp(base + 2000)), owned.getId(), null));
+        pmRepo.create(new PrivateMessage(new Message(2, "Owner answers in A")
+                .setCreatedAt(new Timestamp(base + 3000)), null, a.getId()));
+        PrivateMessage late = pmRepo.create(new PrivateMessage(new Message(1, "Follow-up keeps A on top")
+                .setCreatedAt(new Timestamp(base + 4000)), null, a.getId()));
+
+        List<PrivateMessages.InboxEntry> inbox = pmRepo.inboxForOwner(2, Page.first(10));
+        assertEquals(List.of(a.getId(), b.getId()), inbox.stream().map(e -> e.getPrivateMessage().getId()).toList());
+        assertEquals("pmUser1", inbox.getFirst().getSenderUserName());
+        assertEquals("Inbox question", inbox.getFirst().getQuestionTitle());
+        assertEquals(2, inbox.getFirst().getUnreadCount());
+        assertEquals(pmRepo.getById(late.getId()).getMessage().getCreatedAt(), inbox.getFirst().getLastActivityAt());
+
+        appContext.readMessages().markAsRead(2, List.of(a.getMessage().getId(), late.getMessage().getId()));
+        inbox = pmRepo.inboxForOwner(2, Page.first(10));
+        assertFalse(inbox.getFirst().isUnread());
+        assertTrue(inbox.get(1).isUnread());
+        assertEquals(1, pmRepo.inboxForOwner(2, Page.first(1).next()).size());
+        assertTrue(pmRepo.inboxForOwner(2, Page.first(10)).stream()
+                .noneMatch(e -> e.getPrivateMessage().getQuestionId() == dummyQuestionId));
+    }
+
+    /**
+     * Tests that the payload columns copied by older versions are dropped from an existing table without changing
+     * what reads return.
+     */
+    @Test
+    @Order(10)
+    public void testDropLegacyPayloadColumns() throws Exception {
+        Connection connection = appContext.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE PrivateMessages ADD COLUMN userID INT NOT NULL DEFAULT 0");
+            stmt.execute("ALTER TABLE PrivateMessages ADD COLUMN content TEXT");
+            stmt.execute("ALTER TABLE PrivateMessages ADD COLUMN createdAt TIMESTAMP");
+            stmt.execute("UPDATE PrivateMessages pm SET (userID, content, createdAt) = " +
+                    "(SELECT m.userID, m.content, m.createdAt FROM Messages m WHERE m.messageID = pm.messageID)");
+        }
+        List<String> before = pmRepo.getAll().stream().map(this::describe).toList();
+
+        PrivateMessageTable table = new PrivateMessageTable();
+        long reclaimed = TableSyncUtil.dropObsoleteColumns(connection, table.getTableName(), table.getObsoleteColumns());
+        assertTrue(reclaimed > 0, "Copied payloads should count as reclaimed space");
+        assertEquals(0, TableSyncUtil.dropObsoleteColumns(connection, table.getTableName(), table.getObsoleteColumns()));
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS " +
+                     "WHERE TABLE_NAME = 'PRIVATEMESSAGES' AND COLUMN_NAME IN ('USERID', 'CONTENT', 'CREATEDAT')")) {
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+        assertEquals(before, pmRepo.getAll().stream().map(this::describe).toList());
+        assertNotNull(pmRepo.create(new PrivateMessage(new Message(1, "Written after the migration"), dummyQuestionId, null)));
+    }
+
+    /**
+     * Renders every field a read returns, for comparing reads before and after a migration.
+     */
+    private String describe(PrivateMessage pm) {
+        return pm.getId() + "|" + pm.getQuestionId() + "|" + pm.getParentPrivateMessageId() + "|"
+                + pm.getMessage().getUserId() + "|" + pm.getMessage().getContent() + "|" + pm.getMessage().getCreatedAt();
+    }
+}
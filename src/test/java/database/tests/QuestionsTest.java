@@ -1,13 +1,18 @@
 package database.tests;
 
 import database.BaseDatabaseTest;
+import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Question;
 import database.model.entities.User;
+import database.repository.Page;
+import database.repository.repos.Answers;
 import database.repository.repos.Questions;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
 
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -189,4 +194,167 @@ public class QuestionsTest extends BaseDatabaseTest {
         boolean found = unanswered.stream().anyMatch(question -> question.getTitle().equals("Unanswered question"));
         assertTrue(found, "Unanswered question should be returned by getUnansweredQuestions");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the stats listing counts top-level answers, reports the pin, and filters and pages correctly.
+     */
+    @Test
+    @Order(11)
+    public void testListWithStats() {
+        Answers answersRepo = appContext.answers();
+        Question resolved = questionsRepo.create(new Question(new Message(1, "Stats resolved content"), "Stats resolved"));
+        Question open = questionsRepo.create(new Question(new Message(2, "Stats open content"), "Stats open"));
+        Answer pinned = answersRepo.create(new Answer(new Message(2, "The accepted answer here"), resolved.getId(), null, false));
+        answersRepo.create(new Answer(new Message(1, "Another top-level answer"), resolved.getId(), null, false));
+        answersRepo.create(new Answer(new Message(1, "A reply, not counted"), null, pinned.getId(), false));
+        answersRepo.pinExclusive(resolved.getId(), pinned.getId());
+
+        List<Questions.QuestionSummary> all = questionsRepo.listWithStats(Questions.QuestionFilter.ALL, Page.first(1000));
+        Questions.QuestionSummary r = all.stream().filter(s -> s.getQuestion().getId() == resolved.getId()).findFirst().orElseThrow();
+        assertEquals(2, r.getAnswerCount());
+        assertTrue(r.isPinned());
+        assertEquals("qUser1", r.getAuthorUserName());
+        assertFalse(r.getLastActivityAt().before(r.getQuestion().getMessage().getCreatedAt()));
+        Questions.QuestionSummary o = all.stream().filter(s -> s.getQuestion().getId() == open.getId()).findFirst().orElseThrow();
+        assertEquals(0, o.getAnswerCount());
+        assertFalse(o.isPinned());
+        assertEquals(o.getQuestion().getMessage().getCreatedAt(), o.getLastActivityAt());
+
+        List<Questions.QuestionSummary> unresolved = questionsRepo.listWithStats(Questions.QuestionFilter.UNRESOLVED, Page.first(1000));
+        assertTrue(unresolved.stream().noneMatch(s -> s.getQuestion().getId() == resolved.getId()));
+        assertTrue(unresolved.stream().anyMatch(s -> s.getQuestion().getId() == open.getId()));
+        List<Questions.QuestionSummary> unanswered = questionsRepo.listWithStats(Questions.QuestionFilter.UNANSWERED, Page.first(1000));
+        assertTrue(unanswered.stream().allMatch(s -> s.getAnswerCount() == 0));
+
+        List<Questions.QuestionSummary> second = questionsRepo.listWithStats(Questions.QuestionFilter.ALL, Page.first(2).next());
+        assertEquals(all.get(2).getQuestion().getId(), second.get(0).getQuestion().getId());
+    }
+
+    /**
+     * Tests that the denormalized stats follow answer writes and agree with a full rebuild.
+     */
+    @Test
+    @Order(12)
+    public void testStatsFollowAnswerWrites() throws Exception {
+        Answers answersRepo = appContext.answers();
+        Question q = questionsRepo.create(new Question(new Message(1, "Denormalized stats content"), "Stats tracked"));
+        assertTrue(questionsRepo.getUnansweredQuestions().stream().anyMatch(x -> x.getId() == q.getId()));
+
+        // Explicit, increasing timestamps keep the activity order independent of clock resolution
+        long base = System.currentTimeMillis();
+        Answer top = answersRepo.create(new Answer(new Message(2, "Top-level answer body")
+                .setCreatedAt(new Timestamp(base + 1000)), q.getId(), null, false));
+        Answer reply = answersRepo.create(new Answer(new Message(1, "Reply updates activity")
+                .setCreatedAt(new Timestamp(base + 2000)), null, top.getId(), false));
+        Questions.QuestionSummary s = summaryOf(q.getId());
+        assertEquals(1, s.getAnswerCount());
+        assertFalse(s.isPinned());
+        assertEquals(answersRepo.getById(reply.getId()).getMessage().getCreatedAt(), s.getLastActivityAt());
+        assertTrue(questionsRepo.getUnansweredQuestions().stream().noneMatch(x -> x.getId() == q.getId()));
+
+        answersRepo.pinExclusive(q.getId(), top.getId());
+        assertTrue(questionsRepo.hasPinnedAnswer(q.getId()));
+        assertTrue(questionsRepo.getQuestionsWithoutPinnedAnswer().stream().noneMatch(x -> x.getId() == q.getId()));
+
+        Questions.QuestionSummary before = summaryOf(q.getId());
+        questionsRepo.rebuildStats();
+        Questions.QuestionSummary rebuilt = summaryOf(q.getId());
+        assertEquals(before.getAnswerCount(), rebuilt.getAnswerCount());
+        assertEquals(before.isPinned(), rebuilt.isPinned());
+        assertEquals(before.getLastActivityAt(), rebuilt.getLastActivityAt());
+
+        answersRepo.delete(top.getId());
+        s = summaryOf(q.getId());
+        assertEquals(0, s.getAnswerCount());
+        assertFalse(s.isPinned());
+        assertEquals(s.getQuestion().getMessage().getCreatedAt(), s.getLastActivityAt());
+    }
+
+    /**
+     * Tests that query conditions combine: author, answered and pinned state, date range and paging.
+     */
+    @Test
+    @Order(13)
+    public void testComposableQuery() throws Exception {
+        Answers answersRepo = appContext.answers();
+        Question mineOpen = questionsRepo.create(new Question(new Message(2, "Composable query one"), "Mine, open"));
+        Question mineSolved = questionsRepo.create(new Question(new Message(2, "Composable query two"), "Mine, solved"));
+        Question theirs = questionsRepo.create(new Question(new Message(1, "Composable query three"), "Theirs"));
+        Answer a = answersRepo.create(new Answer(new Message(1, "Answer that gets pinned"), mineSolved.getId(), null, false));
+        answersRepo.pinExclusive(mineSolved.getId(), a.getId());
+        answersRepo.create(new Answer(new Message(2, "Answer left unpinned"), theirs.getId(), null, false));
+
+        Questions.QuestionQuery mine = Questions.QuestionQuery.all().byAuthor(2);
+        List<Integer> ids = idsOf(mine.pinned(false));
+        assertTrue(ids.contains(mineOpen.getId()));
+        assertFalse(ids.contains(mineSolved.getId()));
+        assertFalse(ids.contains(theirs.getId()));
+        assertTrue(idsOf(mine.pinned(true)).contains(mineSolved.getId()));
+        assertTrue(idsOf(Questions.QuestionQuery.all().byAuthor(1).answered(true).pinned(false)).contains(theirs.getId()));
+        assertTrue(idsOf(mine.answered(false)).contains(mineOpen.getId()));
+
+        Timestamp created = questionsRepo.getById(mineOpen.getId()).getMessage().getCreatedAt();
+        assertTrue(idsOf(mine.createdBetween(created, null)).contains(mineOpen.getId()));
+        assertTrue(idsOf(mine.createdBetween(null, created)).stream().noneMatch(id -> id >= mineOpen.getId()));
+
+        List<Questions.QuestionSummary> firstTwo = questionsRepo.listWithStats(mine, Page.first(2));
+        assertEquals(2, firstTwo.size());
+        assertTrue(firstTwo.stream().allMatch(x -> x.getQuestion().getMessage().getUserId() == 2));
+    }
+
+    /**
+     * Tests that deleting a message or a user refreshes the stats of exactly the questions whose answers cascade
+     * away with it.
+     */
+    @Test
+    @Order(14)
+    public void testCascadedDeletesRefreshAffectedStats() throws Exception {
+        Answers answersRepo = appContext.answers();
+        User leaving = userRepo.create(new User("qUser3", "Leaving", "Soon", "somePassword", "leaving@example.com", 0));
+        Question first = questionsRepo.create(new Question(new Message(1, "First cascade question"), "Cascade one"));
+        Question second = questionsRepo.create(new Question(new Message(1, "Second cascade question"), "Cascade two"));
+        Question untouched = questionsRepo.create(new Question(new Message(1, "Question nobody answers"), "Cascade three"));
+        Answer own = answersRepo.create(new Answer(new Message(leaving.getId(), "Answer by the leaving user"),
+                first.getId(), null, false));
+        answersRepo.create(new Answer(new Message(2, "Reply under the leaving answer"), null, own.getId(), false));
+        Answer other = answersRepo.create(new Answer(new Message(2, "Answer that stays around"),
+                second.getId(), null, false));
+        Answer reply = answersRepo.create(new Answer(new Message(leaving.getId(), "Reply by the leaving user"),
+                null, other.getId(), false));
+        Answer doomed = answersRepo.create(new Answer(new Message(2, "Answer whose message goes"),
+                second.getId(), null, false));
+
+        // A stale count on an unrelated question shows the refresh is scoped to the affected ones
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Questions SET answerCount = 99 WHERE questionID = " + untouched.getId());
+        }
+
+        appContext.messages().delete(doomed.getMessage().getId());
+        assertEquals(1, summaryOf(second.getId()).getAnswerCount());
+        assertEquals(99, summaryOf(untouched.getId()).getAnswerCount());
+
+        userRepo.delete(leaving.getId());
+        assertEquals(0, summaryOf(first.getId()).getAnswerCount());
+        Questions.QuestionSummary s = summaryOf(second.getId());
+        assertEquals(1, s.getAnswerCount());
+        assertEquals(answersRepo.getById(other.getId()).getMessage().getCreatedAt(), s.getLastActivityAt());
+        assertNull(answersRepo.getById(reply.getId()));
+        assertEquals(99, summaryOf(untouched.getId()).getAnswerCount());
+        questionsRepo.rebuildStats();
+    }
+
+    /**
+     * Lists the IDs of the questions matching a query.
+     */
+    private List<Integer> idsOf(Questions.QuestionQuery query) {
+        return questionsRepo.listWithStats(query, Page.first(1000)).stream().map(x -> x.getQuestion().getId()).toList();
+    }
+
+    /**
+     * Finds a question in the stats listing.
+     */
+    private Questions.QuestionSummary summaryOf(int questionId) {
+        return questionsRepo.listWithStats(Questions.QuestionFilter.ALL, Page.first(1000)).stream()
+                .filter(s -> s.getQuestion().getId() == questionId).findFirst().orElseThrow();
+    }
+}
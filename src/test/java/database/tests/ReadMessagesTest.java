@@ -1,16 +1,21 @@
 package database.tests;
 
 import database.BaseDatabaseTest;
+import database.model.entities.Answer;
 import database.model.entities.Message;
 import database.model.entities.Question;
 import database.model.entities.User;
+import database.repository.ConnectionCache;
 import database.repository.repos.Questions;
 import database.repository.repos.ReadMessages;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -153,4 +158,163 @@ public class ReadMessagesTest extends BaseDatabaseTest {
         assertTrue(found.contains(m1), "Should contain message m1");
         assertTrue(found.contains(m2), "Should contain message m2");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that bulk marking is idempotent, spans several chunks and reports the rows changed.
+     */
+    @Test
+    @Order(5)
+    public void testBulkMarkIdempotent() {
+        List<Integer> ids = new ArrayList<>();
+        for (int n = 0; n < 600; n++) {
+            Message msg = new Message(testUserId, "Bulk question " + n);
+            ids.add(questionsRepo.create(new Question(msg, "Bulk " + n)).getMessage().getId());
+        }
+
+        List<Integer> firstHalf = ids.subList(0, 300);
+        assertEquals(300, readMessagesRepo.markAsRead(testUserId, firstHalf));
+        // Re-marking and duplicates only add the missing rows; unknown ids are ignored
+        List<Integer> again = new ArrayList<>(ids);
+        again.addAll(firstHalf);
+        again.add(99999);
+        assertEquals(300, readMessagesRepo.markAsRead(testUserId, again));
+        assertEquals(0, readMessagesRepo.markAsRead(testUserId, ids));
+        assertEquals(600, readMessagesRepo.findReadMessages(testUserId, ids).size());
+
+        assertEquals(600, readMessagesRepo.markAsUnread(testUserId, again));
+        assertEquals(0, readMessagesRepo.markAsUnread(testUserId, ids));
+        assertTrue(readMessagesRepo.findReadMessages(testUserId, ids).isEmpty());
+    }
+
+    /**
+     * Tests that the read mask is aligned with the requested ids, including unknown ids.
+     */
+    @Test
+    @Order(6)
+    public void testReadMask() {
+        Message msg1 = new Message(testUserId, "Mask question 1");
+        int m1 = questionsRepo.create(new Question(msg1, "Mask 1")).getMessage().getId();
+        Message msg2 = new Message(testUserId, "Mask question 2");
+        int m2 = questionsRepo.create(new Question(msg2, "Mask 2")).getMessage().getId();
+        readMessagesRepo.markAsRead(testUserId, m2);
+
+        BitSet mask = readMessagesRepo.readMask(testUserId, Arrays.asList(m1, 99999, m2, m2));
+        assertFalse(mask.get(0));
+        assertFalse(mask.get(1));
+        assertTrue(mask.get(2));
+        assertTrue(mask.get(3));
+        assertTrue(readMessagesRepo.readMask(testUserId, List.of()).isEmpty());
+    }
+
+    /**
+     * Tests that the cached read set follows writes made after it was loaded.
+     */
+    @Test
+    @Order(7)
+    public void testReadSetCacheWriteThrough() {
+        Message msg = new Message(testUserId, "Cache question");
+        int messageId = questionsRepo.create(new Question(msg, "Cache")).getMessage().getId();
+
+        // First lookup loads the set
+        assertFalse(readMessagesRepo.isRead(testUserId, messageId));
+        assertTrue(readMessagesRepo.cachedBytes(testUserId) > 0);
+        assertTrue(readMessagesRepo.cachedBytes() >= readMessagesRepo.cachedBytes(testUserId));
+
+        readMessagesRepo.markAsRead(testUserId, messageId);
+        assertTrue(readMessagesRepo.isRead(testUserId, messageId));
+        readMessagesRepo.markAsUnread(testUserId, messageId);
+        assertFalse(readMessagesRepo.isRead(testUserId, messageId));
+        readMessagesRepo.create(new ReadMessages.ReadMessagePivot(testUserId, messageId));
+        assertTrue(readMessagesRepo.isRead(testUserId, messageId));
+        readMessagesRepo.deleteByCompositeKey(testUserId, messageId);
+        assertFalse(readMessagesRepo.isRead(testUserId, messageId));
+    }
+
+    /**
+     * Tests that unread counters follow deliveries and read-state changes, and agree with a rebuild.
+     */
+    @Test
+    @Order(8)
+    public void testUnreadCounters() {
+        User other = new User("readOtherUser", "Other", "User", "password", "readother@example.com", 0);
+        appContext.users().create(other);
+        Message qMsg = new Message(testUserId, "Counter question");
+        Question question = questionsRepo.create(new Question(qMsg, "Counter"));
+        ReadMessages.Conversation conversation =
+                new ReadMessages.Conversation(ReadMessages.Conversation.Kind.QUESTION, question.getId());
+
+        int baseline = readMessagesRepo.unreadCount(testUserId);
+        Answer answer = appContext.answers().create(
+                new Answer(new Message(other.getId(), "An answer from someone else"), question.getId(), null, false));
+        // Own messages are never unread
+        appContext.answers().create(new Answer(new Message(testUserId, "An answer to my own question"), question.getId(), null, false));
+
+        assertEquals(baseline + 1, readMessagesRepo.unreadCount(testUserId));
+        assertEquals(1, readMessagesRepo.unreadByConversation(testUserId).get(conversation));
+        assertEquals(0, readMessagesRepo.unreadCount(other.getId()));
+
+        int answerMessageId = answer.getMessage().getId();
+        readMessagesRepo.markAsRead(testUserId, List.of(answerMessageId));
+        assertEquals(baseline, readMessagesRepo.unreadCount(testUserId));
+        assertFalse(readMessagesRepo.unreadByConversation(testUserId).containsKey(conversation));
+
+        readMessagesRepo.markAsUnread(testUserId, answerMessageId);
+        assertEquals(baseline + 1, readMessagesRepo.unreadCount(testUserId));
+
+        // A reply to the other user's answer counts for them
+        appContext.answers().create(new Answer(new Message(testUserId, "A reply to that answer"), null, answer.getId(), false));
+        assertEquals(1, readMessagesRepo.unreadByConversation(other.getId())
+                .get(new ReadMessages.Conversation(ReadMessages.Conversation.Kind.ANSWER, answer.getId())));
+
+        int live = readMessagesRepo.unreadCount(testUserId);
+        Map<ReadMessages.Conversation, Integer> liveByConversation = readMessagesRepo.unreadByConversation(testUserId);
+        // Deleting a question drops all counters; the rebuild must match what was tracked
+        Question throwaway = questionsRepo.create(new Question(new Message(other.getId(), "Throwaway question"), "Throwaway"));
+        questionsRepo.delete(throwaway.getId());
+        assertEquals(live, readMessagesRepo.unreadCount(testUserId));
+        assertEquals(liveByConversation, readMessagesRepo.unreadByConversation(testUserId));
+    }
+
+    /**
+     * Tests that a cold user's first lookup is answered in SQL, that the next one loads the read set, and that
+     * clearing the connection's caches drops it.
+     */
+    @Test
+    @Order(9)
+    public void testColdUserLookupsAndCacheReset() {
+        User cold = new User("readColdUser", "Cold", "User", "password", "readcold@example.com", 0);
+        appContext.users().create(cold);
+        int messageId = questionsRepo.create(new Question(new Message(testUserId, "Cold question"), "Cold lookups"))
+                .getMessage().getId();
+        readMessagesRepo.markAsRead(cold.getId(), messageId);
+
+        assertEquals(List.of(messageId), readMessagesRepo.findReadMessages(cold.getId(), List.of(messageId, -1)));
+        assertEquals(0, readMessagesRepo.cachedBytes(cold.getId()), "First lookup must not load the read set");
+        assertTrue(readMessagesRepo.readMask(cold.getId(), List.of(-1, messageId)).get(1));
+        assertTrue(readMessagesRepo.cachedBytes(cold.getId()) > 0, "Second lookup loads the read set");
+
+        ConnectionCache.clear(appContext.getConnection());
+        assertEquals(0, readMessagesRepo.cachedBytes(cold.getId()));
+        assertTrue(readMessagesRepo.isRead(cold.getId(), messageId));
+    }
+
+    /**
+     * Tests that a read mask as a cold user's first lookup is answered in SQL without loading the read set.
+     */
+    @Test
+    @Order(10)
+    public void testColdUserReadMaskFirst() {
+        User cold = new User("readMaskColdUser", "Cold", "Mask", "password", "readmaskcold@example.com", 0);
+        appContext.users().create(cold);
+        int messageId = questionsRepo.create(new Question(new Message(testUserId, "Cold mask question"), "Cold mask"))
+                .getMessage().getId();
+        readMessagesRepo.markAsRead(cold.getId(), messageId);
+
+        BitSet mask = readMessagesRepo.readMask(cold.getId(), List.of(-1, messageId));
+        assertFalse(mask.get(0));
+        assertTrue(mask.get(1));
+        assertEquals(0, readMessagesRepo.cachedBytes(cold.getId()), "First lookup must not load the read set");
+        assertTrue(readMessagesRepo.readMask(cold.getId(), List.of(messageId)).get(0));
+        assertTrue(readMessagesRepo.cachedBytes(cold.getId()) > 0, "Second lookup loads the read set");
+    }
+}
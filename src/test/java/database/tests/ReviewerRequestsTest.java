@@ -3,6 +3,7 @@ package database.tests;
 import database.BaseDatabaseTest;
 import database.model.entities.ReviewerRequest;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.ReviewerRequests;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
@@ -88,9 +89,17 @@ public class ReviewerRequestsTest extends BaseDatabaseTest {
     @Test
     @Order(3)
     public void testAcceptRequest() {
+        ReviewerRequest rr = rrRepo.getById(requestId1);
+        rr.setStatus(null);
+        rrRepo.update(rr);
         ReviewerRequest accepted = rrRepo.acceptRequest(requestId1);
         assertNotNull(accepted);
         assertTrue(accepted.getStatus());
+
+        // The role is granted with the status, and a decided request cannot be accepted again
+        User requester = usersRepo.getById(accepted.getRequester().getId());
+        assertTrue(RolesUtil.hasRole(requester.getRoles(), Roles.REVIEWER));
+        assertNull(rrRepo.acceptRequest(requestId1));
     }
 
     /**
@@ -155,4 +164,40 @@ public class ReviewerRequestsTest extends BaseDatabaseTest {
         ReviewerRequest gone = rrRepo.getById(requestId1);
         assertNull(gone);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the paged pending queue and bulk accept/reject of several requests.
+     */
+    @Test
+    @Order(9)
+    public void testPendingQueueAndBulkActions() {
+        User instructor = usersRepo.getByUsername("instrUser2");
+        int[] ids = new int[3];
+        for (int n = 0; n < 3; n++) {
+            User requester = new User("bulkReq" + n, "Bulk", "Req", "pw", "bulk" + n + "@example.com", 0);
+            usersRepo.create(requester);
+            ids[n] = rrRepo.create(new ReviewerRequest(requester, instructor, null)).getId();
+        }
+
+        List<ReviewerRequest> firstPage = rrRepo.getPendingForInstructor(instructor.getId(), Page.first(2));
+        List<ReviewerRequest> secondPage = rrRepo.getPendingForInstructor(instructor.getId(), Page.first(2).next());
+        assertEquals(List.of(ids[0], ids[1]), firstPage.stream().map(ReviewerRequest::getId).toList());
+        assertEquals(List.of(ids[2]), secondPage.stream().map(ReviewerRequest::getId).toList());
+        assertEquals(instructor.getId(), firstPage.get(0).getInstructor().getId());
+
+        List<ReviewerRequest> accepted = rrRepo.acceptRequests(List.of(ids[0], ids[1]));
+        assertEquals(2, accepted.size());
+        assertTrue(accepted.stream().allMatch(ReviewerRequest::getStatus));
+        User promoted = usersRepo.getById(accepted.get(0).getRequester().getId());
+        assertTrue(RolesUtil.hasRole(promoted.getRoles(), Roles.REVIEWER));
+
+        // Already-handled ids are skipped
+        List<ReviewerRequest> rejected = rrRepo.rejectRequests(List.of(ids[0], ids[2]));
+        assertEquals(1, rejected.size());
+        assertEquals(ids[2], rejected.get(0).getId());
+        assertFalse(rejected.get(0).getStatus());
+        assertTrue(rrRepo.getById(ids[0]).getStatus());
+
+        assertTrue(rrRepo.getPendingForInstructor(instructor.getId(), Page.first(10)).isEmpty());
+    }
+}
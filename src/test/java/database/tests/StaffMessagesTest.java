@@ -4,12 +4,16 @@ import database.BaseDatabaseTest;
 import database.model.entities.Message;
 import database.model.entities.StaffMessage;
 import database.model.entities.User;
+import database.repository.Page;
 import database.repository.repos.StaffMessages;
+import database.repository.repos.StaffMessages.InboxEntry;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
 import utils.permissions.Roles;
 import utils.permissions.RolesUtil;
 
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -171,4 +175,83 @@ public class StaffMessagesTest extends BaseDatabaseTest {
         int countAfter = chatAfterDeletion.size();
         assertEquals(countBefore - 1, countAfter, "Chat history should have one less message after deletion");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the staff inbox summary: last message preview and unread counts per partner.
+     */
+    @Test
+    @Order(6)
+    public void testGetInbox() {
+        List<InboxEntry> inbox = staffMessagesRepo.getInbox(staff2Id, Page.first(10));
+        assertEquals(1, inbox.size(), "Staff2 should have exactly one conversation");
+
+        InboxEntry entry = inbox.get(0);
+        assertEquals(user2Id, entry.getPartner().getId(), "Staff2's inbox partner should be user2");
+        assertEquals("Hello from user2 to staff2", entry.getLastMessagePreview(), "Preview should be the last message");
+        assertEquals(1, entry.getUnreadCount(), "Staff2 has not read user2's message yet");
+
+        // Once staff2 reads the conversation, the unread count drops to zero.
+        int messageId = staffMessagesRepo.loadChat(user2Id, staff2Id).get(0).getMessage().getId();
+        appContext.readMessages().markAsRead(staff2Id, messageId);
+        assertEquals(0, staffMessagesRepo.getInbox(staff2Id, Page.first(10)).get(0).getUnreadCount(),
+                "Unread count should be zero after reading");
+    }
+
+    /**
+     * Tests incremental loading of a chat after a cursor and scrollback before a cursor.
+     */
+    @Test
+    @Order(7)
+    public void testLoadChatSinceAndBefore() {
+        List<StaffMessage> full = staffMessagesRepo.loadChat(user1Id, staff1Id);
+        int lastSeenId = full.getLast().getMessage().getId();
+
+        // Nothing new yet.
+        assertTrue(staffMessagesRepo.loadChatSince(user1Id, staff1Id, lastSeenId, 50).isEmpty(),
+                "No messages should follow the newest one");
+
+        staffMessagesRepo.sendMessage(new Message(user1Id, "Incremental one"), user1Id, staff1Id);
+        staffMessagesRepo.sendMessage(new Message(staff1Id, "Incremental two"), user1Id, staff1Id);
+
+        List<StaffMessage> newer = staffMessagesRepo.loadChatSince(user1Id, staff1Id, lastSeenId, 50);
+        assertEquals(2, newer.size(), "Only the two new messages should be returned");
+        assertEquals("Incremental one", newer.get(0).getMessage().getContent());
+        assertEquals("Incremental two", newer.get(1).getMessage().getContent());
+        assertEquals("user1", newer.get(0).getUser().getUserName(), "Joined user should be populated");
+        assertEquals("staff1", newer.get(0).getStaff().getUserName(), "Joined staff should be populated");
+
+        // Scrollback: the two messages right before the newest, oldest first.
+        int newestId = newer.getLast().getMessage().getId();
+        List<StaffMessage> earlier = staffMessagesRepo.loadChatBefore(user1Id, staff1Id, newestId, 2);
+        assertEquals(2, earlier.size(), "Scrollback should respect the limit");
+        assertEquals("Incremental one", earlier.get(1).getMessage().getContent(), "Scrollback should be oldest first");
+        assertEquals(lastSeenId, earlier.get(0).getMessage().getId());
+    }
+
+    /**
+     * Tests that a chat with no recent activity is archived, loads without its bodies until they are asked for,
+     * and keeps its inbox preview intact.
+     */
+    @Test
+    @Order(8)
+    public void testArchiveInactiveChat() throws Exception {
+        staffMessagesRepo.sendMessage(new Message(user2Id, "Old question for staff two"), user2Id, staff2Id);
+        staffMessagesRepo.sendMessage(new Message(staff2Id, "Old answer from staff two"), user2Id, staff2Id);
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Messages SET createdAt = DATEADD('DAY', -400, createdAt) WHERE messageID IN " +
+                    "(SELECT messageID FROM StaffMessages WHERE userID = " + user2Id + " AND staffID = " + staff2Id + ")");
+        }
+
+        assertTrue(appContext.messages().archive(new Timestamp(System.currentTimeMillis() - 30 * 86_400_000L)) >= 2);
+        List<StaffMessage> chat = staffMessagesRepo.loadChat(user2Id, staff2Id);
+        assertNotNull(appContext.messages().getArchivedContent(chat.getLast().getMessage().getId()));
+        assertTrue(chat.getLast().getMessage().isArchived());
+        assertNull(chat.getLast().getMessage().getContent());
+        assertEquals(chat.size(), appContext.messages().loadArchived(chat.stream().map(StaffMessage::getMessage).toList()));
+        assertEquals("Old answer from staff two", chat.getLast().getMessage().getContent());
+
+        InboxEntry entry = staffMessagesRepo.getInbox(staff2Id, Page.first(50)).stream()
+                .filter(e -> e.getPartner().getId() == user2Id).findFirst().orElseThrow();
+        assertEquals("Old answer from staff two", entry.getLastMessagePreview());
+    }
+}
@@ -0,0 +1,64 @@
+package database.tests;
+
+import database.BaseDatabaseTest;
+import org.junit.jupiter.api.*;
+import utils.TableSyncUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TableSyncUtil}.
+ * <p>
+ * This test class verifies how the schema sync brings an existing table in line with its definition. Each test
+ * works on a throwaway table of its own, so the application schema is left as it was.
+ * </p>
+ *
+ * @author Dhruv
+ * @see TableSyncUtil
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TableSyncUtilTest extends BaseDatabaseTest {
+
+    /**
+     * Tests that the schema sync relaxes a column the schema now declares {@code NULL}, as message content was
+     * before archiving, and leaves {@code NOT NULL} and {@code DEFAULT NULL} columns alone.
+     */
+    @Test
+    @Order(1)
+    public void testSchemaSyncRelaxesDeclaredNull() throws Exception {
+        Connection connection = appContext.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE NullabilityProbe (id INT PRIMARY KEY, body TEXT NOT NULL, " +
+                    "kept TEXT NOT NULL, note TEXT NOT NULL)");
+        }
+        try {
+            Map<String, String> columns = new LinkedHashMap<>();
+            columns.put("id", "INT PRIMARY KEY");
+            columns.put("body", "TEXT NULL");
+            columns.put("kept", "TEXT NOT NULL");
+            columns.put("note", "TEXT DEFAULT NULL");
+            TableSyncUtil.syncTableSchema(connection, "NullabilityProbe", "", columns);
+            TableSyncUtil.syncTableSchema(connection, "NullabilityProbe", "", columns);
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COLUMN_NAME, IS_NULLABLE FROM INFORMATION_SCHEMA.COLUMNS " +
+                         "WHERE TABLE_NAME = 'NULLABILITYPROBE' ORDER BY ORDINAL_POSITION")) {
+                Map<String, String> nullable = new LinkedHashMap<>();
+                while (rs.next()) {
+                    nullable.put(rs.getString(1), rs.getString(2));
+                }
+                assertEquals(Map.of("ID", "NO", "BODY", "YES", "KEPT", "NO", "NOTE", "NO"), nullable);
+            }
+        } finally {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE NullabilityProbe");
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package database.tests;
 
 import database.BaseDatabaseTest;
+import database.migration.tables.UsersTable;
 import database.model.entities.User;
+import database.repository.DataAccessException;
 import database.repository.repos.Reviews;
 import database.repository.repos.Users;
 import org.junit.jupiter.api.*;
@@ -9,7 +11,10 @@ import utils.PasswordUtil;
 import utils.permissions.Roles;
 import utils.permissions.RolesUtil;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 
 /**
@@ -218,4 +223,106 @@ public class UsersTest extends BaseDatabaseTest {
 
         Assertions.assertTrue(isPasswordValid, "Password should be updated and valid");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the cached un-rated reviewer list is refreshed once the user rates another reviewer.
+     */
+    @Test
+    @Order(11)
+    public void testReviewersNotRatedCacheInvalidatedByRating() throws SQLException {
+        User rater = userRepo.getById(regularUserIds[1]);
+        List<User> before = userRepo.getReviewersNotRatedByUser(rater.getId());
+        Assertions.assertEquals(3, before.size(), "Fresh user should have all reviewers un-rated");
+
+        User reviewer = userRepo.getById(reviewerIds[1]);
+        appContext.reviews().setRating(reviewer, rater, 1);
+
+        List<User> after = userRepo.getReviewersNotRatedByUser(rater.getId());
+        Assertions.assertEquals(2, after.size(), "Rated reviewer should drop out of the cached list");
+        Assertions.assertTrue(after.stream().noneMatch(u -> u.getId() == reviewerIds[1]));
+    }
+
+    /**
+     * Tests that usernames are matched ignoring case and that prefix search escapes wildcards.
+     */
+    @Test
+    @Order(12)
+    public void testCaseInsensitiveLookupAndPrefixSearch() {
+        User created = userRepo.create(new User("Prefix_Alpha", "P", "A", "AlphaPassword", "pa@example.com", 0));
+        userRepo.create(new User("prefixBeta", "P", "B", "BetaPassword", "pb@example.com",
+                RolesUtil.rolesToInt(new Roles[]{Roles.STAFF})));
+
+        Assertions.assertTrue(userRepo.doesUserExist("PREFIX_ALPHA"));
+        Assertions.assertEquals(created.getId(), userRepo.getByUsername("prefix_alpha").getId());
+        Assertions.assertTrue(userRepo.validateLogin("PREFIX_alpha", "AlphaPassword"));
+        Assertions.assertFalse(userRepo.validateLogin("prefix_alpha", "WrongPassword"));
+        Assertions.assertThrows(DataAccessException.class, () ->
+                userRepo.create(new User("PREFIXBETA", "P", "B", "Pw", "dup@example.com", 0)));
+
+        List<User> found = userRepo.searchByUsernamePrefix("PREFIX", 10);
+        Assertions.assertEquals(List.of("Prefix_Alpha", "prefixBeta"), found.stream().map(User::getUserName).toList());
+        Assertions.assertEquals(1, userRepo.searchByUsernamePrefix("prefix_", 10).size(), "'_' must match literally");
+        Assertions.assertEquals(1, userRepo.searchByUsernamePrefix("prefix", 1).size());
+        Assertions.assertEquals(List.of("prefixBeta"), userRepo.searchByUsernamePrefix("pre", Roles.STAFF, 10)
+                .stream().map(User::getUserName).toList());
+
+        // A rename must not leave the old name resolvable
+        created.setUserName("Renamed");
+        userRepo.update(created);
+        Assertions.assertFalse(userRepo.doesUserExist("prefix_alpha"));
+        Assertions.assertEquals(created.getId(), userRepo.getByUsername("renamed").getId());
+
+        userRepo.delete(created.getId());
+        Assertions.assertFalse(userRepo.doesUserExist("Renamed"));
+    }
+
+    /**
+     * Tests that a name changed behind the repository's back is not reported from the cache.
+     */
+    @Test
+    @Order(13)
+    public void testDoesUserExistRechecksCachedName() throws SQLException {
+        User user = userRepo.create(new User("CachedName", "C", "N", "CachedPassword", "cn@example.com", 0));
+        Assertions.assertTrue(userRepo.doesUserExist("cachedname"));
+
+        try (Statement stmt = appContext.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE Users SET userName = 'Elsewhere' WHERE userID = " + user.getId());
+        }
+        Assertions.assertFalse(userRepo.doesUserExist("CachedName"));
+        Assertions.assertTrue(userRepo.doesUserExist("elsewhere"));
+        userRepo.delete(user.getId());
+    }
+
+    /**
+     * Tests that names differing only in case stop the schema sync without renaming anyone.
+     */
+    @Test
+    @Order(14)
+    public void testCaseClashMigrationFailsWithoutRenaming() throws SQLException {
+        Connection connection = appContext.getConnection();
+        User first = userRepo.create(new User("Clash", "C", "A", "ClashPassword", "ca@example.com", 0));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP INDEX idx_users_name_lower");
+            stmt.executeUpdate("INSERT INTO Users (userName, password) VALUES ('CLASH', 'x')");
+            stmt.executeUpdate("DELETE FROM SchemaMigrations WHERE migrationID = 'users-case-insensitive-names'");
+        }
+
+        SQLException e = Assertions.assertThrows(SQLException.class, () -> new UsersTable().syncTable(connection));
+        Assertions.assertTrue(e.getMessage().contains("Clash (" + first.getId() + "), CLASH ("), e.getMessage());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Users WHERE userName IN ('Clash', 'CLASH')")) {
+            rs.next();
+            Assertions.assertEquals(2, rs.getInt(1), "No account may be renamed");
+        }
+
+        // Once an administrator resolves the clash, the next sync applies the migration and restores the index
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM Users WHERE userName = 'CLASH'");
+        }
+        new UsersTable().syncTable(connection);
+        Assertions.assertThrows(DataAccessException.class, () ->
+                userRepo.create(new User("CLASH", "C", "B", "Pw", "cb@example.com", 0)));
+        userRepo.delete(first.getId());
+    }
+}
+